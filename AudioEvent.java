@@ -1,5 +1,7 @@
 package assign11;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * @author Prof Eric Heisler and Thanh Le
  * @assignment 7: Music
@@ -8,9 +10,12 @@ package assign11;
  * This class serves as the base class for all types of audio events.
  */
 public abstract class AudioEvent implements Comparable<AudioEvent> {
+    private static final AtomicLong created = new AtomicLong(); // Events created so far, on any thread
+
     private int time;    // The time of the event in milliseconds
     private String name; // The name or type of the event
     private int channel; // The channel number for the event
+    private final long serial; // Unique, in the order the events were created
 
     /**
      * Constructor to create an AudioEvent.
@@ -23,6 +28,7 @@ public abstract class AudioEvent implements Comparable<AudioEvent> {
         this.time = time;
         this.name = name;
         this.channel = channel;
+        this.serial = created.getAndIncrement();
     }
 
     /**
@@ -52,6 +58,16 @@ public abstract class AudioEvent implements Comparable<AudioEvent> {
         return this.channel;
     }
 
+    /**
+     * Gets the serial number of the event, which no other event has. It tells apart events
+     * the sequence orders as equal, such as the notes of a chord.
+     *
+     * @return The serial number.
+     */
+    public long getSerial() {
+        return this.serial;
+    }
+
     /**
      * Executes the event. This method must be implemented by subclasses.
      */
@@ -22,6 +22,13 @@ public class BetterDynamicArray<T> {
         elementCount = 0;
     }
 
+    // Constructor that reserves room for a known number of elements, so bulk loads never grow the array
+    @SuppressWarnings("unchecked")
+    public BetterDynamicArray(int initialCapacity) {
+        elements = (T[]) new Object[Math.max(1, initialCapacity)];
+        elementCount = 0;
+    }
+
     public void add(T value) {
         insert(elementCount, value);
     }
@@ -75,9 +82,7 @@ public class BetterDynamicArray<T> {
         if (index < 0 || index >= elementCount) {
             throw new IndexOutOfBoundsException();
         }
-        for (int i = index; i < elementCount - 1; i++) {
-            elements[i] = elements[i + 1];
-        }
+        System.arraycopy(elements, index + 1, elements, index, elementCount - index - 1); // Shift left in one move
         elements[elementCount - 1] = null;
         elementCount--;
     }
@@ -0,0 +1,416 @@
+package assign11;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The BinarySongFormat class reads and writes the compact binary song format.
+ *
+ * A file starts with a fixed size header and a table with one fixed size entry per track,
+ * giving the track's settings and the position of its chunk of events. The song block's
+ * chunk follows the table, then one chunk per track. Each chunk begins with its own table
+ * of event names, so a chunk can be decoded or copied on its own.
+ *
+ * Inside a chunk, every event is a tag byte holding the event type and flags for a name or
+ * channel equal to the previous event's, followed by varints: the time as a difference from
+ * the previous event, the name index and channel unless repeated, and then the pitch and
+ * duration of a note, the value of a change, or the duration of a track. All varints are
+ * zigzag encoded, so negative values stay short. Durations from 1 to 15, which are nearly
+ * all of them, are kept in the upper four bits of the tag instead. Fields that the text
+ * format pads with 0 are not stored, and are 0 again when read.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class BinarySongFormat {
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 40;      // Bytes before the track table
+    public static final int TRACK_ENTRY_SIZE = 32; // Bytes per track table entry
+
+    private static final byte[] MAGIC = { 'S', 'N', 'G', 'B' };
+    private static final int TYPE_MASK = 0x03;
+    private static final int SAME_NAME = 0x04;     // Tag flag: name index of the previous event
+    private static final int SAME_CHANNEL = 0x08;  // Tag flag: channel of the previous event
+    private static final int DURATION_SHIFT = 4;   // Tag bits 4-7: short durations, 0 if stored separately
+    private static final int MAX_TAG_DURATION = 15;
+
+    /**
+     * Checks whether some bytes start with the binary song magic number.
+     *
+     * @param start The first bytes of a file, from position to limit.
+     * @return true if the bytes begin a binary song.
+     */
+    public static boolean isBinary(ByteBuffer start) {
+        if (start.remaining() < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (start.get(start.position() + i) != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes a song in the binary format.
+     *
+     * @param song    The song to write.
+     * @param channel The channel to write to.
+     * @throws IOException if the channel cannot be written.
+     */
+    public static void write(SongData song, WritableByteChannel channel) throws IOException {
+        write(song, channel, SongProgress.NONE);
+    }
+
+    /**
+     * Writes a song in the binary format, reporting progress after each chunk.
+     *
+     * @param song     The song to write.
+     * @param channel  The channel to write to.
+     * @param progress Told how many chunks are done; may cancel the write.
+     * @throws IOException if the channel cannot be written, or the write was cancelled.
+     */
+    public static void write(SongData song, WritableByteChannel channel, SongProgress progress) throws IOException {
+        BetterDynamicArray<TrackData> tracks = song.getTracks();
+        Encoder body = new Encoder(1 << 16);
+
+        // Encode the song chunk followed by every track chunk, remembering where each one is
+        int tableEnd = HEADER_SIZE + tracks.size() * TRACK_ENTRY_SIZE;
+        encodeChunk(song.getEvents(), body);
+        int songChunkSize = body.size();
+        int[] chunkStarts = new int[tracks.size() + 1];
+        for (int i = 0; i < tracks.size(); i++) {
+            chunkStarts[i] = body.size();
+            ByteBuffer chunk = tracks.get(i).getChunk();
+            if (chunk != null) {
+                body.put(chunk); // Unchanged since it was read, so copy it without decoding
+            } else {
+                encodeChunk(tracks.get(i).getEvents(), body);
+            }
+            progress.update((i + 1.0) / (tracks.size() + 1));
+        }
+        chunkStarts[tracks.size()] = body.size();
+
+        ByteBuffer head = ByteBuffer.allocate(tableEnd);
+        head.put(MAGIC);
+        head.putShort((short) VERSION);
+        head.putShort((short) 0); // Flags, none defined yet
+        head.putInt(song.getTempo());
+        head.putInt(song.getLength());
+        head.putInt(tracks.size());
+        head.putLong(tableEnd);
+        head.putInt(songChunkSize);
+        head.putInt(song.getEvents().size());
+        head.putInt(0); // Reserved
+        for (int i = 0; i < tracks.size(); i++) {
+            TrackData track = tracks.get(i);
+            head.putInt(track.getNumber());
+            head.putInt(track.getInstrument());
+            head.putInt(track.getVolume());
+            head.putInt(track.getLength());
+            head.putInt(track.getEventCount());
+            head.putLong((long) tableEnd + chunkStarts[i]);
+            head.putInt(chunkStarts[i + 1] - chunkStarts[i]);
+        }
+        head.flip();
+        writeFully(channel, head);
+        writeFully(channel, body.contents());
+    }
+
+    /**
+     * Reads a song in the binary format, decoding every chunk.
+     *
+     * @param contents The whole file, from position to limit.
+     * @return The song.
+     * @throws IOException if the contents are not a valid binary song.
+     */
+    public static SongData read(ByteBuffer contents) throws IOException {
+        return read(contents, false);
+    }
+
+    /**
+     * Reads a song in the binary format. The header, the track table and the song block are
+     * always decoded. With lazy set, each track keeps its chunk and decodes it when its events
+     * are first asked for, so a song opens in time proportional to its track count.
+     *
+     * @param contents The whole file, from position to limit. It must not change afterwards.
+     * @param lazy     true to decode track chunks on demand.
+     * @return The song.
+     * @throws IOException if the contents are not a valid binary song.
+     */
+    public static SongData read(ByteBuffer contents, boolean lazy) throws IOException {
+        ByteBuffer file = contents.slice();
+        try {
+            readHeaderStart(file);
+            int tempo = file.getInt();
+            int songLength = file.getInt();
+            int trackCount = file.getInt();
+            long songOffset = file.getLong();
+            int songSize = file.getInt();
+            int songEventCount = file.getInt();
+            file.getInt(); // Reserved
+
+            BetterDynamicArray<TrackData> tracks = new BetterDynamicArray<>(trackCount);
+            boolean parallel = !lazy && trackCount > 1 && ForkJoinPool.getCommonPoolParallelism() > 1;
+            ArrayList<ForkJoinTask<EventTable>> decoded = new ArrayList<>(trackCount); // Chunks decoded in parallel
+            for (int i = 0; i < trackCount; i++) {
+                int number = file.getInt();
+                int instrument = file.getInt();
+                int volume = file.getInt();
+                int length = file.getInt();
+                int eventCount = file.getInt();
+                long offset = file.getLong();
+                int size = file.getInt();
+                ByteBuffer chunk = chunk(file, offset, size);
+                if (parallel) {
+                    decoded.add(ForkJoinPool.commonPool().submit(() -> decodeChunk(chunk.duplicate(), eventCount)));
+                    tracks.add(new TrackData(number, instrument, volume, length, eventCount, chunk));
+                } else if (lazy) {
+                    tracks.add(new TrackData(number, instrument, volume, length, eventCount, chunk));
+                } else {
+                    tracks.add(new TrackData(number, instrument, volume, length, decodeChunk(chunk, eventCount)));
+                }
+            }
+            EventTable songEvents = decodeChunk(chunk(file, songOffset, songSize), songEventCount);
+            if (parallel) {
+                // Every chunk is independent, so they were decoded at the same time; collect them in order
+                for (int i = 0; i < trackCount; i++) {
+                    TrackData track = tracks.get(i);
+                    tracks.set(i, new TrackData(track.getNumber(), track.getInstrument(), track.getVolume(),
+                            track.getLength(), SongFiles.joinBlock(decoded.get(i))));
+                }
+            }
+            return new SongData(tempo, tracks, songLength, songEvents);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt binary song file", e);
+        }
+    }
+
+    // Checks the magic number and version, leaving the buffer just past them
+    private static void readHeaderStart(ByteBuffer file) throws IOException {
+        if (!isBinary(file)) {
+            throw new IOException("Not a binary song file");
+        }
+        file.position(MAGIC.length);
+        int version = file.getShort() & 0xFFFF;
+        file.getShort(); // Flags
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary song version " + version);
+        }
+    }
+
+    // Returns a view of one chunk of the file
+    private static ByteBuffer chunk(ByteBuffer file, long offset, int size) throws IOException {
+        if (offset < 0 || size < 0 || offset + size > file.limit()) {
+            throw new IOException("Chunk outside of binary song file");
+        }
+        return file.slice((int) offset, size);
+    }
+
+    // Encodes a block of events as a name table followed by the events
+    private static void encodeChunk(EventTable events, Encoder out) {
+        HashMap<String, Integer> nameIndices = new HashMap<>();
+        BetterDynamicArray<String> names = new BetterDynamicArray<>();
+        int[] nameOfEvent = new int[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            String name = events.getName(i);
+            Integer index = nameIndices.get(name);
+            if (index == null) {
+                index = names.size();
+                nameIndices.put(name, index);
+                names.add(name);
+            }
+            nameOfEvent[i] = index;
+        }
+        out.putVarint(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            byte[] bytes = names.get(i).getBytes(StandardCharsets.UTF_8);
+            out.putVarint(bytes.length);
+            out.put(bytes);
+        }
+
+        int previousTime = 0;
+        int previousName = -1;
+        int previousChannel = Integer.MIN_VALUE;
+        for (int i = 0; i < events.size(); i++) {
+            byte type = events.getType(i);
+            int channel = events.getChannel(i);
+            int duration = events.getDuration(i);
+            int tag = type;
+            boolean shortDuration = type != EventTable.CHANGE && duration >= 1 && duration <= MAX_TAG_DURATION;
+            if (shortDuration) {
+                tag |= duration << DURATION_SHIFT;
+            }
+            if (nameOfEvent[i] == previousName) {
+                tag |= SAME_NAME;
+            }
+            if (channel == previousChannel) {
+                tag |= SAME_CHANNEL;
+            }
+            out.put((byte) tag);
+            out.putSignedVarint(events.getTime(i) - previousTime);
+            if ((tag & SAME_NAME) == 0) {
+                out.putVarint(nameOfEvent[i]);
+            }
+            if ((tag & SAME_CHANNEL) == 0) {
+                out.putSignedVarint(channel);
+            }
+            if (type != EventTable.TRACK) {
+                out.putSignedVarint(events.getValue(i));
+            }
+            if (type != EventTable.CHANGE && !shortDuration) {
+                out.putSignedVarint(duration);
+            }
+            previousTime = events.getTime(i);
+            previousName = nameOfEvent[i];
+            previousChannel = channel;
+        }
+    }
+
+    /**
+     * Decodes one chunk of events.
+     *
+     * @param in         The chunk, from position to limit.
+     * @param eventCount The number of events stored in the chunk.
+     * @return The events.
+     * @throws IOException if the chunk is not valid.
+     */
+    static EventTable decodeChunk(ByteBuffer in, int eventCount) throws IOException {
+        int nameCount = getVarint(in);
+        String[] names = new String[nameCount];
+        for (int i = 0; i < nameCount; i++) {
+            byte[] bytes = new byte[getVarint(in)];
+            in.get(bytes);
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        EventTable events = new EventTable(eventCount);
+        int time = 0;
+        int name = -1;
+        int channel = 0;
+        for (int i = 0; i < eventCount; i++) {
+            int tag = in.get();
+            byte type = (byte) (tag & TYPE_MASK);
+            time += getSignedVarint(in);
+            if ((tag & SAME_NAME) == 0) {
+                name = getVarint(in);
+            }
+            if ((tag & SAME_CHANNEL) == 0) {
+                channel = getSignedVarint(in);
+            }
+            if (name < 0 || name >= nameCount) {
+                throw new IOException("Event name index out of range: " + name);
+            }
+            if (type != EventTable.NOTE && type != EventTable.CHANGE && type != EventTable.TRACK) {
+                throw new IOException("Unknown event type: " + type);
+            }
+            int value = type == EventTable.TRACK ? 0 : getSignedVarint(in);
+            int duration = 0;
+            if (type != EventTable.CHANGE) {
+                duration = (tag & 0xFF) >>> DURATION_SHIFT;
+                if (duration == 0) {
+                    duration = getSignedVarint(in);
+                }
+            }
+            events.add(type, names[name], time, channel, value, duration);
+        }
+        return events;
+    }
+
+    // Reads an unsigned LEB128 varint
+    private static int getVarint(ByteBuffer in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint is too long");
+    }
+
+    // Reads a zigzag encoded varint
+    private static int getSignedVarint(ByteBuffer in) throws IOException {
+        int raw = getVarint(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * A growable byte buffer with varint encoding.
+     */
+    private static class Encoder {
+        private ByteBuffer buffer;
+
+        /**
+         * Creates an encoder with the given starting capacity.
+         *
+         * @param capacity - starting number of bytes
+         */
+        public Encoder(int capacity) {
+            buffer = ByteBuffer.allocate(capacity);
+        }
+
+        public int size() {
+            return buffer.position();
+        }
+
+        public void put(byte value) {
+            ensureRemaining(1);
+            buffer.put(value);
+        }
+
+        public void put(byte[] values) {
+            ensureRemaining(values.length);
+            buffer.put(values);
+        }
+
+        public void put(ByteBuffer values) {
+            ensureRemaining(values.remaining());
+            buffer.put(values);
+        }
+
+        // Writes an unsigned LEB128 varint
+        public void putVarint(int value) {
+            ensureRemaining(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        // Writes a zigzag encoded varint
+        public void putSignedVarint(int value) {
+            putVarint((value << 1) ^ (value >> 31));
+        }
+
+        // Returns the bytes written so far, ready to be read
+        public ByteBuffer contents() {
+            return buffer.duplicate().flip();
+        }
+
+        private void ensureRemaining(int count) {
+            if (buffer.remaining() < count) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + count));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+}
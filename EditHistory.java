@@ -0,0 +1,273 @@
+package assign11;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * The EditHistory class undoes and redoes the edits to the events of a song: the notes and
+ * track events the editors add, remove or change in bulk, and clears. It follows the
+ * sequencers of the song block and of every track, and keeps their events as EventTrees,
+ * so a step to undo holds two versions of the blocks it changed that share all but the
+ * changed paths, not copies of the blocks.
+ *
+ * The edits made while handling one event, such as a click or a key, are one step. Undo
+ * finds what differs between the current and the earlier version of each block without
+ * visiting what they share, and puts it back in one replace, so the editors change only
+ * the cells involved and repaint once.
+ *
+ * A sequencer whose events are replaced wholesale, as when a song is loaded or a track
+ * first creates its events, is not edited; the new events are where undo stops. Use a
+ * history on the event dispatch thread.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class EditHistory {
+    public static final int MAX_STEPS = 1000; // Steps kept to undo; older ones are forgotten
+
+    private final SongModel song;       // The song whose edits are kept
+    private final Runnable changed;     // Told whenever what can be undone or redone changes
+    private final BetterDynamicArray<Block> blocks = new BetterDynamicArray<>();   // The followed sequencers
+    private final BetterDynamicArray<Block> pending = new BetterDynamicArray<>();  // Blocks edited since the last step
+    private final BetterDynamicArray<Step> undoSteps = new BetterDynamicArray<>(); // Oldest first
+    private final BetterDynamicArray<Step> redoSteps = new BetterDynamicArray<>(); // Most recently undone last
+    private boolean restoring;          // Whether an undo or redo is changing the sequencers
+    private EditListener editListener;  // Told about the events undo and redo change, or null
+
+    /**
+     * The events of the song block or of one track, now and as of the last step.
+     */
+    private class Block implements SequenceListener {
+        private final int number;              // Track number, or EditListener.SONG_BLOCK
+        private final SimpleSequencer sequencer;
+        private EventTree events;              // The sequencer's events as they are now
+        private EventTree recorded;            // The events as of the last step or load
+
+        private Block(int number, SimpleSequencer sequencer) {
+            this.number = number;
+            this.sequencer = sequencer;
+            events = EventTree.of(sequencer);
+            recorded = events;
+        }
+
+        @Override
+        public void eventAdded(AudioEvent event) {
+            if (!restoring) {
+                events = events.with(event);
+                edited(this);
+            }
+        }
+
+        @Override
+        public void eventRemoved(AudioEvent event) {
+            if (!restoring) {
+                events = events.without(event);
+                edited(this);
+            }
+        }
+
+        @Override
+        public void eventsReplaced(BetterDynamicArray<AudioEvent> removed, BetterDynamicArray<AudioEvent> added) {
+            if (!restoring) {
+                for (int i = 0; i < removed.size(); i++) {
+                    events = events.without(removed.get(i));
+                }
+                for (int i = 0; i < added.size(); i++) {
+                    events = events.with(added.get(i));
+                }
+                edited(this);
+            }
+        }
+
+        // Loaded rather than edited, so the new events are not a step
+        @Override
+        public void sequenceChanged() {
+            events = EventTree.of(sequencer);
+            recorded = events;
+        }
+    }
+
+    /**
+     * The versions of the blocks one step changed, before and after it.
+     */
+    private static class Step {
+        private final BetterDynamicArray<Block> blocks = new BetterDynamicArray<>(1);
+        private final BetterDynamicArray<EventTree> before = new BetterDynamicArray<>(1);
+        private final BetterDynamicArray<EventTree> after = new BetterDynamicArray<>(1);
+    }
+
+    /**
+     * Creates an empty history that follows the song block and tracks of a song.
+     *
+     * @param song    The song.
+     * @param changed Told whenever a step is recorded, undone or redone.
+     */
+    public EditHistory(SongModel song, Runnable changed) {
+        this.song = song;
+        this.changed = changed;
+        follow(EditListener.SONG_BLOCK, song.getSequencer());
+        followTracks();
+    }
+
+    /**
+     * Starts following the tracks added to the song since the history was created or reset.
+     */
+    public void followTracks() {
+        for (int i = blocks.size() - 1; i < song.getTrackCount(); i++) {
+            follow(i, song.getTrack(i).getSequencer());
+        }
+    }
+
+    /**
+     * Forgets every step and follows the song's current tracks. Call this after the song
+     * was loaded.
+     */
+    public void reset() {
+        for (int i = 0; i < blocks.size(); i++) {
+            blocks.get(i).sequencer.removeSequenceListener(blocks.get(i));
+        }
+        blocks.clear();
+        pending.clear();
+        undoSteps.clear();
+        redoSteps.clear();
+        follow(EditListener.SONG_BLOCK, song.getSequencer());
+        followTracks();
+        changed.run();
+    }
+
+    /**
+     * Sets the listener that is told about the events each undo and redo removes and adds,
+     * as if the user had made those edits.
+     *
+     * @param editListener The listener, or null for none.
+     */
+    public void setEditListener(EditListener editListener) {
+        this.editListener = editListener;
+    }
+
+    /**
+     * Gets whether there is an edit to undo.
+     *
+     * @return true if undo would change the song.
+     */
+    public boolean canUndo() {
+        return undoSteps.size() > 0 || pending.size() > 0;
+    }
+
+    /**
+     * Gets whether there is an undone edit to redo.
+     *
+     * @return true if redo would change the song.
+     */
+    public boolean canRedo() {
+        return redoSteps.size() > 0 && pending.size() == 0;
+    }
+
+    /**
+     * Puts the blocks of the last step back as they were before it.
+     *
+     * @return true if there was a step to undo.
+     */
+    public boolean undo() {
+        endStep();
+        if (undoSteps.size() == 0) {
+            return false;
+        }
+        Step step = undoSteps.get(undoSteps.size() - 1);
+        undoSteps.remove(undoSteps.size() - 1);
+        restore(step.blocks, step.before);
+        redoSteps.add(step);
+        changed.run();
+        return true;
+    }
+
+    /**
+     * Makes the last undone step again.
+     *
+     * @return true if there was a step to redo.
+     */
+    public boolean redo() {
+        endStep();
+        if (redoSteps.size() == 0) {
+            return false;
+        }
+        Step step = redoSteps.get(redoSteps.size() - 1);
+        redoSteps.remove(redoSteps.size() - 1);
+        restore(step.blocks, step.after);
+        undoSteps.add(step);
+        changed.run();
+        return true;
+    }
+
+    // Starts keeping the edits of a sequencer
+    private void follow(int number, SimpleSequencer sequencer) {
+        Block block = new Block(number, sequencer);
+        sequencer.addSequenceListener(block);
+        blocks.add(block);
+    }
+
+    // Notes that a block was edited, and ends the step once the current event is handled
+    private void edited(Block block) {
+        for (int i = 0; i < pending.size(); i++) {
+            if (pending.get(i) == block) {
+                return;
+            }
+        }
+        pending.add(block);
+        if (pending.size() == 1) {
+            SwingUtilities.invokeLater(this::endStep);
+        }
+    }
+
+    // Records the edits since the last step as a new step, which forgets the undone steps
+    private void endStep() {
+        if (pending.size() == 0) {
+            return;
+        }
+        Step step = new Step();
+        for (int i = 0; i < pending.size(); i++) {
+            Block block = pending.get(i);
+            if (block.events != block.recorded) {
+                step.blocks.add(block);
+                step.before.add(block.recorded);
+                step.after.add(block.events);
+                block.recorded = block.events;
+            }
+        }
+        pending.clear();
+        if (step.blocks.size() > 0) {
+            undoSteps.add(step);
+            if (undoSteps.size() > MAX_STEPS) {
+                undoSteps.remove(0);
+            }
+            redoSteps.clear();
+        }
+        changed.run();
+    }
+
+    // Puts the events of some blocks back to earlier or later versions, each as one change to its sequencer
+    private void restore(BetterDynamicArray<Block> stepBlocks, BetterDynamicArray<EventTree> versions) {
+        for (int i = 0; i < stepBlocks.size(); i++) {
+            Block block = stepBlocks.get(i);
+            BetterDynamicArray<AudioEvent> removed = new BetterDynamicArray<>();
+            BetterDynamicArray<AudioEvent> added = new BetterDynamicArray<>();
+            EventTree.diff(block.events, versions.get(i), removed, added);
+            restoring = true;
+            try {
+                block.sequencer.replace(removed, added); // The editors show the change
+            } finally {
+                restoring = false;
+            }
+            block.events = versions.get(i);
+            block.recorded = block.events;
+
+            if (editListener != null) {
+                for (int j = 0; j < removed.size(); j++) {
+                    editListener.eventRemoved(block.number, removed.get(j)); // Record the change like an edit
+                }
+                for (int j = 0; j < added.size(); j++) {
+                    editListener.eventAdded(block.number, added.get(j));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,563 @@
+package assign11;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The EditJournal class autosaves a song by appending one small record per edit to a
+ * journal file next to the song file, which serves as the snapshot the edits apply to.
+ *
+ * Edits arrive on the Event Dispatch Thread and are only queued there. A background thread
+ * writes everything that has queued up in one write followed by one force, at most every
+ * COMMIT_INTERVAL_MS, so an edit is on disk within a few hundred milliseconds. Every record
+ * carries a checksum, so a record torn by a crash is recognized and ignored. A large batch,
+ * such as a burst of edits, is deflated into a single group record.
+ *
+ * Once the journal grows past COMPACT_SIZE, or has held edits for COMPACT_INTERVAL_MS, the
+ * background thread folds it into the snapshot: it reads the song file, applies the records,
+ * writes the song file atomically, and starts an empty journal. The journal header records
+ * the size and modification time of the snapshot it applies to, so a journal left over from
+ * a crash during compaction is recognized as already folded.
+ *
+ * A save captures the song and writes it in the background while the user keeps editing.
+ * beginSave, called when the song is captured, stops compaction so the journal never folds
+ * into a file the save is writing, and keeps the records made after the capture. Once the
+ * save is done, finishSave starts the journal of the saved file with just those records,
+ * since the file holds everything before them.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class EditJournal implements EditListener, Closeable {
+    private static final byte[] MAGIC = { 'S', 'N', 'G', 'J' };
+    private static final int VERSION = 2;                  // 2 added compressed groups
+    private static final int HEADER_SIZE = 24;             // Magic, version, flags, snapshot size and time
+    private static final long COMMIT_INTERVAL_MS = 100;    // Time for more edits to join a commit
+    private static final long COMPACT_SIZE = 1 << 20;      // Journal size that triggers compaction
+    private static final long COMPACT_INTERVAL_MS = 60_000; // Age of the oldest edit that triggers compaction
+    private static final int GROUP_SIZE = 4096;            // Batches this large are written deflated
+    private static final int GROUP_FLAG = 0x80000000;      // Length bit marking a deflated group of records
+
+    // Record types
+    private static final byte ADD_EVENT = 1;
+    private static final byte REMOVE_EVENT = 2;
+    private static final byte SET_TRACK = 3;
+    private static final byte SET_SONG_LENGTH = 4;
+    private static final byte SET_TEMPO = 5;
+
+    private static final ByteBuffer END = ByteBuffer.allocate(0); // Queued by close to stop the thread
+
+    private final File snapshot;                          // The song file the journal applies to
+    private final Path journal;                           // The journal file
+    private final LinkedBlockingQueue<ByteBuffer> pending; // Framed records waiting to be written
+    private final Thread committer;                       // Writes, forces and compacts the journal
+    private FileChannel channel;                          // Open journal, used only by the committer
+    private long firstEditTime;                           // When the oldest unfolded edit was written, or 0
+    private volatile boolean closed;
+    private final Object compacting = new Object();       // Held while compacting, and to stop compaction
+    private boolean saving;                               // Whether a save is running, which stops compaction
+    private ArrayList<ByteBuffer> sinceCapture;           // Records appended since beginSave, or null
+
+    /**
+     * Starts an empty journal for a song file, replacing any journal it had.
+     * The song file must already hold the current state of the song.
+     *
+     * @param snapshot The song file.
+     * @throws IOException if the journal cannot be created.
+     */
+    private EditJournal(File snapshot) throws IOException {
+        this(snapshot, new ArrayList<>());
+    }
+
+    /**
+     * Starts a journal for a song file that already holds records, replacing any journal it
+     * had. The song file must hold the state of the song before the records.
+     *
+     * @param snapshot The song file.
+     * @param records  Framed records to start the journal with.
+     * @throws IOException if the journal cannot be created.
+     */
+    private EditJournal(File snapshot, ArrayList<ByteBuffer> records) throws IOException {
+        this.snapshot = snapshot;
+        this.journal = journalFile(snapshot).toPath();
+        this.pending = new LinkedBlockingQueue<>();
+        this.channel = startJournal(snapshot, journal, records);
+        this.firstEditTime = records.isEmpty() ? 0 : System.currentTimeMillis();
+        this.closed = false;
+        this.committer = new Thread(this::commitLoop, "Edit journal " + snapshot.getName());
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Starts journaling edits to a song. The song file must already hold the current state
+     * of the song, for example because it was just saved, loaded or recovered.
+     *
+     * @param snapshot The song file.
+     * @return The journal, which should be given to the panels as their EditListener.
+     * @throws IOException if the journal cannot be created.
+     */
+    public static EditJournal open(File snapshot) throws IOException {
+        return new EditJournal(snapshot);
+    }
+
+    /**
+     * Gets the song file this journal applies to.
+     *
+     * @return The song file.
+     */
+    public File getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets the journal file that belongs to a song file.
+     *
+     * @param snapshot The song file.
+     * @return The journal file next to it.
+     */
+    public static File journalFile(File snapshot) {
+        return new File(snapshot.getPath() + ".journal");
+    }
+
+    /**
+     * Checks whether a song file has a journal with edits that are not in the file yet.
+     *
+     * @param snapshot The song file.
+     * @return true if recover would change the song file.
+     */
+    public static boolean hasRecoverableEdits(File snapshot) {
+        try {
+            ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(journalFile(snapshot).toPath()));
+            return matchesSnapshot(contents, snapshot) && !readRecords(contents).isEmpty();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Folds a journal left behind by an earlier session into its song file and deletes it.
+     * A journal that does not belong to the current song file is only deleted.
+     *
+     * @param snapshot The song file.
+     * @return The number of edits that were recovered.
+     * @throws IOException if the song file cannot be read or written.
+     */
+    public static int recover(File snapshot) throws IOException {
+        Path journal = journalFile(snapshot).toPath();
+        if (!Files.exists(journal)) {
+            return 0;
+        }
+        int applied = fold(snapshot, journal);
+        Files.deleteIfExists(journal);
+        return applied;
+    }
+
+    @Override
+    public void eventAdded(int block, AudioEvent event) {
+        append(eventRecord(ADD_EVENT, block, event));
+    }
+
+    @Override
+    public void eventRemoved(int block, AudioEvent event) {
+        append(eventRecord(REMOVE_EVENT, block, event));
+    }
+
+    @Override
+    public void trackChanged(int track, int instrument, int volume, int length) {
+        ByteBuffer record = ByteBuffer.allocate(17);
+        record.put(SET_TRACK).putInt(track).putInt(instrument).putInt(volume).putInt(length);
+        append(record);
+    }
+
+    @Override
+    public void songLengthChanged(int length) {
+        append(ByteBuffer.allocate(5).put(SET_SONG_LENGTH).putInt(length));
+    }
+
+    @Override
+    public void tempoChanged(int tempo) {
+        append(ByteBuffer.allocate(5).put(SET_TEMPO).putInt(tempo));
+    }
+
+    /**
+     * Writes every queued edit and stops the background thread. The journal file is kept,
+     * so edits that were not folded yet are recovered the next time the song is opened.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pending.add(END);
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Marks the point where the song is captured to be saved. Call this on the Event
+     * Dispatch Thread right where the song is captured, then finishSave or cancelSave once
+     * the save is over. Until then the journal does not fold into its song file, and keeps
+     * the records of later edits. This waits for a compaction that is running to finish.
+     */
+    public void beginSave() {
+        synchronized (compacting) {
+            saving = true;
+        }
+        sinceCapture = new ArrayList<>();
+    }
+
+    /**
+     * Ends a save that failed or was cancelled; the journal goes on as before.
+     */
+    public void cancelSave() {
+        sinceCapture = null;
+        synchronized (compacting) {
+            saving = false;
+        }
+    }
+
+    /**
+     * Ends a save that wrote the song as it was at beginSave to a file. This journal is
+     * closed, and deleted unless the file is its own song file, and the journal of the file
+     * is started with the edits made since beginSave, so none of them is lost.
+     *
+     * @param saved The song file that was written.
+     * @return The journal of the saved file, to be given to the panels as their EditListener.
+     * @throws IOException if the new journal cannot be created; this one is kept then.
+     */
+    public EditJournal finishSave(File saved) throws IOException {
+        ArrayList<ByteBuffer> records = sinceCapture;
+        sinceCapture = null;
+        close(); // Write what is queued before the journal file may be replaced
+        EditJournal next = new EditJournal(saved, records);
+        if (!journalFile(saved).toPath().toAbsolutePath().equals(journal.toAbsolutePath())) {
+            Files.deleteIfExists(journal); // Its edits are in the saved file or the new journal
+        }
+        return next;
+    }
+
+    /**
+     * Closes the journal and deletes it, for when its edits have been saved some other way.
+     */
+    public void discard() {
+        close();
+        try {
+            Files.deleteIfExists(journal);
+        } catch (IOException e) {
+            System.out.println("Could not delete journal: " + journal);
+        }
+    }
+
+    // Frames a record with its length and checksum and queues it for the committer
+    private void append(ByteBuffer payload) {
+        if (closed) {
+            return;
+        }
+        payload.flip();
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        ByteBuffer framed = ByteBuffer.allocate(payload.remaining() + 8);
+        framed.putInt(payload.remaining()).put(payload).putInt((int) crc.getValue());
+        framed.flip();
+        if (sinceCapture != null) {
+            sinceCapture.add(framed.duplicate()); // For the journal of the file being saved, before the committer reads it
+        }
+        pending.add(framed);
+    }
+
+    // Encodes an added or removed event with all six of its fields
+    private static ByteBuffer eventRecord(byte type, int block, AudioEvent event) {
+        EventTable row = new EventTable(1);
+        row.add(event);
+        byte[] name = row.getName(0).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(26 + name.length);
+        record.put(type).putInt(block).put(row.getType(0)).putInt(row.getTime(0)).putInt(row.getChannel(0))
+                .putInt(row.getValue(0)).putInt(row.getDuration(0)).putInt(name.length).put(name);
+        return record;
+    }
+
+    // Body of the background thread: group commit, then compaction when it is due
+    private void commitLoop() {
+        boolean running = true;
+        while (running) {
+            try {
+                ByteBuffer first = pending.poll(COMMIT_INTERVAL_MS * 10, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    ArrayList<ByteBuffer> batch = new ArrayList<>();
+                    batch.add(first);
+                    pending.drainTo(batch);
+                    running = commit(batch);
+                }
+                synchronized (compacting) {
+                    if (running && !saving && compactionDue()) {
+                        compact();
+                    }
+                }
+                if (running && first != null) {
+                    Thread.sleep(COMMIT_INTERVAL_MS); // Let the next edits gather into one commit
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (IOException e) {
+                System.out.println("Error writing journal: " + e.getMessage());
+            }
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("Error closing journal: " + e.getMessage());
+        }
+    }
+
+    // Writes a batch of records with one write and one force; returns false if END was in it
+    private boolean commit(ArrayList<ByteBuffer> batch) throws IOException {
+        boolean keepRunning = true;
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            if (batch.get(i) == END) {
+                batch.remove(i);
+                keepRunning = false;
+            }
+        }
+        if (!batch.isEmpty()) {
+            ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+            long remaining = 0;
+            for (ByteBuffer buffer : buffers) {
+                remaining += buffer.remaining();
+            }
+            if (remaining >= GROUP_SIZE) {
+                // A burst of edits, such as a pasted pattern, is deflated into one group record
+                buffers = new ByteBuffer[] { group(buffers, (int) remaining) };
+                remaining = buffers[0].remaining();
+            }
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+            channel.force(false);
+            if (firstEditTime == 0) {
+                firstEditTime = System.currentTimeMillis();
+            }
+        }
+        return keepRunning;
+    }
+
+    // Deflates framed records into one framed group: raw length, then the deflated frames
+    private static ByteBuffer group(ByteBuffer[] frames, int rawLength) {
+        byte[] raw = new byte[rawLength];
+        ByteBuffer rawBuffer = ByteBuffer.wrap(raw);
+        for (ByteBuffer frame : frames) {
+            rawBuffer.put(frame);
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteBuffer payload = ByteBuffer.allocate(4 + rawLength + 64); // Room for data that does not shrink
+        payload.putInt(rawLength);
+        while (!deflater.finished()) {
+            if (!payload.hasRemaining()) {
+                payload = ByteBuffer.allocate(payload.capacity() * 2).put(payload.flip());
+            }
+            deflater.deflate(payload);
+        }
+        deflater.end();
+        payload.flip();
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        ByteBuffer framed = ByteBuffer.allocate(payload.remaining() + 8);
+        framed.putInt(payload.remaining() | GROUP_FLAG).put(payload).putInt((int) crc.getValue());
+        return framed.flip();
+    }
+
+    private boolean compactionDue() throws IOException {
+        return firstEditTime != 0 && (channel.size() >= COMPACT_SIZE
+                || System.currentTimeMillis() - firstEditTime >= COMPACT_INTERVAL_MS);
+    }
+
+    // Folds the journal into the song file and starts an empty journal
+    private void compact() throws IOException {
+        channel.close();
+        try {
+            fold(snapshot, journal);
+            channel = startJournal(snapshot, journal, new ArrayList<>());
+            firstEditTime = 0;
+        } catch (IOException e) {
+            // Keep appending to the old journal; compaction is tried again on the next commit
+            channel = FileChannel.open(journal, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            throw e;
+        }
+    }
+
+    // Writes a journal holding a header for the song file and some records, and opens it for appending
+    private static FileChannel startJournal(File snapshot, Path journal, ArrayList<ByteBuffer> records)
+            throws IOException {
+        Path temp = SongFiles.createTempFile(journal.toAbsolutePath());
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC).putShort((short) VERSION).putShort((short) 0);
+            header.putLong(snapshot.length()).putLong(snapshot.lastModified());
+            header.flip();
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            for (ByteBuffer record : records) {
+                ByteBuffer frame = record.duplicate();
+                while (frame.hasRemaining()) {
+                    out.write(frame);
+                }
+            }
+            out.force(true);
+        }
+        SongFiles.replaceAtomically(temp, journal.toAbsolutePath());
+        return FileChannel.open(journal, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Applies the records of a journal to its song file; returns how many were applied
+    private static int fold(File snapshot, Path journal) throws IOException {
+        ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(journal));
+        if (!matchesSnapshot(contents, snapshot)) {
+            return 0;
+        }
+        SongData song = SongFiles.readSong(snapshot);
+        ArrayList<ByteBuffer> records = readRecords(contents);
+        for (ByteBuffer record : records) {
+            apply(song, record);
+        }
+        int applied = records.size();
+        if (applied > 0) {
+            SongFiles.writeSong(snapshot, SongFiles.detectFormat(snapshot), song);
+        }
+        return applied;
+    }
+
+    // Checks the header and leaves the buffer at the first record
+    private static boolean matchesSnapshot(ByteBuffer contents, File snapshot) {
+        if (contents.remaining() < HEADER_SIZE) {
+            return false;
+        }
+        for (byte b : MAGIC) {
+            if (contents.get() != b) {
+                return false;
+            }
+        }
+        int version = contents.getShort() & 0xFFFF;
+        contents.getShort(); // Flags
+        long size = contents.getLong();
+        long modified = contents.getLong();
+        return version >= 1 && version <= VERSION && size == snapshot.length() && modified == snapshot.lastModified();
+    }
+
+    // Returns the payloads of the complete records, in order, up to the end or a torn record.
+    // Deflated groups are expanded into the records they hold.
+    private static ArrayList<ByteBuffer> readRecords(ByteBuffer contents) {
+        ArrayList<ByteBuffer> records = new ArrayList<>();
+        while (contents.remaining() >= 4) {
+            int header = contents.getInt();
+            int length = header & ~GROUP_FLAG;
+            if (length <= 0 || length > contents.remaining() - 4) {
+                break;
+            }
+            ByteBuffer payload = contents.slice(contents.position(), length);
+            contents.position(contents.position() + length);
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if (contents.getInt() != (int) crc.getValue()) {
+                break;
+            }
+            if ((header & GROUP_FLAG) == 0) {
+                records.add(payload);
+            } else {
+                ByteBuffer frames = inflate(payload);
+                if (frames == null) {
+                    break;
+                }
+                records.addAll(readRecords(frames));
+            }
+        }
+        return records;
+    }
+
+    // Inflates a group back into its frames, or returns null if it is damaged
+    private static ByteBuffer inflate(ByteBuffer payload) {
+        ByteBuffer frames = ByteBuffer.allocate(payload.getInt());
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload);
+            while (frames.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(frames) == 0 && inflater.needsInput()) {
+                    return null;
+                }
+            }
+            return frames.flip();
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Replays one record on the song data; records that no longer fit the song are skipped
+    private static void apply(SongData song, ByteBuffer record) {
+        BetterDynamicArray<TrackData> tracks = song.getTracks();
+        try {
+            byte type = record.get();
+            if (type == ADD_EVENT || type == REMOVE_EVENT) {
+                int block = record.getInt();
+                byte eventType = record.get();
+                int time = record.getInt();
+                int channel = record.getInt();
+                int value = record.getInt();
+                int duration = record.getInt();
+                int nameLength = record.getInt();
+                if (nameLength < 0 || nameLength > record.remaining()) {
+                    throw new BufferUnderflowException(); // Not allocated, since the record cannot hold it
+                }
+                byte[] name = new byte[nameLength];
+                record.get(name);
+                EventTable events = block == SONG_BLOCK ? song.getEvents() : tracks.get(block).editEvents();
+                if (type == ADD_EVENT) {
+                    events.add(eventType, new String(name, StandardCharsets.UTF_8), time, channel, value, duration);
+                } else {
+                    int index = events.indexOf(eventType, time, channel, value, duration);
+                    if (index >= 0) {
+                        events.remove(index);
+                    }
+                }
+            } else if (type == SET_TRACK) {
+                int track = record.getInt();
+                int instrument = record.getInt();
+                int volume = record.getInt();
+                int length = record.getInt();
+                if (track == tracks.size()) {
+                    tracks.add(new TrackData(track, instrument, volume, length, new EventTable()));
+                } else {
+                    tracks.get(track).setSettings(instrument, volume, length);
+                }
+            } else if (type == SET_SONG_LENGTH) {
+                song.setLength(record.getInt());
+            } else if (type == SET_TEMPO) {
+                song.setTempo(record.getInt());
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | BufferUnderflowException e) {
+            System.out.println("Skipped journal record that does not fit the song: " + e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package assign11;
+
+/**
+ * An EditListener is told about every change the user makes to a song, as it happens.
+ * The editors and panels call it only for edits, never while a song is being loaded.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public interface EditListener {
+    /** The block number used for the song block instead of a track number. */
+    int SONG_BLOCK = -1;
+
+    /**
+     * Called after an event was added.
+     *
+     * @param block The track number, or SONG_BLOCK.
+     * @param event The event that was added.
+     */
+    void eventAdded(int block, AudioEvent event);
+
+    /**
+     * Called after an event was removed.
+     *
+     * @param block The track number, or SONG_BLOCK.
+     * @param event The event that was removed.
+     */
+    void eventRemoved(int block, AudioEvent event);
+
+    /**
+     * Called after a track was added or its settings were changed.
+     *
+     * @param track      The track number.
+     * @param instrument The instrument index.
+     * @param volume     The volume.
+     * @param length     The length in beats.
+     */
+    void trackChanged(int track, int instrument, int volume, int length);
+
+    /**
+     * Called after the length of the song block was changed.
+     *
+     * @param length The length in beats.
+     */
+    void songLengthChanged(int length);
+
+    /**
+     * Called after the tempo was changed.
+     *
+     * @param tempo The tempo in beats per minute.
+     */
+    void tempoChanged(int tempo);
+}
@@ -0,0 +1,306 @@
+package assign11;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * The EventTable class holds a block of audio events as plain columns of values, the same
+ * six fields that a song file stores for each event: type, name, time, channel, value,
+ * and duration. Fields that an event type does not use are 0.
+ *
+ * Song files are read into and written from event tables, so parsing and encoding never
+ * need a synthesizer, a sequencer, or any Swing component.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class EventTable {
+    public static final byte NOTE = 0;   // NoteEvent: value is the pitch
+    public static final byte CHANGE = 1; // ChangeEvent: value is the change, duration is 0
+    public static final byte TRACK = 2;  // TrackEvent: channel is the track, value is 0
+
+    private byte[] types;
+    private String[] names;
+    private int[] times;
+    private int[] channels;
+    private int[] values;
+    private int[] durations;
+    private int size;
+
+    /**
+     * Creates an empty table.
+     */
+    public EventTable() {
+        this(10);
+    }
+
+    /**
+     * Creates an empty table with room for the given number of events.
+     *
+     * @param capacity The number of events to reserve room for.
+     */
+    public EventTable(int capacity) {
+        capacity = Math.max(1, capacity);
+        types = new byte[capacity];
+        names = new String[capacity];
+        times = new int[capacity];
+        channels = new int[capacity];
+        values = new int[capacity];
+        durations = new int[capacity];
+        size = 0;
+    }
+
+    /**
+     * Copies the events of a sequencer into a new table, in sequencer order.
+     *
+     * @param sequencer The sequencer to copy.
+     * @return A table holding the sequencer's events.
+     */
+    public static EventTable capture(SimpleSequencer sequencer) {
+        EventTable table = new EventTable(sequencer.getEventCount());
+        for (AudioEvent event : sequencer) {
+            table.add(event);
+        }
+        return table;
+    }
+
+    /**
+     * Adds an event to the end of the table.
+     *
+     * @param type     NOTE, CHANGE or TRACK.
+     * @param name     The name of the event.
+     * @param time     The time of the event.
+     * @param channel  The channel of the event.
+     * @param value    The pitch of a note or the value of a change, otherwise 0.
+     * @param duration The duration of a note or track, otherwise 0.
+     */
+    public void add(byte type, String name, int time, int channel, int value, int duration) {
+        if (type != NOTE && type != CHANGE && type != TRACK) {
+            throw new IllegalArgumentException("Unknown event type: " + type);
+        }
+        if (size == types.length) {
+            grow();
+        }
+        types[size] = type;
+        names[size] = name;
+        times[size] = time;
+        channels[size] = channel;
+        values[size] = value;
+        durations[size] = duration;
+        size++;
+    }
+
+    /**
+     * Removes the event at the given row, keeping the order of the others.
+     *
+     * @param index The row of the event.
+     */
+    public void remove(int index) {
+        checkIndex(index);
+        int moved = size - index - 1;
+        System.arraycopy(types, index + 1, types, index, moved);
+        System.arraycopy(names, index + 1, names, index, moved);
+        System.arraycopy(times, index + 1, times, index, moved);
+        System.arraycopy(channels, index + 1, channels, index, moved);
+        System.arraycopy(values, index + 1, values, index, moved);
+        System.arraycopy(durations, index + 1, durations, index, moved);
+        size--;
+        names[size] = null;
+    }
+
+    /**
+     * Finds the first event with the given fields. Names are not compared.
+     *
+     * @param type     NOTE, CHANGE or TRACK.
+     * @param time     The time of the event.
+     * @param channel  The channel of the event.
+     * @param value    The value of the event.
+     * @param duration The duration of the event.
+     * @return The row of the event, or -1 if there is none.
+     */
+    public int indexOf(byte type, int time, int channel, int value, int duration) {
+        for (int i = 0; i < size; i++) {
+            if (types[i] == type && times[i] == time && channels[i] == channel && values[i] == value
+                    && durations[i] == duration) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the fields of an audio event to the end of the table.
+     *
+     * @param event The event to add.
+     */
+    public void add(AudioEvent event) {
+        if (event instanceof NoteEvent noteEvent) {
+            add(NOTE, noteEvent.getName(), noteEvent.getTime(), noteEvent.getChannel(),
+                    noteEvent.getPitch(), noteEvent.getDuration());
+        } else if (event instanceof ChangeEvent changeEvent) {
+            add(CHANGE, changeEvent.getName(), changeEvent.getTime(), changeEvent.getChannel(),
+                    changeEvent.getValue(), 0);
+        } else if (event instanceof TrackEvent trackEvent) {
+            add(TRACK, trackEvent.getName(), trackEvent.getTime(), trackEvent.getChannel(),
+                    0, trackEvent.getDuration());
+        }
+    }
+
+    /**
+     * Creates the audio events described by this table, in table order.
+     *
+     * @param synthesizer The synthesizer that note and change events play on.
+     * @param sequencers  Gives the sequencer of a track number, for track events.
+     * @return The events, in an array sized for the table.
+     */
+    public BetterDynamicArray<AudioEvent> toEvents(SimpleSynthesizer synthesizer,
+            IntFunction<SimpleSequencer> sequencers) {
+        BetterDynamicArray<AudioEvent> events = new BetterDynamicArray<>(size);
+        for (int i = 0; i < size; i++) {
+            events.add(toEvent(i, synthesizer, sequencers));
+        }
+        return events;
+    }
+
+    /**
+     * Creates the audio event described by one row of this table.
+     *
+     * @param index       The row of the event.
+     * @param synthesizer The synthesizer that note and change events play on.
+     * @param sequencers  Gives the sequencer of a track number, for track events.
+     * @return The new event.
+     */
+    public AudioEvent toEvent(int index, SimpleSynthesizer synthesizer, IntFunction<SimpleSequencer> sequencers) {
+        checkIndex(index);
+        return switch (types[index]) {
+            case NOTE -> new NoteEvent(times[index], names[index], channels[index], durations[index],
+                    values[index], synthesizer);
+            case CHANGE -> new ChangeEvent(times[index], names[index], channels[index], values[index], synthesizer);
+            default -> new TrackEvent(times[index], names[index], channels[index], durations[index],
+                    sequencers.apply(channels[index]));
+        };
+    }
+
+    /**
+     * Gets the number of events in the table.
+     *
+     * @return The number of events.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the type of an event.
+     *
+     * @param index The row of the event.
+     * @return NOTE, CHANGE or TRACK.
+     */
+    public byte getType(int index) {
+        checkIndex(index);
+        return types[index];
+    }
+
+    /**
+     * Gets the name of an event.
+     *
+     * @param index The row of the event.
+     * @return The name.
+     */
+    public String getName(int index) {
+        checkIndex(index);
+        return names[index];
+    }
+
+    /**
+     * Gets the time of an event.
+     *
+     * @param index The row of the event.
+     * @return The time.
+     */
+    public int getTime(int index) {
+        checkIndex(index);
+        return times[index];
+    }
+
+    /**
+     * Gets the channel of an event.
+     *
+     * @param index The row of the event.
+     * @return The channel, which is the track number for track events.
+     */
+    public int getChannel(int index) {
+        checkIndex(index);
+        return channels[index];
+    }
+
+    /**
+     * Gets the value of an event.
+     *
+     * @param index The row of the event.
+     * @return The pitch of a note or the value of a change, otherwise 0.
+     */
+    public int getValue(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * Gets the duration of an event.
+     *
+     * @param index The row of the event.
+     * @return The duration of a note or track, otherwise 0.
+     */
+    public int getDuration(int index) {
+        checkIndex(index);
+        return durations[index];
+    }
+
+    /**
+     * Gets the word that a song text file uses for an event type.
+     *
+     * @param type NOTE, CHANGE or TRACK.
+     * @return "note", "change" or "track".
+     */
+    public static String typeName(byte type) {
+        return switch (type) {
+            case NOTE -> "note";
+            case CHANGE -> "change";
+            case TRACK -> "track";
+            default -> throw new IllegalArgumentException("Unknown event type: " + type);
+        };
+    }
+
+    /**
+     * Gets the event type for a word used in a song text file.
+     *
+     * @param name "note", "change" or "track".
+     * @return NOTE, CHANGE or TRACK.
+     * @throws IllegalArgumentException if the word is not an event type.
+     */
+    public static byte typeOf(String name) {
+        return switch (name) {
+            case "note" -> NOTE;
+            case "change" -> CHANGE;
+            case "track" -> TRACK;
+            default -> throw new IllegalArgumentException("Unknown event type: " + name);
+        };
+    }
+
+    // Doubles the length of every column
+    private void grow() {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        names = Arrays.copyOf(names, capacity);
+        times = Arrays.copyOf(times, capacity);
+        channels = Arrays.copyOf(channels, capacity);
+        values = Arrays.copyOf(values, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+}
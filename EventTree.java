@@ -0,0 +1,276 @@
+package assign11;
+
+import java.util.Arrays;
+
+/**
+ * The EventTree class is an immutable set of events in the order of a sequence. Adding or
+ * removing an event makes a new tree that shares all but one path of nodes with the old
+ * one, so keeping every version of a track, as EditHistory does, costs O(log n) memory per
+ * changed event rather than a copy of the track per version.
+ *
+ * The events are in a total order: by time and type as the sequence orders them, then by
+ * pitch for notes, then by serial number, so every node holds one event, even in a chord.
+ * The tree is a treap whose node priorities are a hash of the serial numbers, so its shape
+ * depends only on which events it holds, not on the order they were added. Two versions
+ * that differ in a few events therefore share their other subtrees, and diff finds the
+ * differences without visiting those.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public final class EventTree {
+    public static final EventTree EMPTY = new EventTree(null);
+
+    private final Node root; // Highest ranked node, or null if the tree is empty
+
+    /**
+     * An event, and the events ordered before and after it.
+     */
+    private static final class Node {
+        private final AudioEvent event;
+        private final int priority; // Hash of the event's serial number
+        private Node left;          // Events ordered before, set only while a tree is built
+        private Node right;         // Events ordered after
+        private int size;           // Events in this subtree
+
+        private Node(AudioEvent event, int priority, Node left, Node right) {
+            this.event = event;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+        }
+
+        // A copy of this node with other children
+        private Node with(Node left, Node right) {
+            return new Node(event, priority, left, right);
+        }
+    }
+
+    private EventTree(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Makes a tree of the events of a sequencer in O(n) time when, as usual, only the events
+     * at equal times need reordering.
+     *
+     * @param sequencer The sequencer, whose events are in order.
+     * @return The tree.
+     */
+    public static EventTree of(SimpleSequencer sequencer) {
+        AudioEvent[] events = new AudioEvent[sequencer.getEventCount()];
+        int count = 0;
+        for (AudioEvent event : sequencer) {
+            events[count++] = event;
+        }
+        Arrays.sort(events, 0, count, EventTree::compare); // Only runs of equal events move
+
+        // Build the treap of the sorted events from left to right; the stack holds its right edge
+        BetterDynamicArray<Node> edge = new BetterDynamicArray<>();
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && events[i] == events[i - 1]) {
+                continue; // The same event twice is one event of the set
+            }
+            Node node = new Node(events[i], priority(events[i]), null, null);
+            Node below = null;
+            while (edge.size() > 0 && outranks(node, edge.get(edge.size() - 1))) {
+                below = edge.get(edge.size() - 1);
+                edge.remove(edge.size() - 1);
+            }
+            node.left = below;
+            if (edge.size() > 0) {
+                edge.get(edge.size() - 1).right = node;
+            }
+            edge.add(node);
+        }
+        // Children were linked after their nodes were made, so count the sizes from the bottom up
+        Node root = edge.size() == 0 ? null : edge.get(0);
+        countSizes(root);
+        return new EventTree(root);
+    }
+
+    /**
+     * Gets the number of events in the tree.
+     *
+     * @return The number of events.
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Makes a tree that also holds an event.
+     *
+     * @param event The event.
+     * @return The new tree, sharing all but the path to the event with this one.
+     */
+    public EventTree with(AudioEvent event) {
+        Node added = insert(root, new Node(event, priority(event), null, null));
+        return added == root ? this : new EventTree(added);
+    }
+
+    /**
+     * Makes a tree without an event.
+     *
+     * @param event The event.
+     * @return The new tree, or this tree if it does not hold the event.
+     */
+    public EventTree without(AudioEvent event) {
+        Node removed = delete(root, event);
+        return removed == root ? this : new EventTree(removed);
+    }
+
+    /**
+     * Finds the events that are in one tree but not in the other. Subtrees the two share,
+     * as the versions of one track do, are skipped, so this takes O(k log n) time for k
+     * differences.
+     *
+     * @param from    The tree to compare.
+     * @param to      The tree to compare it with.
+     * @param removed Gets the events of from that are not in to, in order.
+     * @param added   Gets the events of to that are not in from, in order.
+     */
+    public static void diff(EventTree from, EventTree to, BetterDynamicArray<AudioEvent> removed,
+            BetterDynamicArray<AudioEvent> added) {
+        diff(from.root, to.root, removed, added);
+    }
+
+    private static void diff(Node from, Node to, BetterDynamicArray<AudioEvent> removed,
+            BetterDynamicArray<AudioEvent> added) {
+        if (from == to) {
+            return; // Shared
+        }
+        if (from == null || to == null) {
+            addAll(from, removed);
+            addAll(to, added);
+            return;
+        }
+        // Split the lower tree at the event of the higher root, so both sides line up
+        if (outranks(from, to)) {
+            Node[] parts = split(to, from.event);
+            diff(from.left, parts[0], removed, added);
+            if (parts[1] == null) {
+                removed.add(from.event);
+            }
+            diff(from.right, parts[2], removed, added);
+        } else {
+            Node[] parts = split(from, to.event);
+            diff(parts[0], to.left, removed, added);
+            if (parts[1] == null) {
+                added.add(to.event);
+            }
+            diff(parts[2], to.right, removed, added);
+        }
+    }
+
+    // Adds a single node to a subtree; returns the subtree itself if it already holds the event
+    private static Node insert(Node node, Node single) {
+        if (node == null) {
+            return single;
+        }
+        int order = compare(single.event, node.event);
+        if (order == 0) {
+            return node;
+        }
+        if (outranks(single, node)) {
+            // The new event belongs above this node, and is not below it since it outranks it
+            Node[] parts = split(node, single.event);
+            return single.with(parts[0], parts[2]);
+        }
+        if (order < 0) {
+            Node left = insert(node.left, single);
+            return left == node.left ? node : node.with(left, node.right);
+        }
+        Node right = insert(node.right, single);
+        return right == node.right ? node : node.with(node.left, right);
+    }
+
+    private static Node delete(Node node, AudioEvent event) {
+        if (node == null) {
+            return null;
+        }
+        int order = compare(event, node.event);
+        if (order < 0) {
+            Node left = delete(node.left, event);
+            return left == node.left ? node : node.with(left, node.right);
+        }
+        if (order > 0) {
+            Node right = delete(node.right, event);
+            return right == node.right ? node : node.with(node.left, right);
+        }
+        return merge(node.left, node.right);
+    }
+
+    // Splits a subtree into the events before a key, the node of the key or null, and the events after it
+    private static Node[] split(Node node, AudioEvent key) {
+        if (node == null) {
+            return new Node[3];
+        }
+        int order = compare(key, node.event);
+        if (order == 0) {
+            return new Node[] { node.left, node, node.right };
+        }
+        if (order < 0) {
+            Node[] parts = split(node.left, key);
+            parts[2] = node.with(parts[2], node.right);
+            return parts;
+        }
+        Node[] parts = split(node.right, key);
+        parts[0] = node.with(node.left, parts[0]);
+        return parts;
+    }
+
+    // Joins two subtrees, every event of the first being ordered before every event of the second
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        return outranks(left, right) ? left.with(left.left, merge(left.right, right))
+                : right.with(merge(left, right.left), right.right);
+    }
+
+    private static int countSizes(Node node) {
+        if (node == null) {
+            return 0;
+        }
+        node.size = 1 + countSizes(node.left) + countSizes(node.right);
+        return node.size;
+    }
+
+    // The total order of the tree: the sequence's order, then pitch, then serial number
+    private static int compare(AudioEvent a, AudioEvent b) {
+        int order = a.compareTo(b);
+        if (order == 0 && a instanceof NoteEvent && b instanceof NoteEvent) {
+            order = Integer.compare(((NoteEvent) a).getPitch(), ((NoteEvent) b).getPitch());
+        }
+        return order != 0 ? order : Long.compare(a.getSerial(), b.getSerial());
+    }
+
+    // Whether a node belongs above another: a higher priority, or the earlier event on a tie
+    private static boolean outranks(Node a, Node b) {
+        return a.priority != b.priority ? a.priority > b.priority : compare(a.event, b.event) < 0;
+    }
+
+    private static int priority(AudioEvent event) {
+        long hash = event.getSerial() * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        hash *= 0xBF58476D1CE4E5B9L;
+        return (int) (hash ^ hash >>> 29);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void addAll(Node node, BetterDynamicArray<AudioEvent> events) {
+        if (node != null) {
+            addAll(node.left, events);
+            events.add(node.event);
+            addAll(node.right, events);
+        }
+    }
+}
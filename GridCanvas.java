@@ -5,35 +5,77 @@ package assign11;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.util.HashMap;
+import java.util.HashSet;
 
 import javax.swing.JPanel;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 
 /**
  * A grid of rectangles that can be clicked and dragged to draw cells.
  * Creating or removing a cell results in some task being performed.
  * That task must be specified by the subclass.
  *
+ * The cells are the items of the subclass's own model, such as the events
+ * of a sequencer, and the subclass tells where each one goes. The grid only
+ * indexes them by position, so nothing is kept twice. Any number of cells
+ * added or removed at once are repainted together, once.
+ *
+ * Dragging with the shift key held selects every cell the rubber band
+ * touches; subclasses edit the selection, see getSelection.
+ *
+ * The grid fits the component unless it is zoomed to a fixed size per
+ * column or row, see setZoom; a zoomed grid is as large as it needs to be
+ * and is meant to be shown in a JScrollPane. Only the visible part of the
+ * grid is ever drawn, so a grid of any length scrolls as fast as a small one.
+ *
+ * @param <T> The type of the items shown as cells.
  * @author Eric Heisler and Thanh Le
  * @version 2024-11-9
  */
-public abstract class GridCanvas extends JPanel implements MouseListener, MouseMotionListener {
+public abstract class GridCanvas<T> extends JPanel implements MouseListener, MouseMotionListener, Scrollable {
 
 	// Grid information
 	private int width, height;
 	private int columns, rows;
 	private int columnMajorTickSpacing, rowMajorTickSpacing;
 	private int rowRestriction, colRestriction;
-
-	// The collection of cells (active, colored rectangles)
-	// Note that Cell is a nested class at the end of this file
-	private BetterDynamicArray<Cell> cells;
+	private int columnWidth, rowHeight; // Pixels per column and row, or 0 to fit the component
+
+	// The grid lines and major ticks of the area around the visible part,
+	// drawn once until that area or the grid changes, and the pixel
+	// position of every row and column line of a grid that fits the component
+	private BufferedImage background;
+	private Rectangle backgroundArea;
+	private int[] rowPixels, colPixels;
+
+	// The collection of cells (active, colored rectangles), indexed by column:
+	// bucket b holds every cell that covers a column from b * BUCKET_COLUMNS
+	// on, in the order added, so a paint only visits the columns it has to
+	// draw, and empty columns take no memory.
+	private static final int BUCKET_COLUMNS = 16;
+	private HashMap<Integer, BetterDynamicArray<T>> columnCells;
+	private GridIndex<T> cellIndex; // The same cells by the row and column they start at
+	private Rectangle dirty; // Area of the cells changed since the last repaint, or null
+
+	// The selected cells, and the rubber band being dragged to select them
+	private HashSet<T> selection;
+	private boolean selecting;
+	private int bandRow, bandColumn, bandEndRow, bandEndColumn;
 
 	// Feel free to change coloring however you want.
 	// To get started, just set one color in the constructor.
-	private Color cellColor;
+	private Color cellColor; // Color of every cell and of the preview
+	private Color selectedColor; // Color of selected cells and of the rubber band
 
 	// These are useful for keeping track of a cell currently being drawn.
 	private boolean drawing;
@@ -59,6 +101,7 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 		this.columnMajorTickSpacing = columnMajorTickSpacing;
 
 		cellColor = new Color(200, 30, 30); // change as desired
+		selectedColor = new Color(30, 90, 200);
 		drawing = false;
 		currentRow = -1;
 		currentColumn = -1;
@@ -66,11 +109,14 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 		currentHeight = -1;
 		rowRestriction = -1;
 		colRestriction = -1;
-		cells = new BetterDynamicArray<Cell>();
+		columnCells = new HashMap<Integer, BetterDynamicArray<T>>();
+		cellIndex = new GridIndex<T>();
+		selection = new HashSet<T>();
 
 		// TODO set preferred size, background color, and mouse listeners
 		setPreferredSize(new Dimension(width, height));
 		setBackground(Color.WHITE);
+		setFocusable(true); // For the keys subclasses bind to edit the selection
 		this.addMouseListener(this);
 		this.addMouseMotionListener(this);
 
@@ -85,11 +131,17 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 	 */
 	public void setColumns(int newColumns) {
 		// TODO
+		if (Math.max(1, newColumns) == columns) {
+			return; // Nothing changes
+		}
 		if (newColumns < 1) {
 			this.columns = 1; // Ensure at least one column
 		} else {
 			this.columns = newColumns;
 		}
+		background = null; // The grid changed, so draw it again
+		colPixels = null;
+		revalidate(); // A zoomed grid changes size
 		repaint(); // Redraw the component to reflect changes
 
 	}
@@ -103,14 +155,57 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 	 */
 	public void setRows(int newRows) {
 		// TODO
+		if (Math.max(1, newRows) == rows) {
+			return; // Nothing changes
+		}
 		if(newRows < 1) {
 			this.rows = 1;
 		}else {
 			this.rows = newRows;
 		}
+		background = null; // The grid changed, so draw it again
+		rowPixels = null;
+		revalidate(); // A zoomed grid changes size
+		repaint();
+	}
+
+	/**
+	 * Set the size of every column and row in pixels. A size of 0 or less
+	 * fits that dimension of the grid to the component, which is the
+	 * default. With a positive size the grid is as wide or tall as its
+	 * columns or rows need, and scrolls in a JScrollPane.
+	 *
+	 * @param columnWidth - pixels per column, or 0 to fit
+	 * @param rowHeight - pixels per row, or 0 to fit
+	 */
+	public void setZoom(int columnWidth, int rowHeight) {
+		this.columnWidth = Math.max(0, columnWidth);
+		this.rowHeight = Math.max(0, rowHeight);
+		background = null; // Every line moves
+		rowPixels = null;
+		colPixels = null;
+		revalidate();
 		repaint();
 	}
 
+	/**
+	 * Get the width of a column when zoomed.
+	 *
+	 * @return pixels per column, or 0 if the columns fit the component
+	 */
+	public int getColumnWidth() {
+		return columnWidth;
+	}
+
+	/**
+	 * Get the height of a row when zoomed.
+	 *
+	 * @return pixels per row, or 0 if the rows fit the component
+	 */
+	public int getRowHeight() {
+		return rowHeight;
+	}
+
 	/**
 	 * Set restrictions for the width or height of cells.
 	 * Setting to a non-positive number means that dimension is not restricted.
@@ -125,25 +220,166 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 	}
 
 	/**
-	 * Adds a cell to the collection with the given position and size.
-	 * Then repaints the component.
-	 * This is where colors can be set.
+	 * Shows an item as a cell, at the position and size the subclass gives it.
+	 * Then repaints the area of the cell.
 	 *
-	 * @param row - vertical position of cell
-	 * @param column - horizontal position of cell
-	 * @param width - of cell
-	 * @param height - of cell
+	 * @param cell - item to show
 	 */
-	public void addCell(int row, int column, int height, int width) {
-		// TODO construct Cell, add to collection, then repaint
-		Cell newCell = new Cell(row, column, height, width, cellColor);
+	public void addCell(T cell) {
+		int column = getCellColumn(cell);
 
-		// Add the new cell to the cells list
-		cells.add(newCell);
+		// Add the new cell to the bucket of every column it covers
+		int last = Math.max(column, column + getCellWidth(cell) - 1);
+		for (int b = Math.max(0, column) / BUCKET_COLUMNS; b <= last / BUCKET_COLUMNS; b++) {
+			columnCells.computeIfAbsent(b, bucket -> new BetterDynamicArray<T>()).add(cell);
+		}
+		cellIndex.add(getCellRow(cell), column, cell);
 
-		// Repaint the component to reflect the changes
-		repaint();
+		// Repaint only where the cell is
+		invalidateCell(cell);
+	}
+
+	/**
+	 * Stops showing an item added by addCell, found by equals.
+	 * Then repaints the area of the cell.
+	 *
+	 * @param cell - item to remove
+	 */
+	public void removeCell(T cell) {
+		int column = getCellColumn(cell);
+		cellIndex.remove(getCellRow(cell), column, cell);
+		int last = Math.max(column, column + getCellWidth(cell) - 1);
+		for (int b = Math.max(0, column) / BUCKET_COLUMNS; b <= last / BUCKET_COLUMNS; b++) {
+			BetterDynamicArray<T> bucket = columnCells.get(b);
+			if (bucket == null)
+				continue; // Not shown
+			bucket.remove(cell);
+			if (bucket.size() == 0)
+				columnCells.remove(b);
+		}
+		selection.remove(cell);
+		invalidateCell(cell);
+	}
+
+	/**
+	 * Stops showing many items added by addCell, found by equals, passing
+	 * over each column they cover only once.
+	 * Then repaints the areas of the cells.
+	 *
+	 * @param cells - items to remove
+	 */
+	public void removeCells(BetterDynamicArray<T> cells) {
+		HashSet<T> removing = new HashSet<T>();
+		HashSet<Integer> buckets = new HashSet<Integer>();
+		for (int i = 0; i < cells.size(); i++) {
+			T cell = cells.get(i);
+			int column = getCellColumn(cell);
+			removing.add(cell);
+			cellIndex.remove(getCellRow(cell), column, cell);
+			selection.remove(cell);
+			int last = Math.max(column, column + getCellWidth(cell) - 1);
+			for (int b = Math.max(0, column) / BUCKET_COLUMNS; b <= last / BUCKET_COLUMNS; b++)
+				buckets.add(b);
+			invalidateCell(cell);
+		}
+		// Keep what is not removed from each bucket the cells were in
+		for (Integer b : buckets) {
+			BetterDynamicArray<T> bucket = columnCells.get(b);
+			if (bucket == null)
+				continue; // Not shown
+			BetterDynamicArray<T> kept = new BetterDynamicArray<T>(Math.max(1, bucket.size()));
+			for (int i = 0; i < bucket.size(); i++) {
+				if (!removing.contains(bucket.get(i)))
+					kept.add(bucket.get(i));
+			}
+			if (kept.size() == 0)
+				columnCells.remove(b);
+			else
+				columnCells.put(b, kept);
+		}
+	}
+
+	/**
+	 * Gets the cells that cover any part of an area of the grid.
+	 *
+	 * @param firstRow - lowest row of the area
+	 * @param lastRow - highest row of the area
+	 * @param firstColumn - leftmost column of the area
+	 * @param lastColumn - rightmost column of the area
+	 * @return the cells, each once
+	 */
+	public BetterDynamicArray<T> getCellsIn(int firstRow, int lastRow, int firstColumn, int lastColumn) {
+		BetterDynamicArray<T> cells = new BetterDynamicArray<T>();
+		firstColumn = Math.max(0, firstColumn);
+		for (int b = firstColumn / BUCKET_COLUMNS; b <= lastColumn / BUCKET_COLUMNS; b++) {
+			BetterDynamicArray<T> bucket = columnCells.get(b);
+			for (int i = 0; bucket != null && i < bucket.size(); i++) {
+				T cell = bucket.get(i);
+				int col = getCellColumn(cell);
+				int row = getCellRow(cell);
+				if (Math.max(col, firstColumn) / BUCKET_COLUMNS == b // Found once, in the first bucket of the area
+						&& col <= lastColumn && col + getCellWidth(cell) > firstColumn
+						&& row <= lastRow && row + getCellHeight(cell) > firstRow)
+					cells.add(cell);
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * Gets the selected cells.
+	 *
+	 * @return a copy of the selection, in no particular order
+	 */
+	public BetterDynamicArray<T> getSelection() {
+		BetterDynamicArray<T> cells = new BetterDynamicArray<T>(Math.max(1, selection.size()));
+		for (T cell : selection)
+			cells.add(cell);
+		return cells;
+	}
+
+	/**
+	 * Selects exactly the given cells, which must be shown.
+	 * Then repaints the cells whose selection changed.
+	 *
+	 * @param cells - to select
+	 */
+	public void setSelection(BetterDynamicArray<T> cells) {
+		for (T cell : selection)
+			invalidateCell(cell);
+		selection.clear();
+		for (int i = 0; i < cells.size(); i++) {
+			selection.add(cells.get(i));
+			invalidateCell(cells.get(i));
+		}
+	}
+
+	/**
+	 * Selects every cell of the grid.
+	 */
+	public void selectAll() {
+		setSelection(getCellsIn(0, rows - 1, 0, columns - 1));
+	}
+
+	/**
+	 * Gets whether a cell is selected.
+	 *
+	 * @param cell - item shown as a cell
+	 * @return true if it is selected
+	 */
+	public boolean isSelected(T cell) {
+		return !selection.isEmpty() && selection.contains(cell);
+	}
 
+	/**
+	 * Gets the cells that start at a position.
+	 *
+	 * @param row - vertical position index
+	 * @param col - horizontal position index
+	 * @return a copy of the cells in the order added, empty if there are none
+	 */
+	public BetterDynamicArray<T> getCellsAt(int row, int col) {
+		return cellIndex.getAll(row, col);
 	}
 
 	/**
@@ -152,8 +388,10 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 	 */
 	public void clear() {
 		// TODO
-		cells.clear();
-		repaint();
+		columnCells.clear();
+		cellIndex.clear();
+		selection.clear();
+		invalidateArea(new Rectangle(0, 0, getWidth(), getHeight()));
 	}
 
 	/**
@@ -168,74 +406,303 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 	 */
 	public void paintComponent(Graphics g) {
 
-		super.paintComponent(g); // Call parent JPanel's paintComponent method to ensure proper component rendering
+		if (getWidth() != width || getHeight() != height) {
+			width = getWidth();  // Get the width of the component
+			height = getHeight(); // Get the height of the component
+			background = null; // The size changed, so draw the grid again
+			rowPixels = null;
+			colPixels = null;
+		}
+		if (width <= 0 || height <= 0) {
+			return; // Nothing to draw on
+		}
+		if (rowPixels == null || colPixels == null) {
+			computePixels();
+		}
+		Rectangle visible = getVisibleRect();
+		if (background == null || !backgroundArea.contains(visible)) {
+			drawBackground(visible);
+		}
+		g.drawImage(background, backgroundArea.x, backgroundArea.y, null); // The grid in one draw, covering what shows
+
+		// Draw the cells in the columns Swing asked to paint (render the visible filled cells)
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, width, height); // Paint everything
+		}
+		// One column more on each side, since lines are rounded to pixels
+		int firstColumn = Math.max(0, pixelToCol(clip.x) - 1);
+		int lastColumn = pixelToCol(clip.x + clip.width) + 1;
+		for (int b = firstColumn / BUCKET_COLUMNS; b <= lastColumn / BUCKET_COLUMNS; b++) {
+			BetterDynamicArray<T> bucket = columnCells.get(b);
+			for (int i = 0; bucket != null && i < bucket.size(); i++) {
+				T cell = bucket.get(i);
+				int col = getCellColumn(cell);
+				if (Math.max(col, firstColumn) / BUCKET_COLUMNS != b) {
+					continue; // Drawn from the bucket of the first visible column it covers
+				}
+				// Convert row and column to pixel positions, and calculate its width and height
+				int row = getCellRow(cell);
+				int x = colToPixel(col);
+				int y = rowToPixel(row);
+				int width = colToPixel(col + getCellWidth(cell)) - x; // Calculate the width of the cell
+				int height = rowToPixel(row + getCellHeight(cell)) - y; // Calculate the height of the cell
+				if (x >= clip.x + clip.width || x + width <= clip.x
+						|| y <= clip.y || y + height >= clip.y + clip.height) {
+					continue; // Outside the area to paint
+				}
+
+				paintCell(g, cell, x, y + height, width, -height); // Draw the cell from its top left corner
+			}
+		}
+
+		// If the mouse is currently drawing a cell, show a preview of the current cell being drawn
+		if (drawing) {
+			g.setColor(cellColor); // Set the color for the preview cell
+			// Calculate the dimensions of the preview cell based on current position and size
+			int x = colToPixel(currentColumn);
+			int y = rowToPixel(currentRow);
+			int width = colToPixel(currentColumn + currentWidth) - x; // Width of the preview cell
+			int height = rowToPixel(currentRow - currentHeight) - y; // Height of the preview cell
+
+			g.fillRect(x, y - height, width, height); // Draw the preview of the cell
+		}
+
+		// If the mouse is currently selecting, show the rubber band around the rows and columns it covers
+		if (selecting) {
+			g.setColor(selectedColor);
+			int x = colToPixel(Math.min(bandColumn, bandEndColumn));
+			int y = rowToPixel(Math.max(bandRow, bandEndRow) + 1);
+			g.drawRect(x, y, colToPixel(Math.max(bandColumn, bandEndColumn) + 1) - x - 1,
+					rowToPixel(Math.min(bandRow, bandEndRow)) - y - 1);
+		}
+	}
+
+
+	/**
+	 * Computes the pixel position of every row and column line of a grid
+	 * that fits the component. A zoomed dimension needs no table, since its
+	 * lines are a multiplication apart.
+	 */
+	private void computePixels() {
+		rowPixels = new int[rowHeight > 0 ? 0 : rows + 1];
+		for (int i = 0; i < rowPixels.length; i++) {
+			rowPixels[i] = height - i * height / rows;
+		}
+		colPixels = new int[columnWidth > 0 ? 0 : columns + 1];
+		for (int i = 0; i < colPixels.length; i++) {
+			colPixels[i] = i * width / columns;
+		}
+	}
+
+	/**
+	 * Draws the background, grid lines and major ticks of the area around
+	 * the visible part into an image compatible with the screen. The area
+	 * reaches half the visible size past each side, so scrolling a little
+	 * does not draw it again; it only runs when the visible part leaves the
+	 * area or the size or the grid changes.
+	 *
+	 * @param visible - the part of the component that can be seen
+	 */
+	private void drawBackground(Rectangle visible) {
+		Rectangle area = new Rectangle(visible.x - visible.width / 2, visible.y - visible.height / 2,
+				visible.width * 2, visible.height * 2).intersection(new Rectangle(0, 0, width, height));
+		if (area.isEmpty()) {
+			area = new Rectangle(0, 0, width, height); // Not on screen, as when painted offscreen
+		}
+		backgroundArea = area;
+
+		GraphicsConfiguration configuration = getGraphicsConfiguration();
+		background = configuration != null ? configuration.createCompatibleImage(area.width, area.height)
+				: new BufferedImage(area.width, area.height, BufferedImage.TYPE_INT_RGB); // Offscreen, no screen to match
+		Graphics g = background.getGraphics();
+		g.translate(-area.x, -area.y);
+		g.setColor(getBackground());
+		g.fillRect(area.x, area.y, area.width, area.height);
+
+		// Only the lines within the area, with one to spare on each side
+		int firstRow = Math.max(0, pixelToRow(area.y + area.height) - 1);
+		int lastRow = Math.min(rows, pixelToRow(area.y) + 2);
+		int firstColumn = Math.max(0, pixelToCol(area.x) - 1);
+		int lastColumn = Math.min(columns, pixelToCol(area.x + area.width) + 2);
+		int left = area.x;
+		int right = area.x + area.width;
+		int top = area.y;
+		int bottom = area.y + area.height;
 
 		// Draw the grid: loop through rows and columns to draw the grid lines
-		width = getWidth();  // Get the width of the component
-		height = getHeight(); // Get the height of the component
 		g.setColor(Color.GRAY); // Set color for grid lines
 
 		// Draw horizontal grid lines (one for each row)
-		for (int i = 0; i <= rows; i++) {
+		for (int i = firstRow; i <= lastRow; i++) {
 			int y = rowToPixel(i); // Convert row index to pixel position
-			g.drawLine(0, y, width, y); // Draw a horizontal line
+			g.drawLine(left, y, right, y); // Draw a horizontal line
 		}
 
 		// Draw vertical grid lines (one for each column)
-		for (int i = 0; i <= columns; i++) {
+		for (int i = firstColumn; i <= lastColumn; i++) {
 			int x = colToPixel(i); // Convert column index to pixel position
-			g.drawLine(x, 0, x, height); // Draw a vertical line
+			g.drawLine(x, top, x, bottom); // Draw a vertical line
 		}
 
 		// Draw major row and column ticks (thicker lines to mark significant positions)
 		g.setColor(Color.DARK_GRAY); // Set color for major ticks
 
 		// Draw major horizontal ticks (for major rows based on spacing)
-		for (int i = 0; i <= rows; i++) {
-			if (i % rowMajorTickSpacing == 0) { // Only draw tick at major intervals
-				int y = rowToPixel(i); // Convert row index to pixel position
-				g.fillRect(0, y - 2, width, 4); // Draw a horizontal thick tick at this row
-			}
+		int rowSpacing = Math.max(1, rowMajorTickSpacing);
+		for (int i = (firstRow + rowSpacing - 1) / rowSpacing * rowSpacing; i <= lastRow; i += rowSpacing) {
+			int y = rowToPixel(i); // Convert row index to pixel position
+			g.fillRect(left, y - 2, right - left, 4); // Draw a horizontal thick tick at this row
 		}
 
 		// Draw major vertical ticks (for major columns based on spacing)
-		for (int i = 0; i <= columns; i++) {
-			if (i % columnMajorTickSpacing == 0) { // Only draw tick at major intervals
-				int x = colToPixel(i); // Convert column index to pixel position
-				g.fillRect(x - 2, 0, 4, height); // Draw a vertical thick tick at this column
-			}
+		int columnSpacing = Math.max(1, columnMajorTickSpacing);
+		for (int i = (firstColumn + columnSpacing - 1) / columnSpacing * columnSpacing; i <= lastColumn;
+				i += columnSpacing) {
+			int x = colToPixel(i); // Convert column index to pixel position
+			g.fillRect(x - 2, top, 4, bottom - top); // Draw a vertical thick tick at this column
 		}
+		g.dispose();
+	}
 
-		// Draw all cells in the collection (render all the filled cells)
-		for (int i = 0; i < cells.size(); i++) {
-			// For each cell, convert row and column to pixel positions, and calculate its width and height
-			int x = colToPixel(cells.get(i).col);
-			int y = rowToPixel(cells.get(i).row);
-			int width = colToPixel(cells.get(i).col + cells.get(i).colSpan) - x; // Calculate the width of the cell
-			int height = rowToPixel(cells.get(i).row + cells.get(i).rowSpan) - y; // Calculate the height of the cell
+	/**
+	 * Gets the size the grid needs: the size given to the constructor, or
+	 * for a zoomed dimension, its columns or rows times their size.
+	 *
+	 * @return preferred size
+	 */
+	@Override
+	public Dimension getPreferredSize() {
+		Dimension size = super.getPreferredSize();
+		if (columnWidth > 0)
+			size.width = columns * columnWidth;
+		if (rowHeight > 0)
+			size.height = rows * rowHeight;
+		return size;
+	}
 
-			g.setColor(cells.get(i).color); // Set the color of the cell
-			g.fillRect(x, y + height, width, -height); // Draw the cell as a filled rectangle
-		}
+	/**
+	 * Gets the size of a scroll pane's viewport onto the grid, which is the
+	 * size given to the constructor.
+	 *
+	 * @return preferred viewport size
+	 */
+	@Override
+	public Dimension getPreferredScrollableViewportSize() {
+		return super.getPreferredSize();
+	}
 
-		// If the mouse is currently drawing a cell, show a preview of the current cell being drawn
-		if (drawing) {
-			g.setColor(cellColor); // Set the color for the preview cell
-			// Calculate the dimensions of the preview cell based on current position and size
-			int x = colToPixel(currentColumn);
-			int y = rowToPixel(currentRow);
-			int width = colToPixel(currentColumn + currentWidth) - x; // Width of the preview cell
-			int height = rowToPixel(currentRow - currentHeight) - y; // Height of the preview cell
+	/**
+	 * Scrolls by one column or row.
+	 */
+	@Override
+	public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) {
+		return Math.max(1, orientation == SwingConstants.HORIZONTAL ? columnWidth : rowHeight);
+	}
 
-			g.fillRect(x, y - height, width, height); // Draw the preview of the cell
-		}
+	/**
+	 * Scrolls by the visible size less one column or row, so a little of
+	 * the previous view stays in sight.
+	 */
+	@Override
+	public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+		int extent = orientation == SwingConstants.HORIZONTAL ? visible.width : visible.height;
+		return Math.max(1, extent - getScrollableUnitIncrement(visible, orientation, direction));
 	}
 
+	/**
+	 * Fits the width of the viewport unless zoomed wider than it.
+	 */
+	@Override
+	public boolean getScrollableTracksViewportWidth() {
+		return columnWidth <= 0
+				|| getParent() instanceof JViewport && getParent().getWidth() > getPreferredSize().width;
+	}
+
+	/**
+	 * Fits the height of the viewport unless zoomed taller than it.
+	 */
+	@Override
+	public boolean getScrollableTracksViewportHeight() {
+		return rowHeight <= 0
+				|| getParent() instanceof JViewport && getParent().getHeight() > getPreferredSize().height;
+	}
+
+	/**
+	 * Sets the background color, which is part of the cached grid.
+	 *
+	 * @param color - new background color
+	 */
+	@Override
+	public void setBackground(Color color) {
+		super.setBackground(color);
+		background = null;
+	}
+
+	/**
+	 * Forgets the cached grid when the component moves to another screen,
+	 * so it is drawn again in a format compatible with that screen.
+	 */
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		background = null;
+	}
 
 	//////////////////////////////////////////////////////////////////////
 	// Abstract methods to be implemented in SongEditor and TrackEditor.
 	//////////////////////////////////////////////////////////////////////
 
+	/**
+	 * Draws one cell. By default the cell is a rectangle filled with the
+	 * cell color; subclasses can draw more inside it.
+	 *
+	 * @param g - graphics context to draw onto
+	 * @param cell - item shown as the cell
+	 * @param x - pixel x value of the left side
+	 * @param y - pixel y value of the top side
+	 * @param width - of the cell in pixels
+	 * @param height - of the cell in pixels
+	 */
+	protected void paintCell(Graphics g, T cell, int x, int y, int width, int height) {
+		g.setColor(isSelected(cell) ? selectedColor : cellColor); // Set the color of the cell
+		g.fillRect(x, y, width, height); // Draw the cell as a filled rectangle
+	}
+
+	/**
+	 * Gets the row an item is shown at.
+	 *
+	 * @param cell - item shown as a cell
+	 * @return vertical position index of the cell
+	 */
+	protected abstract int getCellRow(T cell);
+
+	/**
+	 * Gets the column an item is shown from.
+	 *
+	 * @param cell - item shown as a cell
+	 * @return horizontal position index of the cell
+	 */
+	protected abstract int getCellColumn(T cell);
+
+	/**
+	 * Gets the number of columns an item covers.
+	 *
+	 * @param cell - item shown as a cell
+	 * @return width of the cell
+	 */
+	protected abstract int getCellWidth(T cell);
+
+	/**
+	 * Gets the number of rows an item covers, which is one unless overridden.
+	 *
+	 * @param cell - item shown as a cell
+	 * @return height of the cell
+	 */
+	protected int getCellHeight(T cell) {
+		return 1;
+	}
+
 	/**
 	 * This is called when a mouse button is pressed on a given cell.
 	 * This is NOT for the MouseListener interface. It will be implemented in
@@ -263,7 +730,8 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 	/**
 	 * This is called when a mouse is released on a given cell.
 	 * This is NOT for the MouseListener interface. It will be implemented in
-	 * your subclasses.
+	 * your subclasses, which add an item for the cell to their model and
+	 * show it with addCell.
 	 *
 	 * @param row - vertical position index of cell
 	 * @param col - horizontal position index of cell
@@ -273,10 +741,12 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 	public abstract void onCellReleased(int row, int col, int rowSpan, int colSpan);
 
 	/**
-	 * This is called when a cell is removed from the collection.
+	 * This is called when the cells at a position are to be removed.
+	 * Subclasses remove the items of getCellsAt from their model and stop
+	 * showing them with removeCell.
 	 *
-	 * @param row - index of cell removed
-	 * @param col - index of cell removed
+	 * @param row - index of cells to remove
+	 * @param col - index of cells to remove
 	 */
 	public abstract void onCellRemoved(int row, int col);
 
@@ -293,7 +763,15 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 	 */
 	@Override
 	public void mousePressed(MouseEvent e) {
-		if (e.getButton() == 1) {
+		requestFocusInWindow(); // Keys edit the selection of the grid that was clicked
+		if (e.getButton() == 1 && e.isShiftDown()) {
+			selecting = true; // Drag a rubber band instead of a cell
+			bandRow = bandEndRow = pixelToRow(e.getY());
+			bandColumn = bandEndColumn = pixelToCol(e.getX());
+			repaint();
+		}
+		else if (e.getButton() == 1) {
+			setSelection(new BetterDynamicArray<T>()); // Drawing a cell ends the selection
 			drawing = true;
 			currentRow = pixelToRow(e.getY());
 			currentColumn = pixelToCol(e.getX());
@@ -311,6 +789,10 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 	 */
 	@Override
 	public void mouseDragged(MouseEvent e) {
+		if (selecting) {
+			bandEndRow = pixelToRow(e.getY());
+			bandEndColumn = pixelToCol(e.getX());
+		}
 		if (drawing) {
 			if(rowRestriction > 0) {
 				currentRow = pixelToRow(e.getY());
@@ -331,15 +813,18 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 
 	/**
 	 * This is called when a mouse button is released.
-	 * If there is a valid preview cell, add it to the collection and call
-	 * onCellReleased before repainting.
+	 * Call onCellReleased with the preview cell, which the subclass adds if
+	 * it is valid, before repainting.
 	 */
 	@Override
 	public void mouseReleased(MouseEvent e) {
+		if (selecting) {
+			selecting = false;
+			setSelection(getCellsIn(Math.min(bandRow, bandEndRow), Math.max(bandRow, bandEndRow),
+					Math.min(bandColumn, bandEndColumn), Math.max(bandColumn, bandEndColumn)));
+			repaint(); // Also where the rubber band was
+		}
 		if (drawing) {
-			if (currentHeight > 0 && currentWidth > 0) {
-				addCell(currentRow, currentColumn, currentHeight, currentWidth);
-			}
 			onCellReleased(currentRow, currentColumn, currentHeight, currentWidth);
 			currentRow = -1;
 			currentColumn = -1;
@@ -353,22 +838,13 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 	/**
 	 * This is called when a mouse button is clicked.
 	 * This is specifically for removal of a cell when any mouse button
-	 * other than the left button is clicked. All cells matching this
-	 * position are removed and onCellRemoved is called before repainting.
+	 * other than the left button is clicked. onCellRemoved is called to
+	 * remove all cells matching this position.
 	 */
 	@Override
 	public void mouseClicked(MouseEvent e) {
 		if(e.getButton() > 1) {
-			// remove all cells from the list with this row and column
-			int row = pixelToRow(e.getY());
-			int col = pixelToCol(e.getX());
-			for(int i = 0; i < cells.size(); i++)
-				if(cells.get(i).row == row && cells.get(i).col == col) {
-					cells.remove(i);
-					i--;
-				}
-			onCellRemoved(row, col);
-			repaint();
+			onCellRemoved(pixelToRow(e.getY()), pixelToCol(e.getX()));
 		}
 	}
 
@@ -389,6 +865,51 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 	// You can modify if desired, but you don't need to.
 	//////////////////////////////////////////////////////////////////////
 
+	/**
+	 * Marks the area of a cell, with a pixel to spare on each side, to be
+	 * repainted. The areas of every cell changed before the next event is
+	 * handled are repainted with one repaint. A grid that is not showing
+	 * is painted in full when it shows, so nothing is marked.
+	 *
+	 * @param cell - to repaint
+	 */
+	private void invalidateCell(T cell) {
+		if (!isShowing())
+			return;
+		int col = getCellColumn(cell);
+		int row = getCellRow(cell);
+		int x = colToPixel(col);
+		int y = rowToPixel(row + getCellHeight(cell));
+		invalidateArea(new Rectangle(x - 1, y - 1, colToPixel(col + getCellWidth(cell)) - x + 2, rowToPixel(row) - y + 2));
+	}
+
+	/**
+	 * Marks an area to be repainted with the other areas changed before
+	 * the next event is handled.
+	 *
+	 * @param area - to repaint
+	 */
+	private void invalidateArea(Rectangle area) {
+		if (!isShowing())
+			return; // Painted in full when it shows
+		if (dirty == null) {
+			dirty = area;
+			SwingUtilities.invokeLater(this::repaintDirty); // Once the current changes are done
+		} else {
+			dirty.add(area);
+		}
+	}
+
+	/**
+	 * Repaints the area of the cells changed since the last repaint.
+	 */
+	private void repaintDirty() {
+		if (dirty != null) {
+			repaint(dirty);
+			dirty = null;
+		}
+	}
+
 	/**
 	 * Converts a row index to pixel y value of the BOTTOM edge of the row.
 	 *
@@ -396,6 +917,10 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 	 * @return pixel y value of the top edge
 	 */
 	private int rowToPixel(int row) {
+		if (rowHeight > 0)
+			return (rows - row) * rowHeight; // Zoomed: the grid starts at the top
+		if (rowPixels != null && row >= 0 && row < rowPixels.length)
+			return rowPixels[row]; // Precomputed by computePixels
 		return height - row * height / rows;
 	}
 
@@ -406,6 +931,10 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 	 * @return pixel x value of the left side
 	 */
 	private int colToPixel(int col) {
+		if (columnWidth > 0)
+			return col * columnWidth; // Zoomed
+		if (colPixels != null && col >= 0 && col < colPixels.length)
+			return colPixels[col]; // Precomputed by computePixels
 		return col * width / (columns);
 	}
 
@@ -416,6 +945,8 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 	 * @return index of row containing that pixel
 	 */
 	private int pixelToRow(int py) {
+		if (rowHeight > 0)
+			return Math.floorDiv(rows * rowHeight - 1 - py, rowHeight); // Zoomed
 		return rows * (height - 1 - py) / height;
 	}
 
@@ -426,36 +957,11 @@ public abstract class GridCanvas extends JPanel implements MouseListener, MouseM
 	 * @return index of column containing that pixel
 	 */
 	private int pixelToCol(int px) {
+		if (columnWidth > 0)
+			return Math.floorDiv(px, columnWidth); // Zoomed
 		return columns * px / width;
 	}
 
-	/**
-	 * Represents a colored cell in the grid.
-	 */
-	private class Cell {
-		public int row;
-		public int col;
-		public int rowSpan;
-		public int colSpan;
-		public Color color;
-
-		/**
-		 * Constructs a cell object
-		 * @param row - vertical position
-		 * @param col - horizontal position
-		 * @param rowSpan - height
-		 * @param colSpan - width
-		 * @param color - of cell
-		 */
-		public Cell(int row, int col, int rowSpan, int colSpan, Color color) {
-			this.row = row;
-			this.col = col;
-			this.color = color;
-			this.rowSpan = rowSpan;
-			this.colSpan = colSpan;
-		}
-	}
-
 	// Required by a serializable class (ignore for now)
 	private static final long serialVersionUID = 1L;
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package assign11;
+
+import java.util.HashMap;
+
+/**
+ * The GridIndex class finds what is at a (row, column) position of a grid in constant
+ * time, however many items the grid holds. GridCanvas keeps one for its cells, which are
+ * the editors' own events, so removing what the user clicked is a lookup rather than a
+ * search.
+ *
+ * A position can hold several items; they are kept in the order they were added.
+ *
+ * @param <T> The type of the items.
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class GridIndex<T> {
+    private final HashMap<Long, BetterDynamicArray<T>> items = new HashMap<>(); // Items by position key
+
+    /**
+     * Adds an item at a position.
+     *
+     * @param row    The row of the position.
+     * @param column The column of the position.
+     * @param item   The item.
+     */
+    public void add(int row, int column, T item) {
+        items.computeIfAbsent(key(row, column), key -> new BetterDynamicArray<>(1)).add(item);
+    }
+
+    /**
+     * Gets every item at a position.
+     *
+     * @param row    The row of the position.
+     * @param column The column of the position.
+     * @return A copy of the items in the order they were added, empty if there are none.
+     */
+    public BetterDynamicArray<T> getAll(int row, int column) {
+        BetterDynamicArray<T> here = items.get(key(row, column));
+        BetterDynamicArray<T> copy = new BetterDynamicArray<>(here == null ? 1 : here.size());
+        for (int i = 0; here != null && i < here.size(); i++) {
+            copy.add(here.get(i));
+        }
+        return copy;
+    }
+
+    /**
+     * Removes an item from a position, if it is there.
+     *
+     * @param row    The row of the position.
+     * @param column The column of the position.
+     * @param item   The item, found by equals.
+     */
+    public void remove(int row, int column, T item) {
+        Long key = key(row, column);
+        BetterDynamicArray<T> here = items.get(key);
+        if (here != null) {
+            here.remove(item);
+            if (here.size() == 0) {
+                items.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Removes every item.
+     */
+    public void clear() {
+        items.clear();
+    }
+
+    // Packs a position into one key, scrambled by an odd multiplier so keys stay distinct but their
+    // hash codes do not collide as row ^ column would
+    private static Long key(int row, int column) {
+        return ((long) row << 32 | column & 0xFFFFFFFFL) * 0x9E3779B97F4A7C15L;
+    }
+}
@@ -0,0 +1,352 @@
+package assign11;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MetaMessage;
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+
+/**
+ * The MidiFiles class converts songs to and from Standard MIDI Files. It works on SongData,
+ * so a file is converted in one pass over its events without any sequencer or panel.
+ *
+ * One beat of a song is RESOLUTION ticks, and the tempo is written as a tempo meta event.
+ * Track i plays on MIDI channel i with its instrument as the program and its volume as
+ * controller 7. Note events become note on and note off messages, and change events become
+ * pitch bends. On export, the song block's track events decide when each track plays; on
+ * import, every channel becomes a track that the song block plays once from the start.
+ *
+ * A song has whole beats and a single tempo, so imported notes are rounded to the nearest
+ * beat and only the first tempo, program and volume of each channel are kept.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class MidiFiles {
+    public static final String EXTENSION = "mid"; // File name extension of MIDI files
+    public static final int RESOLUTION = 480;     // Ticks per beat in exported files
+
+    private static final int TEMPO_META = 0x51;      // Meta event type of a tempo change
+    private static final int VOLUME_CONTROLLER = 7;  // Controller that SimpleSynthesizer uses for volume
+    private static final int VELOCITY = 100;         // Velocity that SimpleSynthesizer plays every note with
+    private static final int DEFAULT_TEMPO = 120;    // Tempo of a MIDI file without a tempo event
+    private static final int DEFAULT_VOLUME = 100;   // Volume of a MIDI channel without a volume event
+    private static final int MIN_LENGTH = 4;         // Shortest track or song length, as in a new track
+    private static final int PITCH_BEND_CENTER = 8192;
+    private static final String NOTE_NAME = "note";          // Name TrackEditor gives notes
+    private static final String CHANGE_NAME = "pitchbend";   // Name given to imported pitch bends
+    private static final String TRACK_EVENT_NAME = "TrackEvent"; // Name SongEditor gives track events
+
+    // Order in which events are added to a track: by tick, with note offs first on a shared tick
+    static final Comparator<MidiEvent> TICK_ORDER = Comparator.comparingLong(MidiEvent::getTick)
+            .thenComparingInt(event -> isNoteOff(event.getMessage()) ? 0 : 1);
+
+    /**
+     * Writes a song as a type 1 Standard MIDI File: a tempo track followed by one track per
+     * song track. The file is replaced atomically, as with SongFiles.writeSong.
+     *
+     * @param song     The song to write.
+     * @param file     The file to write.
+     * @param progress Told how many tracks are done; may cancel the write.
+     * @throws IOException if the file cannot be written, or the write was cancelled.
+     */
+    public static void write(SongData song, File file, SongProgress progress) throws IOException {
+        Sequence sequence = toSequence(song, progress.part(0, 0.8));
+        Path target = file.toPath().toAbsolutePath();
+        Path temp = SongFiles.createTempFile(target);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                MidiSystem.write(sequence, 1, Channels.newOutputStream(channel));
+                channel.force(true);
+            }
+            progress.update(1); // Last chance to cancel
+            SongFiles.replaceAtomically(temp, target);
+            temp = null;
+        } finally {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Converts a song into a MIDI sequence.
+     *
+     * @param song     The song to convert.
+     * @param progress Told how many tracks are done; may cancel the conversion.
+     * @return A sequence with a tempo track and one track per song track.
+     * @throws IOException if the song cannot be converted, or the conversion was cancelled.
+     */
+    public static Sequence toSequence(SongData song, SongProgress progress) throws IOException {
+        try {
+            Sequence sequence = new Sequence(Sequence.PPQ, RESOLUTION);
+            int microsPerBeat = 60_000_000 / Math.max(1, song.getTempo());
+            byte[] tempo = { (byte) (microsPerBeat >> 16), (byte) (microsPerBeat >> 8), (byte) microsPerBeat };
+            sequence.createTrack().add(new MidiEvent(new MetaMessage(TEMPO_META, tempo, tempo.length), 0));
+
+            // The song block says when each track plays; without any track events, every track plays once
+            EventTable arrangement = song.getEvents();
+            boolean arranged = false;
+            for (int j = 0; j < arrangement.size() && !arranged; j++) {
+                arranged = arrangement.getType(j) == EventTable.TRACK;
+            }
+
+            BetterDynamicArray<TrackData> tracks = song.getTracks();
+            for (int i = 0; i < tracks.size(); i++) {
+                TrackData track = tracks.get(i);
+                int channel = i & 0x0F;
+                ArrayList<MidiEvent> events = new ArrayList<>();
+                events.add(new MidiEvent(new ShortMessage(ShortMessage.PROGRAM_CHANGE, channel,
+                        clamp(track.getInstrument(), 0, 127), 0), 0));
+                events.add(new MidiEvent(new ShortMessage(ShortMessage.CONTROL_CHANGE, channel,
+                        VOLUME_CONTROLLER, clamp(track.getVolume(), 0, 127)), 0));
+                EventTable pattern = track.getEvents();
+                if (arranged) {
+                    for (int j = 0; j < arrangement.size(); j++) {
+                        if (arrangement.getType(j) == EventTable.TRACK && arrangement.getChannel(j) == i) {
+                            addPattern(events, pattern, channel, arrangement.getTime(j));
+                        }
+                    }
+                } else {
+                    addPattern(events, pattern, channel, 0);
+                }
+
+                events.sort(TICK_ORDER); // Adding in tick order keeps Track.add from searching
+                Track out = sequence.createTrack();
+                for (MidiEvent event : events) {
+                    out.add(event);
+                }
+                progress.update((i + 1.0) / tracks.size());
+            }
+            return sequence;
+        } catch (InvalidMidiDataException e) {
+            throw new IOException("Cannot convert the song to MIDI: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads a Standard MIDI File as a song.
+     *
+     * @param file     The MIDI file.
+     * @param progress Told how many MIDI tracks are done; may cancel the read.
+     * @return The song.
+     * @throws IOException if the file cannot be read or is not a MIDI file.
+     */
+    public static SongData read(File file, SongProgress progress) throws IOException {
+        Sequence sequence;
+        try {
+            sequence = MidiSystem.getSequence(file);
+        } catch (InvalidMidiDataException e) {
+            throw new IOException("Not a MIDI file: " + e.getMessage(), e);
+        }
+        progress.update(0.3);
+        return fromSequence(sequence, progress.part(0.3, 1));
+    }
+
+    /**
+     * Converts a MIDI sequence into a song in one pass over its events. Every channel that
+     * has notes or pitch bends becomes a track, in the order the channels first appear.
+     *
+     * @param sequence The sequence to convert.
+     * @param progress Told how many MIDI tracks are done; may cancel the conversion.
+     * @return The song.
+     * @throws IOException if the conversion was cancelled.
+     */
+    public static SongData fromSequence(Sequence sequence, SongProgress progress) throws IOException {
+        Track[] midiTracks = sequence.getTracks();
+        int tempo = findTempo(midiTracks);
+        double beatsPerTick = sequence.getDivisionType() == Sequence.PPQ
+                ? 1.0 / sequence.getResolution()
+                : tempo / 60.0 / (sequence.getDivisionType() * sequence.getResolution());
+
+        int[] trackOfChannel = new int[16];       // Track index of each channel, or -1
+        Arrays.fill(trackOfChannel, -1);
+        int[] channelOfTrack = new int[16];       // Channel of each track index
+        int[] instruments = new int[16];          // First program of each channel
+        Arrays.fill(instruments, -1);
+        int[] volumes = new int[16];              // First volume of each channel
+        Arrays.fill(volumes, -1);
+        long[] noteStarts = new long[16 * 128];   // Tick of the sounding note of each channel and key, or -1
+        Arrays.fill(noteStarts, -1);
+        EventTable[] tables = new EventTable[16]; // Events of each track, by track index
+        int[] lengths = new int[16];              // Last beat of each track, by track index
+        int trackCount = 0;
+
+        for (int t = 0; t < midiTracks.length; t++) {
+            Track midiTrack = midiTracks[t];
+            for (int k = 0; k < midiTrack.size(); k++) {
+                MidiEvent event = midiTrack.get(k);
+                if (!(event.getMessage() instanceof ShortMessage message)) {
+                    continue;
+                }
+                int channel = message.getChannel();
+                int command = message.getCommand();
+                if (command == ShortMessage.PROGRAM_CHANGE) {
+                    if (instruments[channel] < 0) {
+                        instruments[channel] = message.getData1();
+                    }
+                    continue;
+                }
+                if (command == ShortMessage.CONTROL_CHANGE) {
+                    if (message.getData1() == VOLUME_CONTROLLER && volumes[channel] < 0) {
+                        volumes[channel] = message.getData2();
+                    }
+                    continue;
+                }
+                if (command != ShortMessage.NOTE_ON && command != ShortMessage.NOTE_OFF
+                        && command != ShortMessage.PITCH_BEND) {
+                    continue;
+                }
+
+                if (trackOfChannel[channel] < 0) {
+                    trackOfChannel[channel] = trackCount;
+                    channelOfTrack[trackCount] = channel;
+                    tables[trackCount] = new EventTable();
+                    trackCount++;
+                }
+                int track = trackOfChannel[channel];
+                long tick = event.getTick();
+                int key = channel * 128 + message.getData1();
+                if (command == ShortMessage.PITCH_BEND) {
+                    int value = (message.getData2() << 7 | message.getData1()) - PITCH_BEND_CENTER;
+                    tables[track].add(EventTable.CHANGE, CHANGE_NAME, beat(tick, beatsPerTick), track, value, 0);
+                } else if (command == ShortMessage.NOTE_ON && message.getData2() > 0) {
+                    if (noteStarts[key] >= 0) {
+                        // The same key again before its note off, so the first note ends here
+                        lengths[track] = Math.max(lengths[track],
+                                addNote(tables[track], track, message.getData1(), noteStarts[key], tick, beatsPerTick));
+                    }
+                    noteStarts[key] = tick;
+                } else if (noteStarts[key] >= 0) {
+                    lengths[track] = Math.max(lengths[track],
+                            addNote(tables[track], track, message.getData1(), noteStarts[key], tick, beatsPerTick));
+                    noteStarts[key] = -1;
+                }
+            }
+            progress.update((t + 1.0) / Math.max(1, midiTracks.length));
+        }
+
+        // Notes still sounding at the end of the file end with it
+        for (int key = 0; key < noteStarts.length; key++) {
+            if (noteStarts[key] >= 0) {
+                int track = trackOfChannel[key / 128];
+                lengths[track] = Math.max(lengths[track], addNote(tables[track], track, key % 128,
+                        noteStarts[key], Math.max(noteStarts[key], sequence.getTickLength()), beatsPerTick));
+            }
+        }
+
+        // Every track plays once from the start of the song
+        BetterDynamicArray<TrackData> tracks = new BetterDynamicArray<>(trackCount);
+        EventTable arrangement = new EventTable(trackCount);
+        int songLength = MIN_LENGTH;
+        for (int track = 0; track < trackCount; track++) {
+            int channel = channelOfTrack[track];
+            int length = Math.max(MIN_LENGTH, lengths[track]);
+            for (int j = 0; j < tables[track].size(); j++) {
+                length = Math.max(length, tables[track].getTime(j) + 1); // Pitch bends after the last note
+            }
+            tracks.add(new TrackData(track, Math.max(0, instruments[channel]),
+                    volumes[channel] < 0 ? DEFAULT_VOLUME : volumes[channel], length, tables[track]));
+            arrangement.add(EventTable.TRACK, TRACK_EVENT_NAME, 0, track, 0, length);
+            songLength = Math.max(songLength, length);
+        }
+        return new SongData(tempo, tracks, songLength, arrangement);
+    }
+
+    // Returns the tempo of the first tempo event, in beats per minute
+    private static int findTempo(Track[] midiTracks) {
+        for (Track midiTrack : midiTracks) {
+            for (int k = 0; k < midiTrack.size(); k++) {
+                if (midiTrack.get(k).getMessage() instanceof MetaMessage meta && meta.getType() == TEMPO_META
+                        && meta.getData().length == 3) {
+                    byte[] data = meta.getData();
+                    int microsPerBeat = (data[0] & 0xFF) << 16 | (data[1] & 0xFF) << 8 | (data[2] & 0xFF);
+                    return Math.max(1, (int) Math.round(60_000_000.0 / Math.max(1, microsPerBeat)));
+                }
+            }
+        }
+        return DEFAULT_TEMPO;
+    }
+
+    // Adds a note that sounded from start to end and returns the beat it ends on
+    private static int addNote(EventTable table, int track, int pitch, long start, long end, double beatsPerTick) {
+        int time = beat(start, beatsPerTick);
+        int duration = Math.max(1, beat(end, beatsPerTick) - time);
+        table.add(EventTable.NOTE, NOTE_NAME, time, track, pitch, duration);
+        return time + duration;
+    }
+
+    // Adds the note and change events of a track pattern that starts at the given beat
+    private static void addPattern(ArrayList<MidiEvent> events, EventTable pattern, int channel, int start)
+            throws InvalidMidiDataException {
+        for (int j = 0; j < pattern.size(); j++) {
+            long tick = (long) (start + pattern.getTime(j)) * RESOLUTION;
+            if (pattern.getType(j) == EventTable.NOTE) {
+                addNote(events, channel, pattern.getValue(j), tick, pattern.getDuration(j));
+            } else if (pattern.getType(j) == EventTable.CHANGE) {
+                int bend = clamp(pattern.getValue(j), -PITCH_BEND_CENTER, PITCH_BEND_CENTER - 1) + PITCH_BEND_CENTER;
+                events.add(new MidiEvent(new ShortMessage(ShortMessage.PITCH_BEND, channel, bend & 0x7F, bend >> 7),
+                        tick));
+            }
+        }
+    }
+
+    /**
+     * Adds the note on and note off messages of a note, played the way SimpleSynthesizer plays it.
+     *
+     * @param events   The list to add the two events to.
+     * @param channel  The MIDI channel.
+     * @param pitch    The pitch, clamped to a MIDI key.
+     * @param tick     The tick the note starts on.
+     * @param duration The length of the note in beats.
+     * @throws InvalidMidiDataException if the channel is not a MIDI channel.
+     */
+    static void addNote(ArrayList<MidiEvent> events, int channel, int pitch, long tick, int duration)
+            throws InvalidMidiDataException {
+        addNoteUntil(events, channel, pitch, tick, tick + (long) duration * RESOLUTION);
+    }
+
+    /**
+     * Adds the note on and note off messages of a note that ends on a given tick, such as a
+     * note cut off at the end of its track's block.
+     *
+     * @param events  The list to add the two events to.
+     * @param channel The MIDI channel.
+     * @param pitch   The pitch, clamped to a MIDI key.
+     * @param tick    The tick the note starts on.
+     * @param endTick The tick the note ends on.
+     * @throws InvalidMidiDataException if the channel is not a MIDI channel.
+     */
+    static void addNoteUntil(ArrayList<MidiEvent> events, int channel, int pitch, long tick, long endTick)
+            throws InvalidMidiDataException {
+        pitch = clamp(pitch, 0, 127);
+        events.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, channel, pitch, VELOCITY), tick));
+        events.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_OFF, channel, pitch, 0), endTick));
+    }
+
+    private static boolean isNoteOff(MidiMessage message) {
+        return message instanceof ShortMessage shortMessage && (shortMessage.getCommand() == ShortMessage.NOTE_OFF
+                || shortMessage.getCommand() == ShortMessage.NOTE_ON && shortMessage.getData2() == 0);
+    }
+
+    private static int beat(long tick, double beatsPerTick) {
+        return (int) Math.round(tick * beatsPerTick);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
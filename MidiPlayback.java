@@ -0,0 +1,333 @@
+package assign11;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MetaMessage;
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.MidiUnavailableException;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.Sequencer;
+import javax.sound.midi.Track;
+
+/**
+ * The MidiPlayback class plays sequences through the JDK MIDI sequencer, which is clocked in
+ * ticks on its own thread, instead of scheduling every event on a Timer. It sends the
+ * messages to the same SimpleSynthesizer that the Timer engine plays, so the two can be
+ * compared on the same song.
+ *
+ * Each played sequence is compiled into a MIDI Sequence with one MIDI track per song track.
+ * The notes and track events of every track are kept with the track's modification count,
+ * and on the next play only the MIDI tracks whose notes or placements changed are rebuilt.
+ *
+ * Like the Timer engine, a track event plays its track from the start of its block until
+ * the block ends, where the track is cut off. A looping track starts again at the end of
+ * each pass until then, and track events inside a track are played the same way within
+ * its block. Change events make no sound. Tracks keep the instrument and volume they have
+ * on the synthesizer. If the MIDI sequencer is not available, the Timer engine plays
+ * instead. The playheads follow the MIDI sequencer, also in the tracks a song plays.
+ *
+ * What the Timer engine does that this does not is listed in LIMITATIONS.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class MidiPlayback implements PlaybackBackend, Closeable {
+    /** How playback differs from the Timer engine, for the user. */
+    public static final String LIMITATIONS = "Edits made while playing are heard from the next play. "
+            + "Overlapping blocks of one track both play in full, where the Timer engine restarts the track. "
+            + "A track that starts itself, directly or through other tracks, is not played there.";
+
+    private static final int END_MARKER = 0x06; // Meta event type that holds the sequence open until its length
+
+    private final SimpleSynthesizer synth;                     // Plays the messages
+    private final HashMap<SimpleSequencer, Pattern> patterns;  // Notes and track events of each track, by sequencer
+    private final HashMap<SimpleSequencer, Player> players;    // MIDI sequencer of each played sequence
+
+    /**
+     * Creates a backend that plays on a synthesizer. MIDI sequencers are opened when a
+     * sequence first plays.
+     *
+     * @param synth The synthesizer that the Timer engine also plays on.
+     */
+    public MidiPlayback(SimpleSynthesizer synth) {
+        this.synth = synth;
+        patterns = new HashMap<>();
+        players = new HashMap<>();
+    }
+
+    @Override
+    public void play(SimpleSequencer sequencer) {
+        Player player = players.get(sequencer);
+        try {
+            if (player == null) {
+                player = new Player(openSequencer());
+                players.put(sequencer, player);
+            }
+            player.play(sequencer);
+        } catch (MidiUnavailableException | InvalidMidiDataException e) {
+            System.out.println("Couldn't play on the midi sequencer, using the timer instead: " + e.getMessage());
+            if (player != null) {
+                players.remove(sequencer).close();
+            }
+            TIMER.play(sequencer);
+        }
+    }
+
+    @Override
+    public void stop(SimpleSequencer sequencer) {
+        Player player = players.get(sequencer);
+        if (player != null) {
+            player.midi.stop(); // Also turns off the notes it started
+        } else {
+            TIMER.stop(sequencer); // It fell back to the Timer engine, or never played
+        }
+    }
+
+    @Override
+    public void settingsChanged(SimpleSequencer sequencer) {
+        Player player = players.get(sequencer);
+        if (player != null && player.midi.isRunning()) {
+            player.applySettings(sequencer);
+        }
+    }
+
+    @Override
+    public boolean isPlaying(SimpleSequencer sequencer) {
+        return elapsedTicks(sequencer) >= 0 || TIMER.isPlaying(sequencer);
+    }
+
+    @Override
+    public double getElapsedTime(SimpleSequencer sequencer) {
+        long ticks = elapsedTicks(sequencer);
+        return ticks >= 0 ? (double) ticks / MidiFiles.RESOLUTION : TIMER.getElapsedTime(sequencer);
+    }
+
+    /**
+     * Stops and closes every MIDI sequencer. The backend can still be used afterwards.
+     */
+    @Override
+    public void close() {
+        for (Player player : players.values()) {
+            player.close();
+        }
+        players.clear();
+        patterns.clear();
+    }
+
+    // Opens a MIDI sequencer that plays on the synthesizer
+    private Sequencer openSequencer() throws MidiUnavailableException {
+        Receiver receiver = synth.getReceiver();
+        if (receiver == null) {
+            throw new MidiUnavailableException("The synthesizer is not available");
+        }
+        Sequencer midi = MidiSystem.getSequencer(false);
+        midi.open();
+        try {
+            midi.getTransmitter().setReceiver(receiver);
+        } catch (MidiUnavailableException e) {
+            midi.close();
+            throw e;
+        }
+        return midi;
+    }
+
+    // Gets the ticks since a sequence last started on a running MIDI sequencer, or -1 if none plays it
+    private long elapsedTicks(SimpleSequencer sequencer) {
+        Player own = players.get(sequencer);
+        if (own != null && own.midi.isRunning()) {
+            return own.midi.getTickPosition();
+        }
+        for (Player player : players.values()) {
+            Placement placement = player.placements.get(sequencer);
+            if (placement != null && player.midi.isRunning()) {
+                // Where a track is placed more than once, follow the latest start
+                long tick = player.midi.getTickPosition();
+                long since = -1;
+                for (int i = 0; i < placement.spans.size(); i += 2) {
+                    long start = placement.spans.get(i);
+                    if (start <= tick && tick < placement.spans.get(i + 1) && (since < 0 || tick - start < since)) {
+                        since = tick - start;
+                    }
+                }
+                if (since >= 0) {
+                    return since;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Gets the notes and track events of a sequence, collecting them again only if they changed
+    private Pattern pattern(SimpleSequencer sequencer) {
+        Pattern pattern = patterns.get(sequencer);
+        if (pattern == null || pattern.modificationCount != sequencer.getModificationCount()) {
+            pattern = new Pattern(sequencer);
+            patterns.put(sequencer, pattern);
+        }
+        return pattern;
+    }
+
+    // The notes and track events of one sequence, in time order
+    private static class Pattern {
+        private final int modificationCount;
+        private final ArrayList<NoteEvent> notes;
+        private final ArrayList<TrackEvent> tracks;
+
+        Pattern(SimpleSequencer sequencer) {
+            modificationCount = sequencer.getModificationCount();
+            notes = new ArrayList<>(sequencer.getEventCount());
+            tracks = new ArrayList<>();
+            for (AudioEvent event : sequencer) {
+                if (event instanceof NoteEvent note) {
+                    notes.add(note);
+                } else if (event instanceof TrackEvent track) {
+                    tracks.add(track);
+                }
+            }
+        }
+    }
+
+    // Where a pattern is placed in a compiled sequence, and the MIDI track that holds it there
+    private static class Placement {
+        private final Pattern pattern;
+        private final ArrayList<Long> spans; // Start and end tick of each time the pattern plays, in pairs
+        private final Track track;
+
+        Placement(Pattern pattern, ArrayList<Long> spans, Track track) {
+            this.pattern = pattern;
+            this.spans = spans;
+            this.track = track;
+        }
+    }
+
+    // A MIDI sequencer and the sequence compiled for it
+    private class Player {
+        private final Sequencer midi;
+        private final Sequence sequence;
+        private final HashMap<SimpleSequencer, Placement> placements; // MIDI track of each placed pattern
+        private final Track endTrack;                                 // Holds the end marker
+        private MidiEvent endMarker;
+
+        Player(Sequencer midi) throws InvalidMidiDataException {
+            this.midi = midi;
+            sequence = new Sequence(Sequence.PPQ, MidiFiles.RESOLUTION);
+            placements = new HashMap<>();
+            endTrack = sequence.createTrack();
+        }
+
+        // Brings the compiled sequence up to date and plays it from the start
+        void play(SimpleSequencer sequencer) throws InvalidMidiDataException {
+            midi.stop();
+            compile(sequencer);
+            midi.setSequence(sequence); // Also resets the loop points
+            midi.setTickPosition(0);
+            applySettings(sequencer);
+            midi.start();
+        }
+
+        // Rebuilds the MIDI tracks of patterns that changed or moved, and drops unused ones
+        void compile(SimpleSequencer sequencer) throws InvalidMidiDataException {
+            // A sequence plays its own notes, and the tracks its track events start within their blocks
+            LinkedHashMap<SimpleSequencer, ArrayList<Long>> spans = new LinkedHashMap<>();
+            addSpans(sequencer, 0, Long.MAX_VALUE, spans, new ArrayList<>());
+
+            Iterator<Map.Entry<SimpleSequencer, Placement>> unused = placements.entrySet().iterator();
+            while (unused.hasNext()) {
+                Map.Entry<SimpleSequencer, Placement> entry = unused.next();
+                if (!spans.containsKey(entry.getKey())) {
+                    sequence.deleteTrack(entry.getValue().track);
+                    unused.remove();
+                }
+            }
+            for (Map.Entry<SimpleSequencer, ArrayList<Long>> entry : spans.entrySet()) {
+                Pattern pattern = pattern(entry.getKey());
+                Placement old = placements.get(entry.getKey());
+                if (old != null && old.pattern == pattern && old.spans.equals(entry.getValue())) {
+                    continue;
+                }
+                if (old != null) {
+                    sequence.deleteTrack(old.track);
+                }
+                placements.put(entry.getKey(), new Placement(pattern, entry.getValue(), place(pattern, entry.getValue())));
+            }
+
+            // The sequence must last its whole length for the loop to end there
+            long end = (long) sequencer.getLength() * MidiFiles.RESOLUTION;
+            if (endMarker == null || endMarker.getTick() != end) {
+                if (endMarker != null) {
+                    endTrack.remove(endMarker);
+                }
+                endMarker = new MidiEvent(new MetaMessage(END_MARKER, new byte[0], 0), end);
+                endTrack.add(endMarker);
+            }
+        }
+
+        // Adds where a sequence plays, from a start tick until an end tick, and where the tracks it starts play
+        private void addSpans(SimpleSequencer sequencer, long start, long end,
+                LinkedHashMap<SimpleSequencer, ArrayList<Long>> spans, ArrayList<SimpleSequencer> path) {
+            ArrayList<Long> here = spans.computeIfAbsent(sequencer, key -> new ArrayList<>());
+            here.add(start);
+            here.add(end);
+            path.add(sequencer);
+            for (TrackEvent track : pattern(sequencer).tracks) {
+                SimpleSequencer placed = track.getSequence();
+                long blockStart = start + (long) track.getTime() * MidiFiles.RESOLUTION;
+                long blockEnd = Math.min(end, blockStart + (long) track.getDuration() * MidiFiles.RESOLUTION);
+                if (blockStart >= blockEnd || path.contains(placed)) {
+                    continue; // Cut off before it starts, or a track that would start itself
+                }
+                // A looping track starts again at the end of each pass, until its block ends
+                long pass = (long) placed.getLength() * MidiFiles.RESOLUTION;
+                long passStart = blockStart;
+                do {
+                    addSpans(placed, passStart, blockEnd, spans, path);
+                    passStart += pass;
+                } while (placed.isLooping() && pass > 0 && passStart < blockEnd);
+            }
+            path.remove(path.size() - 1);
+        }
+
+        // Adds a MIDI track that plays a pattern in each span, cutting off the notes still sounding at its end
+        private Track place(Pattern pattern, ArrayList<Long> spans) throws InvalidMidiDataException {
+            ArrayList<MidiEvent> events = new ArrayList<>(pattern.notes.size() * spans.size());
+            for (int i = 0; i < spans.size(); i += 2) {
+                long start = spans.get(i);
+                long end = spans.get(i + 1);
+                for (NoteEvent note : pattern.notes) {
+                    long tick = start + (long) note.getTime() * MidiFiles.RESOLUTION;
+                    if (tick >= end) {
+                        break; // The later notes start after the span ends
+                    }
+                    long noteEnd = Math.min(end, tick + (long) note.getDuration() * MidiFiles.RESOLUTION);
+                    MidiFiles.addNoteUntil(events, note.getChannel(), note.getPitch(), tick, noteEnd);
+                }
+            }
+            events.sort(MidiFiles.TICK_ORDER); // Spans may overlap, and notes end in any order
+            Track track = sequence.createTrack();
+            for (MidiEvent event : events) {
+                track.add(event);
+            }
+            return track;
+        }
+
+        // Sets the tempo and loop of the MIDI sequencer from the sequence
+        void applySettings(SimpleSequencer sequencer) {
+            midi.setTempoInBPM((float) (sequencer.getSpeedFactor() * 60000)); // One tic is one beat
+            midi.setLoopStartPoint(0);
+            midi.setLoopEndPoint(Math.min(endMarker.getTick(), midi.getTickLength()));
+            midi.setLoopCount(sequencer.isLooping() ? Sequencer.LOOP_CONTINUOUSLY : 0);
+        }
+
+        void close() {
+            midi.stop();
+            midi.close();
+        }
+    }
+}
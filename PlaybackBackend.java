@@ -0,0 +1,55 @@
+package assign11;
+
+/**
+ * A PlaybackBackend plays the sequence of a panel. The panels only start, stop and update
+ * playback through their backend, so the engine that schedules the events can be swapped:
+ * TIMER is the SimpleSequencer's own Timer engine, and MidiPlayback plays through the JDK
+ * MIDI sequencer instead.
+ *
+ * A backend reads the length, tempo and loop setting from the sequencer it plays, and tells
+ * the playheads of the editors where each sequence is.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public interface PlaybackBackend {
+    /** Plays sequences with the Timer engine of SimpleSequencer. */
+    PlaybackBackend TIMER = new TimerPlayback();
+
+    /**
+     * Begins playing a sequence from the beginning.
+     *
+     * @param sequencer The sequence to play.
+     */
+    void play(SimpleSequencer sequencer);
+
+    /**
+     * Stops playing a sequence and turns off its notes.
+     *
+     * @param sequencer The sequence to stop.
+     */
+    void stop(SimpleSequencer sequencer);
+
+    /**
+     * Called after the tempo or loop setting of a sequence changed, so playback can follow.
+     *
+     * @param sequencer The sequence whose settings changed.
+     */
+    void settingsChanged(SimpleSequencer sequencer);
+
+    /**
+     * Gets whether a sequence is playing, on its own or as a track of a playing song.
+     *
+     * @param sequencer The sequence.
+     * @return true if it is playing.
+     */
+    boolean isPlaying(SimpleSequencer sequencer);
+
+    /**
+     * Gets how far a playing sequence is from where it last started, for its playhead.
+     *
+     * @param sequencer The sequence.
+     * @return The time in tics, or 0 if the sequence is not playing.
+     */
+    double getElapsedTime(SimpleSequencer sequencer);
+}
@@ -0,0 +1,192 @@
+package assign11;
+
+import java.awt.Color;
+import java.awt.DisplayMode;
+import java.awt.Graphics;
+import java.awt.GraphicsEnvironment;
+import java.awt.HeadlessException;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.Timer;
+
+/**
+ * The PlayheadAnimator class moves the playheads of the editors while their sequencers
+ * play. One Swing timer is the frame clock of every editor on screen. It ticks at the
+ * display's refresh rate while any of their sequencers is running, and only a few times a
+ * second otherwise to notice a start, so an idle window uses next to no CPU. Each frame
+ * repaints only the strips where a playhead was and where it is now, not the whole grid.
+ *
+ * An editor keeps a Playhead, adds it while the editor is displayable, and paints it last.
+ * An editor wider than its scroll pane is scrolled a page at a time to keep the playhead in
+ * sight while it plays.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class PlayheadAnimator implements ActionListener {
+    public static final int WIDTH = 5;                 // Width of a playhead in pixels
+    private static final int DEFAULT_FRAME_RATE = 60;  // Frames per second when the display does not say
+    private static final int IDLE_MILLIS = 200;        // Time between checks while nothing plays
+
+    private static PlayheadAnimator shared; // The animator of every editor, created when first needed
+
+    private final Timer timer;                 // The frame clock
+    private final int frameMillis;             // Time between frames while something plays
+    private final ArrayList<Playhead> playheads = new ArrayList<>(); // Playheads of displayable editors
+
+    /**
+     * The playhead of one editor: where it is drawn, in pixels, and the sequencer that
+     * decides where it should be, as told by the backend that plays it.
+     */
+    public static class Playhead {
+        private final JComponent view;
+        private final SimpleSequencer sequencer;
+        private PlaybackBackend playback; // Knows where the sequencer is while it plays
+        private int x; // Left edge of the playhead as last painted or requested
+
+        /**
+         * Creates a playhead at the start of a view.
+         *
+         * @param view      The editor the playhead is drawn on.
+         * @param sequencer The sequencer whose elapsed time the playhead shows.
+         */
+        public Playhead(JComponent view, SimpleSequencer sequencer) {
+            this.view = view;
+            this.sequencer = sequencer;
+            this.playback = PlaybackBackend.TIMER;
+        }
+
+        /**
+         * Follows the sequencer as played by a backend from now on.
+         *
+         * @param playback The backend that plays the sequencer.
+         */
+        public void setPlayback(PlaybackBackend playback) {
+            this.playback = playback;
+        }
+
+        /**
+         * Draws the playhead where the animator last put it. Call this at the end of the
+         * view's paintComponent.
+         *
+         * @param g The graphics of the view.
+         */
+        public void paint(Graphics g) {
+            g.setColor(Color.RED);
+            g.fillRect(x, 0, WIDTH, view.getHeight());
+        }
+
+        // Moves the playhead to the sequencer's elapsed time, repainting the strips it leaves and enters
+        private boolean update() {
+            boolean running = playback.isPlaying(sequencer);
+            int length = Math.max(1, sequencer.getLength());
+            int next = (int) ((int) playback.getElapsedTime(sequencer) * (double) view.getWidth() / length);
+            if (next != x) {
+                view.repaint(x, 0, WIDTH, view.getHeight());
+                x = next;
+                view.repaint(x, 0, WIDTH, view.getHeight());
+                follow(running);
+            }
+            return running;
+        }
+
+        // Turns the page of a scrolled view when a running playhead leaves the visible part
+        private void follow(boolean running) {
+            Rectangle visible = view.getVisibleRect();
+            if (running && view.getParent() instanceof JViewport
+                    && (x < visible.x || x + WIDTH > visible.x + visible.width)) {
+                view.scrollRectToVisible(new Rectangle(x, visible.y, visible.width, visible.height));
+            }
+        }
+    }
+
+    /**
+     * Gets the animator that every editor shares. Call this on the event dispatch thread.
+     *
+     * @return The shared animator.
+     */
+    public static PlayheadAnimator getShared() {
+        if (shared == null) {
+            shared = new PlayheadAnimator(frameRate());
+        }
+        return shared;
+    }
+
+    /**
+     * Creates an animator with its own frame clock.
+     *
+     * @param frameRate The most frames per second to draw while something plays.
+     */
+    public PlayheadAnimator(int frameRate) {
+        frameMillis = Math.max(1, 1000 / Math.max(1, frameRate));
+        timer = new Timer(IDLE_MILLIS, this);
+        timer.setCoalesce(true); // A late frame is dropped rather than queued behind the next
+    }
+
+    /**
+     * Starts animating a playhead. The frame clock runs while any playhead is added.
+     *
+     * @param playhead The playhead of a displayable editor.
+     */
+    public void add(Playhead playhead) {
+        if (!playheads.contains(playhead)) {
+            playheads.add(playhead);
+        }
+        if (!timer.isRunning()) {
+            timer.setDelay(IDLE_MILLIS);
+            timer.start();
+        }
+    }
+
+    /**
+     * Stops animating a playhead. The frame clock stops when no playhead is left.
+     *
+     * @param playhead The playhead of an editor that is no longer displayable.
+     */
+    public void remove(Playhead playhead) {
+        playheads.remove(playhead);
+        if (playheads.isEmpty()) {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Moves every playhead that is on screen, and sets the time until the next frame.
+     *
+     * @param e The tick of the frame clock.
+     */
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        boolean playing = false;
+        for (int i = 0; i < playheads.size(); i++) {
+            Playhead playhead = playheads.get(i);
+            if (playhead.view.isShowing()) {
+                playing |= playhead.update();
+            }
+        }
+        int delay = playing ? frameMillis : IDLE_MILLIS;
+        if (timer.getDelay() != delay) {
+            timer.setDelay(delay);
+            timer.setInitialDelay(delay);
+            timer.restart();
+        }
+    }
+
+    // Gets the refresh rate of the default screen, or 60 if it is unknown
+    private static int frameRate() {
+        try {
+            DisplayMode mode = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDisplayMode();
+            if (mode.getRefreshRate() != DisplayMode.REFRESH_RATE_UNKNOWN) {
+                return mode.getRefreshRate();
+            }
+        } catch (HeadlessException e) {
+            // No screen to match
+        }
+        return DEFAULT_FRAME_RATE;
+    }
+}
@@ -0,0 +1,48 @@
+package assign11;
+
+/**
+ * A SequenceListener is told about every change to the events of a SimpleSequencer. The
+ * editors listen to their sequencer and draw its own events, so a note exists only once,
+ * in the sequencer, however it was added or removed.
+ *
+ * A change of one event is told as that event, and an edit of many events, or a clear, as
+ * the events removed and added; a change of many at once, such as loading or adding a
+ * batch, is told as one change of the whole sequence. Either way a view hears of a change
+ * once, and rebuilds and repaints once rather than once per event. EditHistory takes the
+ * first kinds as edits that can be undone, and a change of the whole sequence as a load.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public interface SequenceListener {
+    /**
+     * Tells that an event was added to the sequence.
+     *
+     * @param event The added event.
+     */
+    void eventAdded(AudioEvent event);
+
+    /**
+     * Tells that an event was removed from the sequence.
+     *
+     * @param event The removed event, which is the one the sequence held.
+     */
+    void eventRemoved(AudioEvent event);
+
+    /**
+     * Tells that some events were removed and others added as one change. Unless
+     * overridden, this is told as a change of the whole sequence.
+     *
+     * @param removed The removed events, which are the ones the sequence held.
+     * @param added   The added events, sorted.
+     */
+    default void eventsReplaced(BetterDynamicArray<AudioEvent> removed, BetterDynamicArray<AudioEvent> added) {
+        sequenceChanged();
+    }
+
+    /**
+     * Tells that any number of events may have changed: the sequence was replaced or
+     * added to as a batch. Read the events of the sequencer again.
+     */
+    void sequenceChanged();
+}
@@ -0,0 +1,92 @@
+package assign11;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * A SequencerClock is the time source and scheduler that a SimpleSequencer plays on. The
+ * system clock plays in real time on timer threads; a VirtualClock plays in simulated time
+ * on the thread that advances it.
+ *
+ * Every sequencer that plays another through track events must use the same clock, so
+ * that the nested sequencer starts at the time of its track event.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public interface SequencerClock {
+    /**
+     * The real time clock, which schedules on a java.util.Timer per schedule.
+     */
+    SequencerClock SYSTEM = new SequencerClock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public Schedule newSchedule() {
+            return new Schedule() {
+                private Timer timer; // Created on first use, since it starts a thread
+
+                @Override
+                public void schedule(TimerTask task, long delayMillis) {
+                    if (timer == null) {
+                        timer = new Timer();
+                    }
+                    timer.schedule(task, Math.max(0, delayMillis));
+                }
+
+                @Override
+                public void cancel() {
+                    if (timer != null) {
+                        timer.cancel();
+                    }
+                }
+            };
+        }
+    };
+
+    /**
+     * A set of tasks scheduled on a clock, which can all be cancelled at once.
+     */
+    interface Schedule {
+        /**
+         * Runs a task once after a delay.
+         *
+         * @param task        The task to run.
+         * @param delayMillis The delay in milliseconds; a negative delay counts as 0.
+         */
+        void schedule(TimerTask task, long delayMillis);
+
+        /**
+         * Cancels every task of this schedule that has not run yet. The schedule cannot be
+         * used afterwards.
+         */
+        void cancel();
+    }
+
+    /**
+     * Gets the current time of the clock.
+     *
+     * @return The time in milliseconds.
+     */
+    long currentTimeMillis();
+
+    /**
+     * Creates an empty schedule on this clock.
+     *
+     * @return The new schedule.
+     */
+    Schedule newSchedule();
+
+    /**
+     * Tells the clock that a sequencer is starting or completing an event now. The system
+     * clock ignores it; a virtual clock can record it.
+     *
+     * @param event    The event.
+     * @param starting true if the event starts, false if it completes.
+     */
+    default void dispatched(AudioEvent event, boolean starting) {
+    }
+}
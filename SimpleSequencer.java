@@ -2,15 +2,18 @@ package assign11;
 
 
 
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
-import java.util.Timer;
 import java.util.TimerTask;
 
 /**
  * A Sequencer maintains a sequence of AudioEvents and schedules their
  * execution. Playback can be started, stopped, and set to loop. Playback speed
  * can be adjusted by setting the ratio of AudioEvent tics to milliseconds.
+ * Events are scheduled on a SequencerClock, which is the system clock unless
+ * another is set. Every change to the events is told to the sequence
+ * listeners.
  *
  * @author Eric Heisler
  * @version 11-7-2024
@@ -23,7 +26,11 @@ public class SimpleSequencer implements Iterable<AudioEvent> {
 	private double speedFactor;
 	private boolean running;
 	private boolean loopSequence;
-	private Timer timer;
+	private SequencerClock clock; // Time source that events are scheduled on
+	private SequencerClock.Schedule timer;
+	private int modificationCount; // Incremented by every change to the events
+	private BetterDynamicArray<SequenceListener> listeners; // Told about every change to the events
+	private static final int FEW_EVENTS = 16; // Replacements of up to this many events are made in place
 
 	/**
 	 * Creates an empty sequence of a given length in tics.
@@ -38,7 +45,30 @@ public class SimpleSequencer implements Iterable<AudioEvent> {
 		length = sequenceLength;
 		speedFactor = 1;
 		loopSequence = false;
-		timer = new Timer();
+		clock = SequencerClock.SYSTEM;
+		timer = clock.newSchedule();
+		modificationCount = 0;
+		listeners = new BetterDynamicArray<SequenceListener>();
+	}
+
+	/**
+	 * Adds a listener that is told about every change to the events.
+	 *
+	 * @param listener - to add
+	 */
+	public void addSequenceListener(SequenceListener listener) {
+
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes a listener added by addSequenceListener.
+	 *
+	 * @param listener - to remove
+	 */
+	public void removeSequenceListener(SequenceListener listener) {
+
+		listeners.remove(listener);
 	}
 
 	/**
@@ -51,6 +81,72 @@ public class SimpleSequencer implements Iterable<AudioEvent> {
 		return sequence.size();
 	}
 
+	/**
+	 * Gets a number that changes whenever events are added, removed, replaced or cleared.
+	 * Comparing it with an earlier value tells whether the events may have changed since.
+	 *
+	 * @return modification count
+	 */
+	public int getModificationCount() {
+
+		return modificationCount;
+	}
+
+	/**
+	 * Gets the number of tics per millisecond that playback runs at.
+	 *
+	 * @return tics per millisecond
+	 */
+	public double getSpeedFactor() {
+
+		return speedFactor;
+	}
+
+	/**
+	 * Gets whether the sequence is executing.
+	 *
+	 * @return true from start until the end of the sequence or stop
+	 */
+	public boolean isRunning() {
+
+		return running;
+	}
+
+	/**
+	 * Gets whether the sequence loops.
+	 *
+	 * @return true if the sequence starts again at its end
+	 */
+	public boolean isLooping() {
+
+		return loopSequence;
+	}
+
+	/**
+	 * Gets the clock that events are scheduled on.
+	 *
+	 * @return the clock
+	 */
+	public SequencerClock getClock() {
+
+		return clock;
+	}
+
+	/**
+	 * Sets the clock that events are scheduled on. Stops the sequence if executing.
+	 * Sequencers that play each other through track events need the same clock.
+	 *
+	 * @param newClock - the clock, such as SequencerClock.SYSTEM or a VirtualClock
+	 */
+	public void setClock(SequencerClock newClock) {
+
+		if (running)
+			stop();
+		timer.cancel();
+		clock = newClock;
+		timer = clock.newSchedule();
+	}
+
 	/**
 	 * Adds an event to the sequence. Re-sorts the sequence after adding.
 	 *
@@ -60,6 +156,9 @@ public class SimpleSequencer implements Iterable<AudioEvent> {
 
 		sequence.add(event);
 		sequence.sort();
+		modificationCount++;
+		for (int i = 0; i < listeners.size(); i++)
+			listeners.get(i).eventAdded(event);
 	}
 
 	/**
@@ -73,6 +172,8 @@ public class SimpleSequencer implements Iterable<AudioEvent> {
 			sequence.add(events.get(i));
 		}
 		sequence.sort();
+		modificationCount++;
+		fireSequenceChanged(); // One change for the batch
 	}
 
 	/**
@@ -83,6 +184,8 @@ public class SimpleSequencer implements Iterable<AudioEvent> {
 	public void updateSequence(BetterDynamicArray<AudioEvent> newSequence) {
 		sequence = newSequence;
 		sequence.sort();
+		modificationCount++;
+		fireSequenceChanged();
 	}
 
 	/**
@@ -94,21 +197,146 @@ public class SimpleSequencer implements Iterable<AudioEvent> {
 	 */
 	public void remove(AudioEvent event) {
 
+		int index = indexOf(event);
+		AudioEvent removed = index >= 0 ? sequence.get(index) : null;
+		if (index >= 0) {
+			sequence.remove(index); // The rest stays sorted, so no re-sort is needed
+			modificationCount++; // Only when something changed, so caches of the events stay valid
+		}
+		for (int i = 0; removed != null && i < listeners.size(); i++)
+			listeners.get(i).eventRemoved(removed);
+	}
+
+	/**
+	 * Removes some events and adds others as one change. The removed events
+	 * are filtered out and the added ones, sorted on their own, are merged
+	 * in, in one pass over the sequence; listeners are told once. A few
+	 * events, such as undoing a click changes, are instead found and put in
+	 * place by binary searches.
+	 *
+	 * @param removed - events to remove, found by the equals method
+	 * @param added - events to add
+	 */
+	public void replace(BetterDynamicArray<AudioEvent> removed, BetterDynamicArray<AudioEvent> added) {
+
+		HashSet<AudioEvent> removing = new HashSet<AudioEvent>();
+		for (int i = 0; i < removed.size(); i++)
+			removing.add(removed.get(i));
+		BetterDynamicArray<AudioEvent> adding = new BetterDynamicArray<AudioEvent>(Math.max(1, added.size()));
+		for (int i = 0; i < added.size(); i++)
+			adding.add(added.get(i));
+		adding.sort();
+		if (removed.size() + adding.size() <= FEW_EVENTS) {
+			replaceInPlace(removed, adding);
+			return;
+		}
+
+		// Merge what is kept with what is added; at equal times the kept events stay first, as a sort would keep them
+		BetterDynamicArray<AudioEvent> merged = new BetterDynamicArray<AudioEvent>(
+				Math.max(1, sequence.size() + adding.size()));
+		BetterDynamicArray<AudioEvent> gone = new BetterDynamicArray<AudioEvent>(Math.max(1, removed.size()));
+		int next = 0;
 		for (int i = 0; i < sequence.size(); i++) {
-			if (sequence.get(i).equals(event)) {
-				sequence.remove(i);
+			AudioEvent event = sequence.get(i);
+			if (removing.remove(event)) {
+				gone.add(event);
+				continue;
 			}
+			while (next < adding.size() && adding.get(next).compareTo(event) < 0)
+				merged.add(adding.get(next++));
+			merged.add(event);
 		}
-		sequence.sort();
+		while (next < adding.size())
+			merged.add(adding.get(next++));
+		sequence = merged;
+		modificationCount++;
+		for (int i = 0; i < listeners.size(); i++)
+			listeners.get(i).eventsReplaced(gone, adding);
+	}
+
+	/**
+	 * Removes and adds a few events without copying the sequence, then tells
+	 * the listeners as replace does.
+	 *
+	 * @param removed - events to remove, found by the equals method
+	 * @param adding - events to add, sorted
+	 */
+	private void replaceInPlace(BetterDynamicArray<AudioEvent> removed, BetterDynamicArray<AudioEvent> adding) {
+
+		BetterDynamicArray<AudioEvent> gone = new BetterDynamicArray<AudioEvent>(Math.max(1, removed.size()));
+		for (int i = 0; i < removed.size(); i++) {
+			int index = indexOf(removed.get(i));
+			if (index >= 0) {
+				gone.add(sequence.get(index));
+				sequence.remove(index);
+			}
+		}
+		for (int i = 0; i < adding.size(); i++) {
+			// After the events it is equal to, as the merge keeps them
+			AudioEvent event = adding.get(i);
+			int low = 0;
+			int high = sequence.size();
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (sequence.get(middle).compareTo(event) <= 0)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			sequence.insert(low, event);
+		}
+		modificationCount++;
+		for (int i = 0; i < listeners.size(); i++)
+			listeners.get(i).eventsReplaced(gone, adding);
+	}
+
+	/**
+	 * Finds an event by a binary search on its time, then among the events
+	 * at that time. The sequence is sorted by time, so this does not get
+	 * slower as the sequence grows.
+	 *
+	 * @param event - to find, by the equals method
+	 * @return index of the event, or -1 if it is not in the sequence
+	 */
+	private int indexOf(AudioEvent event) {
+
+		int low = 0;
+		int high = sequence.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sequence.get(middle).getTime() < event.getTime())
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		for (int i = low; i < sequence.size() && sequence.get(i).getTime() == event.getTime(); i++) {
+			if (sequence.get(i).equals(event))
+				return i;
+		}
+		return -1;
 	}
 
 	/**
 	 * Removes all events from the sequence. Note that this does not cancel
-	 * currently scheduled events.
+	 * currently scheduled events. Listeners are told of the events removed,
+	 * as for an edit, so a clear can be undone.
 	 */
 	public void clear() {
 
-		sequence.clear();
+		BetterDynamicArray<AudioEvent> gone = sequence;
+		sequence = new BetterDynamicArray<AudioEvent>();
+		modificationCount++;
+		for (int i = 0; i < listeners.size(); i++)
+			listeners.get(i).eventsReplaced(gone, new BetterDynamicArray<AudioEvent>());
+	}
+
+	/**
+	 * Tells every listener that the events may all have changed.
+	 */
+	private void fireSequenceChanged() {
+
+		for (int i = 0; i < listeners.size(); i++)
+			listeners.get(i).sequenceChanged();
 	}
 
 	///////////////////////////////////////////////////////////////////////
@@ -165,7 +393,7 @@ public class SimpleSequencer implements Iterable<AudioEvent> {
 	 */
 	public double getElapsedTime() {
 		if (running)
-			return millisToTics(System.currentTimeMillis() - startTime);
+			return millisToTics(clock.currentTimeMillis() - startTime);
 		return 0.0;
 	}
 
@@ -173,7 +401,7 @@ public class SimpleSequencer implements Iterable<AudioEvent> {
 	 * Begins executing the sequence from the beginning.
 	 */
 	public void start() {
-		startTime = System.currentTimeMillis();
+		startTime = clock.currentTimeMillis();
 		running = true;
 		for (int i = 0; i < sequence.size(); i++) {
 			AudioEvent event = sequence.get(i);
@@ -196,7 +424,7 @@ public class SimpleSequencer implements Iterable<AudioEvent> {
 		startTime = -1;
 		running = false;
 		timer.cancel();
-		timer = new Timer();
+		timer = clock.newSchedule();
 		for (int i = 0; i < sequence.size(); i++) {
 			sequence.get(i).cancel();
 		}
@@ -255,6 +483,7 @@ public class SimpleSequencer implements Iterable<AudioEvent> {
 		 */
 		@Override
 		public void run() {
+			clock.dispatched(event, isStarting);
 			if (isStarting)
 				event.execute();
 			else
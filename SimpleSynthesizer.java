@@ -6,6 +6,7 @@ import javax.sound.midi.Instrument;
 import javax.sound.midi.MidiChannel;
 import javax.sound.midi.MidiSystem;
 import javax.sound.midi.MidiUnavailableException;
+import javax.sound.midi.Receiver;
 import javax.sound.midi.Synthesizer;
 
 /**
@@ -237,6 +238,23 @@ public class SimpleSynthesizer {
 		}
 	}
 	
+	/**
+	 * Gets a receiver that plays midi messages on this synthesizer, so that
+	 * another midi device such as a sequencer can play through it.
+	 * 
+	 * @return a receiver, or null if the midi system is not available
+	 */
+	public Receiver getReceiver() {
+		if(synth == null)
+			return null;
+		try {
+			return synth.getReceiver();
+		} catch (MidiUnavailableException e) {
+			System.out.println("Couldn't get a receiver from the midi synthesizer.");
+			return null;
+		}
+	}
+	
 	/**
 	 * Turns off all notes that are playing on all channels.
 	 */
@@ -0,0 +1,182 @@
+package assign11;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The SongBatch class converts every song file in a folder without opening a window: to a
+ * WAV rendering, a MIDI file, or another song format. Songs are converted by a fixed number
+ * of worker threads. The folder is listed while the workers run, and the work queue is
+ * bounded, so a folder with thousands of songs never holds more than a few of them in
+ * memory. Each finished file is printed with its throughput.
+ *
+ * Usage: SoundSketcher --batch folder target [output folder] [threads]
+ * where target is wav, mid, or a song format extension such as songb.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class SongBatch {
+    private static final String USAGE = "Usage: SoundSketcher --batch folder (wav | mid | song | songb | song.gz | songb.gz)"
+            + " [output folder] [threads]";
+
+    private final String target;          // Extension of the files to write
+    private final SongFormat format;      // Song format to write, or null for WAV and MIDI
+    private final File output;            // Folder to write the files to
+    private final AtomicInteger converted = new AtomicInteger(); // Songs written so far
+    private final AtomicInteger failed = new AtomicInteger();    // Songs that could not be converted
+
+    /**
+     * Converts the song files of a folder, then exits with status 1 if any song failed.
+     *
+     * @param args The folder, the target, and optionally the output folder and thread count.
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 2 || args.length > 4) {
+            System.out.println(USAGE);
+            System.exit(2);
+        }
+        File folder = new File(args[0]);
+        File output = args.length > 2 ? new File(args[2]) : folder;
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length > 3) {
+            try {
+                threads = Integer.parseInt(args[3]);
+            } catch (NumberFormatException e) {
+                threads = 0;
+            }
+        }
+        SongFormat format = formatFor(args[1]);
+        if (format == null && !args[1].equals(WavFiles.EXTENSION) && !args[1].equals(MidiFiles.EXTENSION)
+                || threads < 1) {
+            System.out.println(USAGE);
+            System.exit(2);
+        }
+
+        SongBatch batch = new SongBatch(args[1], format, output);
+        try {
+            batch.run(folder.toPath(), threads);
+        } catch (IOException e) {
+            System.out.println("Error converting songs: " + e.getMessage());
+            System.exit(1);
+        }
+        System.exit(batch.failed.get() > 0 ? 1 : 0);
+    }
+
+    /**
+     * Creates a batch that writes one kind of file.
+     *
+     * @param target The extension of the files to write: wav, mid, or a song format's.
+     * @param format The song format to write, or null for WAV and MIDI.
+     * @param output The folder to write the files to.
+     */
+    public SongBatch(String target, SongFormat format, File output) {
+        this.target = target;
+        this.format = format;
+        this.output = output;
+    }
+
+    /**
+     * Converts every song file in a folder and prints a line for each.
+     *
+     * @param folder  The folder to convert the songs of; subfolders are not searched.
+     * @param threads The number of songs converted at once.
+     * @throws IOException if the folder cannot be listed or the output folder created.
+     */
+    public void run(Path folder, int threads) throws IOException {
+        Files.createDirectories(output.toPath());
+        // A full queue makes the listing thread convert a song itself, which holds back the listing
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        long start = System.nanoTime();
+        int found = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, this::isSource)) {
+            for (Path file : files) {
+                found++;
+                workers.execute(() -> convert(file.toFile()));
+            }
+        } finally {
+            workers.shutdown();
+            try {
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Converted %d of %d songs in %.1f s (%.1f songs/s)%n", converted.get(), found, seconds,
+                converted.get() / Math.max(seconds, 1e-9));
+    }
+
+    // Whether a file is a song to convert; files already in the target format are skipped,
+    // since they may be this batch's own output
+    private boolean isSource(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        String name = file.getFileName().toString().toLowerCase();
+        for (SongFormat songFormat : SongFormat.values()) {
+            if (name.endsWith("." + songFormat.getExtension())) {
+                return SongFormat.forFile(file.toFile()) != format;
+            }
+        }
+        return false;
+    }
+
+    // Reads one song, writes it as the target, and prints how fast that went
+    private void convert(File file) {
+        long start = System.nanoTime();
+        try {
+            SongData song = SongFiles.readSong(file);
+            File result = new File(output, baseName(file) + "." + target);
+            if (format != null) {
+                SongFiles.writeSong(result, format, song);
+            } else if (target.equals(WavFiles.EXTENSION)) {
+                WavFiles.write(song, result, SongProgress.NONE);
+            } else {
+                MidiFiles.write(song, result, SongProgress.NONE);
+            }
+            double seconds = Math.max((System.nanoTime() - start) / 1e9, 1e-9);
+            int events = countEvents(song);
+            System.out.printf("%s -> %s: %d events in %.3f s (%.0f events/s, %.2f MB/s read, %.2f MB/s written)%n",
+                    file.getName(), result.getName(), events, seconds, events / seconds,
+                    file.length() / 1e6 / seconds, result.length() / 1e6 / seconds);
+            converted.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            System.out.println(file.getName() + " failed: " + e.getMessage());
+            failed.incrementAndGet();
+        }
+    }
+
+    // Gets the song format with an extension, or null if none has it
+    private static SongFormat formatFor(String extension) {
+        for (SongFormat songFormat : SongFormat.values()) {
+            if (songFormat.getExtension().equals(extension)) {
+                return songFormat;
+            }
+        }
+        return null;
+    }
+
+    // Gets the name of a song file without its song format extension
+    private static String baseName(File file) {
+        String name = file.getName();
+        return name.substring(0, name.length() - SongFormat.forFile(file).getExtension().length() - 1);
+    }
+
+    private static int countEvents(SongData song) {
+        int events = song.getEvents().size();
+        for (int i = 0; i < song.getTracks().size(); i++) {
+            events += song.getTracks().get(i).getEvents().size();
+        }
+        return events;
+    }
+}
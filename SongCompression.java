@@ -0,0 +1,220 @@
+package assign11;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The SongCompression class reads and writes gzip compressed song files as a pipeline:
+ * a helper thread inflates or deflates while the calling thread parses or encodes, and the
+ * two are connected by a pipe. Compressed files are recognized by the gzip magic bytes, so
+ * the song format inside can be either text or binary.
+ *
+ * An error on the helper thread is passed on to the calling thread when it next reads,
+ * or when it closes the channel it wrote to.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class SongCompression {
+    private static final int BUFFER_SIZE = 1 << 16; // 64 KiB per transfer through the pipe
+
+    /**
+     * Checks whether a file starts with the gzip magic bytes.
+     *
+     * @param start The first bytes of a file, from position to limit.
+     * @return true if the file is gzip compressed.
+     */
+    public static boolean isCompressed(ByteBuffer start) {
+        return start.remaining() >= 2 && start.get(start.position()) == (byte) 0x1f
+                && start.get(start.position() + 1) == (byte) 0x8b;
+    }
+
+    /**
+     * Starts inflating a compressed file on a helper thread.
+     *
+     * @param file The compressed file.
+     * @return A channel that reads the inflated bytes. Closing it stops the helper thread.
+     * @throws IOException if the pipe cannot be created.
+     */
+    public static ReadableByteChannel decompress(Path file) throws IOException {
+        Pipe pipe = Pipe.open();
+        PipeSource source = new PipeSource(pipe.source());
+        Thread inflater = new Thread(() -> {
+            WritableByteChannel sink = pipe.sink();
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+                byte[] bytes = new byte[BUFFER_SIZE];
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                int read;
+                while ((read = in.read(bytes)) >= 0) {
+                    buffer.clear().limit(read);
+                    while (buffer.hasRemaining()) {
+                        sink.write(buffer);
+                    }
+                }
+            } catch (IOException e) {
+                source.failure = e; // Set before the pipe ends, so the reader sees it there
+            } finally {
+                closeQuietly(sink);
+            }
+        }, "Inflate " + file.getFileName());
+        inflater.setDaemon(true);
+        inflater.start();
+        return source;
+    }
+
+    /**
+     * Starts deflating into a channel on a helper thread.
+     *
+     * @param target The channel that receives the compressed bytes; it is not closed.
+     * @return A channel to write the uncompressed bytes to. Closing it waits until every
+     *         compressed byte is written to the target.
+     * @throws IOException if the pipe cannot be created.
+     */
+    public static WritableByteChannel compress(WritableByteChannel target) throws IOException {
+        Pipe pipe = Pipe.open();
+        PipeSink sink = new PipeSink(pipe.sink());
+        sink.deflater = new Thread(() -> {
+            ReadableByteChannel source = pipe.source();
+            try (OutputStream out = new GZIPOutputStream(new NonClosingStream(Channels.newOutputStream(target)),
+                    BUFFER_SIZE)) {
+                byte[] bytes = new byte[BUFFER_SIZE];
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (source.read(buffer.clear()) >= 0) {
+                    out.write(bytes, 0, buffer.position());
+                }
+            } catch (IOException e) {
+                sink.failure = e; // Set before the pipe closes, so the writer sees it there
+            } finally {
+                closeQuietly(source); // Makes further writes fail instead of block
+            }
+        }, "Deflate song");
+        sink.deflater.setDaemon(true);
+        sink.deflater.start();
+        return sink;
+    }
+
+    /**
+     * Reads everything from a channel into one buffer.
+     *
+     * @param channel The channel to read until its end.
+     * @return A buffer holding the bytes, from position to limit.
+     * @throws IOException if the channel cannot be read.
+     */
+    public static ByteBuffer readAll(ReadableByteChannel channel) throws IOException {
+        ByteBuffer contents = ByteBuffer.allocate(BUFFER_SIZE);
+        while (channel.read(contents) >= 0) {
+            if (!contents.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(contents.capacity() * 2);
+                contents.flip();
+                larger.put(contents);
+                contents = larger;
+            }
+        }
+        return contents.flip();
+    }
+
+    private static void closeQuietly(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing more can be done with a pipe end that does not close
+        }
+    }
+
+    // Read end of a decompression pipe; reports a failure of the inflating thread
+    private static class PipeSource implements ReadableByteChannel {
+        private final ReadableByteChannel source;
+        private volatile IOException failure;
+
+        PipeSource(ReadableByteChannel source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read(ByteBuffer destination) throws IOException {
+            int read = source.read(destination);
+            if (read < 0 && failure != null) {
+                throw new IOException("Could not decompress song file", failure);
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return source.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            source.close(); // The inflating thread then fails on its next write and stops
+        }
+    }
+
+    // Write end of a compression pipe; closing it finishes the compressed stream
+    private static class PipeSink implements WritableByteChannel {
+        private final WritableByteChannel sink;
+        private Thread deflater;
+        private volatile IOException failure;
+
+        PipeSink(WritableByteChannel sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            try {
+                return sink.write(source);
+            } catch (IOException e) {
+                throw failure != null ? new IOException("Could not compress song file", failure) : e;
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return sink.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            sink.close();
+            try {
+                deflater.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while compressing song file");
+            }
+            if (failure != null) {
+                throw new IOException("Could not compress song file", failure);
+            }
+        }
+    }
+
+    // Lets the gzip stream be closed to finish it, without closing the file channel under it
+    private static class NonClosingStream extends FilterOutputStream {
+        NonClosingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
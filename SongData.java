@@ -0,0 +1,98 @@
+package assign11;
+
+/**
+ * The SongData class holds everything a song file stores: the tempo, the tracks,
+ * and the length and events of the song block. It is the form that SongFiles reads
+ * and writes, and it has no sequencers or Swing components.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class SongData {
+    private int tempo;                           // Beats per minute
+    private BetterDynamicArray<TrackData> tracks; // Tracks in track number order
+    private int length;                          // Length of the song block in beats
+    private EventTable events;                   // Events of the song block
+
+    /**
+     * Creates the data for a song.
+     *
+     * @param tempo  The tempo in beats per minute.
+     * @param tracks The tracks of the song.
+     * @param length The length of the song block.
+     * @param events The events of the song block.
+     */
+    public SongData(int tempo, BetterDynamicArray<TrackData> tracks, int length, EventTable events) {
+        this.tempo = tempo;
+        this.tracks = tracks;
+        this.length = length;
+        this.events = events;
+    }
+
+    /**
+     * Gets the tempo.
+     *
+     * @return The tempo in beats per minute.
+     */
+    public int getTempo() {
+        return tempo;
+    }
+
+    /**
+     * Sets the tempo.
+     *
+     * @param tempo The tempo in beats per minute.
+     */
+    public void setTempo(int tempo) {
+        this.tempo = tempo;
+    }
+
+    /**
+     * Sets the length of the song block.
+     *
+     * @param length The length in beats.
+     */
+    public void setLength(int length) {
+        this.length = length;
+    }
+
+    /**
+     * Gets the tracks.
+     *
+     * @return The tracks in track number order.
+     */
+    public BetterDynamicArray<TrackData> getTracks() {
+        return tracks;
+    }
+
+    /**
+     * Gets the length of the song block.
+     *
+     * @return The length in beats.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the events of the song block.
+     *
+     * @return The events.
+     */
+    public EventTable getEvents() {
+        return events;
+    }
+
+    /**
+     * Counts the events in the song block and all tracks.
+     *
+     * @return The total number of events.
+     */
+    public int getEventCount() {
+        int count = events.size();
+        for (int i = 0; i < tracks.size(); i++) {
+            count += tracks.get(i).getEventCount();
+        }
+        return count;
+    }
+}
@@ -6,41 +6,44 @@ package assign11;
 
 
 
-import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.image.BufferedImage;
 
-public class SongEditor extends GridCanvas {
+public class SongEditor extends GridCanvas<TrackEvent> implements SequenceListener {
+    private SongModel model;  // The song this editor shows and edits
     private SimpleSequencer simpleSequencer;  // Sequencer for handling the timing of events
-    private BetterDynamicArray<TrackPanel> trackPanels;  // List of TrackPanels representing each track
     private int width;  // Width of the grid canvas
     private int height;  // Height of the grid canvas
     private int currentTrack;  // Index of the currently selected track
+    private EditListener editListener;  // Told about every track event the user adds or removes, or null
+    private PlayheadAnimator.Playhead playhead;  // Shows the elapsed time of the song block
+    private int rowCount;  // Rows of the grid, a row per track
+    private int shownModificationCount;  // Modification count of the sequencer when the grid last matched it
+    private TrackThumbnails thumbnails;  // A piano roll image of each track, drawn in the blocks that play it
 
-    public SongEditor(int width, int height) {
-        super(width, height, 1, 4, 10, 1); // Initial grid size (adjustable as needed)
+    public SongEditor(int width, int height, SongModel model) {
+        super(width, height, 1, model.getLength(), 10, 1); // Initial grid size (adjustable as needed)
         this.width = width;
         this.height = height;
-        this.trackPanels = new BetterDynamicArray<>();  // Initialize the track panel list
+        this.model = model;
         this.currentTrack = 0;  // Default to the first track
         setPreferredSize(new Dimension(width, height));  // Set the preferred size for the component
-        // Initialize SimpleSequencer with a default length
-        this.simpleSequencer = new SimpleSequencer(4);
+        this.simpleSequencer = model.getSequencer();
+        this.playhead = new PlayheadAnimator.Playhead(this, simpleSequencer);
+        this.thumbnails = new TrackThumbnails(this::repaint);  // Repaint once a new image is ready
 
         // Add mouse listeners for interaction (detecting mouse events on the grid)
         addMouseListener(this);
         addMouseMotionListener(this);
 
-        // Ensure we don't divide by zero by initializing the grid with at least one track
-        if (trackPanels.size() == 0) {
-            // Add a temporary TrackPanel until it is properly initialized
-            trackPanels.add(new TrackPanel(this.width, this.height, 0, new SimpleSynthesizer()));
-        }
+        // Show the song block now; it follows the sequencer's changes while the editor is displayable
+        showEvents();
     }
 
     // Set the length of the sequencer and adjust the grid columns accordingly
     public void setLength(int length) {
-        simpleSequencer.setLength(length);
+        model.setLength(length);
         setColumns(length);  // Adjust grid columns based on length
     }
 
@@ -54,49 +57,152 @@ public class SongEditor extends GridCanvas {
         return simpleSequencer;
     }
 
-    // Override the clear method to clear the grid and stop the sequencer
+    // Override the clear method to clear the model, which also clears the grid
     @Override
     public void clear() {
-        super.clear();  // Clear the grid canvas
-        simpleSequencer.stop();  // Stop the sequencer
-        simpleSequencer.clear();  // Clear events from the sequencer
+        model.clear();
     }
 
-    // Set the new events in the sequencer and update the grid
+    // Set the new events in the model, which also updates the grid
     public void setEvents(BetterDynamicArray<AudioEvent> newEvents) {
-        clear();  // Clear existing events in the grid and sequencer
+        model.setEvents(newEvents);
+    }
+
+    // Rebuild the grid from the song block events in the model
+    private void showEvents() {
+        super.clear();  // Clear existing cells in the grid
+        setColumns(simpleSequencer.getLength());  // Match the grid to the song length
         // Iterate over the events and add corresponding TrackEvents to the grid
-        for (int i = 0; i < newEvents.size(); i++) {
-            if (newEvents.get(i) instanceof TrackEvent trackEvent) {
-                // Add TrackEvent with track number (row) as channel
-                addCell(trackEvent.getChannel(), trackEvent.getTime(), 1, trackEvent.getDuration());
+        for (AudioEvent event : simpleSequencer) {
+            if (event instanceof TrackEvent trackEvent) {
+                addCell(trackEvent);  // Add TrackEvent to the grid
             }
         }
-        simpleSequencer.updateSequence(newEvents);  // Update the sequencer with the new events
+        shownModificationCount = simpleSequencer.getModificationCount();
+    }
+
+    // A TrackEvent is shown with its track number (channel) as row, from its start time
+    @Override
+    protected int getCellRow(TrackEvent trackEvent) {
+        return trackEvent.getChannel();
+    }
+
+    @Override
+    protected int getCellColumn(TrackEvent trackEvent) {
+        return trackEvent.getTime();
+    }
+
+    // A TrackEvent covers a column per beat it plays its track for
+    @Override
+    protected int getCellWidth(TrackEvent trackEvent) {
+        return trackEvent.getDuration();
+    }
+
+    // Draw a TrackEvent as a block with a thumbnail of its track's notes, one pass of the track from its left side
+    @Override
+    protected void paintCell(Graphics g, TrackEvent trackEvent, int x, int y, int width, int height) {
+        super.paintCell(g, trackEvent, x, y, width, height);
+        if (trackEvent.getChannel() >= model.getTrackCount() || trackEvent.getDuration() <= 0 || height <= 2) {
+            return;  // No track to show
+        }
+        TrackModel track = model.getTrack(trackEvent.getChannel());
+        BufferedImage thumbnail = thumbnails.get(track);
+        if (thumbnail != null) {
+            // The block shows as much of the track as it plays, at the scale of the grid
+            int shown = Math.min(trackEvent.getDuration(), Math.max(1, track.getLength()));
+            int shownWidth = (int) ((long) width * shown / trackEvent.getDuration());
+            int shownSource = (int) ((long) thumbnail.getWidth() * shown / Math.max(1, track.getLength()));
+            g.drawImage(thumbnail, x, y + 1, x + shownWidth, y + height - 1, 0, 0, shownSource, thumbnail.getHeight(),
+                    null);
+        }
     }
 
-    // Set the list of TrackPanels in the SongEditor
-    public void setTrackList(BetterDynamicArray<TrackPanel> trackList) {
-        this.trackPanels = trackList;
+    // Show a TrackEvent added to the sequencer
+    @Override
+    public void eventAdded(AudioEvent event) {
+        if (event instanceof TrackEvent trackEvent) {
+            addCell(trackEvent);
+        }
+        shownModificationCount = simpleSequencer.getModificationCount();
+    }
+
+    // Stop showing a TrackEvent removed from the sequencer
+    @Override
+    public void eventRemoved(AudioEvent event) {
+        if (event instanceof TrackEvent trackEvent) {
+            removeCell(trackEvent);
+        }
+        shownModificationCount = simpleSequencer.getModificationCount();
+    }
+
+    // Show the track events of an edit of many at once, such as a clear or an undo, changing only their columns
+    @Override
+    public void eventsReplaced(BetterDynamicArray<AudioEvent> removed, BetterDynamicArray<AudioEvent> added) {
+        BetterDynamicArray<TrackEvent> trackEvents = new BetterDynamicArray<>(Math.max(1, removed.size()));
+        for (int i = 0; i < removed.size(); i++) {
+            if (removed.get(i) instanceof TrackEvent trackEvent) {
+                trackEvents.add(trackEvent);
+            }
+        }
+        removeCells(trackEvents);
+        for (int i = 0; i < added.size(); i++) {
+            if (added.get(i) instanceof TrackEvent trackEvent) {
+                addCell(trackEvent);
+            }
+        }
+        shownModificationCount = simpleSequencer.getModificationCount();
+    }
+
+    // Show the song block again after it was replaced or added to as a batch
+    @Override
+    public void sequenceChanged() {
+        showEvents();
+    }
+
+    // Set the listener that is told about every track event the user adds or removes (null for none)
+    public void setEditListener(EditListener editListener) {
+        this.editListener = editListener;
     }
 
     // Override paintComponent to draw the grid and the time indicator
     @Override
     public void paintComponent(Graphics g) {
-        setRows(trackPanels.size());  // Set the number of rows based on the number of track panels
+        if (rowCount != Math.max(1, model.getTrackCount())) {
+            rowCount = Math.max(1, model.getTrackCount());  // A row per track, and never zero rows to divide by
+            setRows(rowCount);
+        }
         width = getWidth();  // Update the width of the component
         height = getHeight();  // Update the height of the component
         super.paintComponent(g);  // Call the superclass method to paint the grid
+        playhead.paint(g);  // Draw the time indicator where the animator last moved it
+    }
 
-        // Draw the time indicator (same as in TrackEditor)
-        int elapsedTime = (int) simpleSequencer.getElapsedTime();  // Get the elapsed time from the sequencer
-        int xPosition = (int)(elapsedTime * (double) width / simpleSequencer.getLength());  // Calculate x position for the indicator
-        g.setColor(Color.RED);  // Set the color for the time indicator
-        g.fillRect(xPosition, 0, 5, height);
+    // Follow the sequencer and animate the time indicator while the editor can be shown
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (shownModificationCount != simpleSequencer.getModificationCount()) {
+            showEvents();  // Changed while the editor was not listening
+        }
+        simpleSequencer.addSequenceListener(this);
+        PlayheadAnimator.getShared().add(playhead);
+    }
 
-        // Draw the vertical time indicator
+    // Stop following once the editor can no longer be shown, so the sequencer does not keep it
+    @Override
+    public void removeNotify() {
+        PlayheadAnimator.getShared().remove(playhead);
+        simpleSequencer.removeSequenceListener(this);
+        super.removeNotify();
+    }
 
-        repaint();  // Continuously repaint for real-time updates
+    /**
+     * Moves the time indicator with the sequencer as played by a backend from now on.
+     *
+     * @param playback The backend that plays the sequencer.
+     */
+    public void setPlayback(PlaybackBackend playback) {
+        playhead.setPlayback(playback);
     }
 
     // Handle mouse press on a grid cell (start of interaction)
@@ -104,7 +210,9 @@ public class SongEditor extends GridCanvas {
     public void onCellPressed(int row, int col, int rowSpan, int colSpan) {
         currentTrack = row;  // Set current track based on row
         // Set the restrictions for the track's length based on its sequencer
-        setRestrictions(1, trackPanels.get(currentTrack).getSequencer().getLength());
+        if (currentTrack < model.getTrackCount()) {
+            setRestrictions(1, model.getTrack(currentTrack).getLength());
+        }
     }
 
     // Handle mouse drag on a grid cell (move interaction)
@@ -113,30 +221,36 @@ public class SongEditor extends GridCanvas {
         if (row != currentTrack) {
             currentTrack = row;  // Update the current track when dragged to a different row
             // Update the restrictions for the new track
-            setRestrictions(1, trackPanels.get(currentTrack).getSequencer().getLength());
+            if (currentTrack < model.getTrackCount()) {
+                setRestrictions(1, model.getTrack(currentTrack).getLength());
+            }
         }
     }
 
     // Handle mouse release on a grid cell (end of interaction)
     @Override
     public void onCellReleased(int row, int col, int rowSpan, int colSpan) {
-        if (colSpan > 0) {  // Ensure valid note duration
+        if (colSpan > 0 && currentTrack < model.getTrackCount()) {  // Ensure valid duration and track
             // Create a new TrackEvent and add it to the sequencer
             TrackEvent trackEvent = new TrackEvent(col, "TrackEvent", currentTrack, colSpan,
-                    trackPanels.get(currentTrack).getSequencer());
-            simpleSequencer.add(trackEvent);  // Add TrackEvent to sequencer
+                    model.getTrack(currentTrack).getSequencer());
+            simpleSequencer.add(trackEvent);  // Add TrackEvent to sequencer, which shows it
+            if (editListener != null) {
+                editListener.eventAdded(EditListener.SONG_BLOCK, trackEvent);  // Record the edit
+            }
         }
     }
 
-    // Handle removal of a cell (remove corresponding event)
+    // Handle removal of the cells at a position (remove corresponding events)
     @Override
     public void onCellRemoved(int row, int col) {
-        // Iterate over the sequencer's events to find and remove matching TrackEvent
-        for (AudioEvent event : simpleSequencer) {
-            if (event instanceof TrackEvent trackEvent && trackEvent.getChannel() == row
-                    && trackEvent.getTime() == col) {
-                simpleSequencer.remove(event);  // Remove matching TrackEvent from sequencer
-                break;
+        // Look up the TrackEvents of the cells by their track and time
+        BetterDynamicArray<TrackEvent> trackEvents = getCellsAt(row, col);
+        for (int i = 0; i < trackEvents.size(); i++) {
+            TrackEvent trackEvent = trackEvents.get(i);
+            simpleSequencer.remove(trackEvent);  // Remove matching TrackEvent from sequencer, which hides it
+            if (editListener != null) {
+                editListener.eventRemoved(EditListener.SONG_BLOCK, trackEvent);  // Record the edit
             }
         }
     }
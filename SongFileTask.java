@@ -0,0 +1,126 @@
+package assign11;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import javax.swing.SwingWorker;
+
+/**
+ * The SongFileTask class reads or writes a song file on a background thread, so the
+ * window stays responsive while a large song is parsed or encoded.
+ *
+ * The task reports its progress from 0 to 100 through the "progress" property, and can be
+ * cancelled with cancel(false); the file operation stops at its next progress report.
+ * When the task succeeds, its callback runs once on the Event Dispatch Thread with the song,
+ * which is the only point where a task touches the panels.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class SongFileTask extends SwingWorker<SongData, Void> {
+
+    /**
+     * The work a task does in the background.
+     */
+    @FunctionalInterface
+    public interface Job {
+        /**
+         * Does the work.
+         *
+         * @param progress Told how far the work has come; throws once the task is cancelled.
+         * @return The song that was read or written.
+         * @throws IOException if the work failed or was cancelled.
+         */
+        SongData run(SongProgress progress) throws IOException;
+    }
+
+    private final String description;        // What the task does, for messages
+    private final Job job;                   // Runs in the background
+    private final Consumer<SongData> onDone; // Runs on the Event Dispatch Thread after success
+    private final Runnable onFailed;         // Runs on the Event Dispatch Thread after failure or cancellation
+
+    /**
+     * Creates a task. Call execute to start it.
+     *
+     * @param description What the task does, such as "Loading song.songb".
+     * @param job         The work to do in the background.
+     * @param onDone      Given the song on the Event Dispatch Thread if the work succeeded.
+     */
+    public SongFileTask(String description, Job job, Consumer<SongData> onDone) {
+        this(description, job, onDone, () -> { });
+    }
+
+    /**
+     * Creates a task that also cleans up when it does not succeed. Call execute to start it.
+     *
+     * @param description What the task does, such as "Loading song.songb".
+     * @param job         The work to do in the background.
+     * @param onDone      Given the song on the Event Dispatch Thread if the work succeeded.
+     * @param onFailed    Run on the Event Dispatch Thread if the work failed or was cancelled.
+     */
+    public SongFileTask(String description, Job job, Consumer<SongData> onDone, Runnable onFailed) {
+        this.description = description;
+        this.job = job;
+        this.onDone = onDone;
+        this.onFailed = onFailed;
+    }
+
+    /**
+     * Creates a task that writes a song file. The song must have been captured from the
+     * song model beforehand, on the Event Dispatch Thread.
+     *
+     * @param file    The file to write.
+     * @param format  The format to write.
+     * @param song    The song to write.
+     * @param onSaved  Given the song on the Event Dispatch Thread once the file is replaced.
+     * @param onFailed Run on the Event Dispatch Thread if the file was left as it was.
+     * @return The task, not started yet.
+     */
+    public static SongFileTask save(File file, SongFormat format, SongData song, Consumer<SongData> onSaved,
+            Runnable onFailed) {
+        return new SongFileTask("Saving " + file.getName(), progress -> {
+            SongFiles.writeSong(file, format, song, progress);
+            return song;
+        }, onSaved, onFailed);
+    }
+
+    /**
+     * Gets what the task does.
+     *
+     * @return The description given when the task was created.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    protected SongData doInBackground() throws IOException {
+        return job.run(this::report);
+    }
+
+    @Override
+    protected void done() {
+        try {
+            onDone.accept(get());
+        } catch (CancellationException e) {
+            System.out.println(description + " was cancelled");
+            onFailed.run();
+        } catch (ExecutionException e) {
+            System.out.println(description + " failed: " + e.getCause().getMessage());
+            onFailed.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Passes progress on to listeners, and stops the job once the task is cancelled
+    private void report(double fraction) throws InterruptedIOException {
+        if (isCancelled()) {
+            throw new InterruptedIOException(description + " was cancelled");
+        }
+        setProgress((int) Math.round(Math.max(0, Math.min(1, fraction)) * 100));
+    }
+}
@@ -1,10 +1,26 @@
 package assign11;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Scanner;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPInputStream;
 
 /**
  * The SongFiles class provides methods to read and write song data, including tempo, tracks, and audio events,
@@ -14,207 +30,447 @@ import java.util.Scanner;
  * @version 3/12/2024
  */
 public class SongFiles {
+    private static final int READ_STEP = 1 << 20; // Bytes read between progress reports
 
     /**
-     * Writes the song data, including tempo, tracks, and events, to the specified file.
+     * Writes a song to the specified file in the given format.
+     * The data is encoded into a temporary file next to the target, forced to disk, and
+     * then renamed over the target, so an interrupted save never leaves a half-written song.
      *
      * @param file   The file to write the song data to.
-     * @param tempo  The tempo of the song.
-     * @param tracks The tracks included in the song, represented as a BetterDynamicArray of TrackPanel objects.
-     * @param song   The SongPanel containing the main song data and events.
-     */
-    public static void writeFile(File file, int tempo, BetterDynamicArray<TrackPanel> tracks, SongPanel song) {
-        try (FileWriter writer = new FileWriter(file)) {
-            // Write tempo
-            writer.write(tempo + "\n");
-
-            // Write number of tracks
-            writer.write(tracks.size() + "\n");
-
-            // Write each track block
-            for (int i = 0; i < tracks.size(); i++) {
-                TrackPanel track = tracks.get(i);
-                writer.write("track" + i + "\n"); // Track label
-                writer.write(i + "\n"); // Track number
-                writer.write(track.getInstrument() + "\n");
-                writer.write(track.getVolume() + "\n");
-                writer.write(track.getLength() + "\n");
-                writer.write(track.getSequencer().getEventCount() + "\n");
-
-                // Write audio events for each track
-                SimpleSequencer events = track.getSequencer();
-                for (AudioEvent event : events) {
-                    if (event instanceof TrackEvent) {
-                        TrackEvent trackEvent = (TrackEvent) event;
-                        writer.write("track\n");
-                        writer.write(trackEvent.getName() + "\n");
-                        writer.write(trackEvent.getTime() + "\n");
-                        writer.write(trackEvent.getChannel() + "\n");
-                        writer.write(0 + "\n");
-                        writer.write(trackEvent.getDuration() + "\n");
-                    } else if (event instanceof NoteEvent) {
-                        NoteEvent noteEvent = (NoteEvent) event;
-                        writer.write("note\n");
-                        writer.write(noteEvent.getName() + "\n");
-                        writer.write(noteEvent.getTime() + "\n");
-                        writer.write(noteEvent.getChannel() + "\n");
-                        writer.write(noteEvent.getPitch() + "\n");
-                        writer.write(noteEvent.getDuration() + "\n");
-                    } else if (event instanceof ChangeEvent) {
-                        ChangeEvent changeEvent = (ChangeEvent) event;
-                        writer.write("change\n");
-                        writer.write(changeEvent.getName() + "\n");
-                        writer.write(changeEvent.getTime() + "\n");
-                        writer.write(changeEvent.getChannel() + "\n");
-                        writer.write(changeEvent.getValue() + "\n");
-                        writer.write(0 + "\n");
+     * @param format The format to write.
+     * @param song   The song to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeSong(File file, SongFormat format, SongData song) throws IOException {
+        writeSong(file, format, song, SongProgress.NONE);
+    }
+
+    /**
+     * Writes a song to the specified file in the given format, reporting progress as it goes.
+     * A cancelled write leaves the file as it was.
+     *
+     * @param file     The file to write the song data to.
+     * @param format   The format to write.
+     * @param song     The song to write.
+     * @param progress Told how much has been written; may cancel the write.
+     * @throws IOException if the file cannot be written, or the write was cancelled.
+     */
+    public static void writeSong(File file, SongFormat format, SongData song, SongProgress progress)
+            throws IOException {
+        Path target = file.toPath().toAbsolutePath();
+        Path temp = createTempFile(target);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                if (format.isCompressed()) {
+                    // Encode on this thread while another one deflates into the file
+                    try (WritableByteChannel deflated = SongCompression.compress(channel)) {
+                        encode(song, format, deflated, progress.part(0, 0.9));
                     }
+                } else {
+                    encode(song, format, channel, progress.part(0, 0.9));
                 }
+                channel.force(true); // Make sure the bytes are on disk before the rename
+            }
+            progress.update(1); // Last chance to cancel
+            replaceAtomically(temp, target);
+            temp = null;
+        } finally {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
             }
+        }
+    }
+
+    // Writes a song in the encoding of the format, without compression
+    private static void encode(SongData song, SongFormat format, WritableByteChannel channel, SongProgress progress)
+            throws IOException {
+        if (format.isBinary()) {
+            BinarySongFormat.write(song, channel, progress);
+        } else {
+            writeText(song, channel, progress);
+        }
+    }
+
+    /**
+     * Writes a song in the text format: the tempo and track count, then for each track its
+     * label, number, instrument, volume, length and event count followed by its events,
+     * and finally "song" with the song length, event count and events.
+     *
+     * @param song    The song to write.
+     * @param channel The channel to write to.
+     * @throws IOException if the channel cannot be written.
+     */
+    public static void writeText(SongData song, WritableByteChannel channel) throws IOException {
+        writeText(song, channel, SongProgress.NONE);
+    }
+
+    /**
+     * Writes a song in the text format, reporting progress after each block.
+     *
+     * @param song     The song to write.
+     * @param channel  The channel to write to.
+     * @param progress Told how many blocks are done; may cancel the write.
+     * @throws IOException if the channel cannot be written, or the write was cancelled.
+     */
+    public static void writeText(SongData song, WritableByteChannel channel, SongProgress progress)
+            throws IOException {
+        SongWriter writer = new SongWriter(channel);
+        BetterDynamicArray<TrackData> tracks = song.getTracks();
+
+        // Write tempo
+        writer.writeLine(song.getTempo());
+
+        // Write number of tracks
+        writer.writeLine(tracks.size());
+
+        // Write each track block
+        for (int i = 0; i < tracks.size(); i++) {
+            TrackData track = tracks.get(i);
+            writer.writeLine("track", i); // Track label
+            writer.writeLine(track.getNumber()); // Track number
+            writer.writeLine(track.getInstrument());
+            writer.writeLine(track.getVolume());
+            writer.writeLine(track.getLength());
+            writer.writeLine(track.getEvents().size());
+
+            // Write audio events for each track
+            writeEvents(writer, track.getEvents());
+            progress.update((i + 1.0) / (tracks.size() + 1));
+        }
+
+        // Write the song block
+        writer.writeLine("song");
+        writer.writeLine(song.getLength());
+        writer.writeLine(song.getEvents().size());
+
+        // Write events for the song
+        writeEvents(writer, song.getEvents());
 
-            // Write the song block
-            writer.write("song\n");
-            writer.write(song.getLength() + "\n");
-            writer.write(song.getSequencer().getEventCount() + "\n");
-
-            // Write events for the song
-            SimpleSequencer events = song.getSequencer();
-            for (AudioEvent event : events) {
-                if (event instanceof TrackEvent) {
-                    TrackEvent trackEvent = (TrackEvent) event;
-                    writer.write("track\n");
-                    writer.write(trackEvent.getName() + "\n");
-                    writer.write(trackEvent.getTime() + "\n");
-                    writer.write(trackEvent.getChannel() + "\n");
-                    writer.write(0 + "\n");
-                    writer.write(trackEvent.getDuration() + "\n");
-                } else if (event instanceof NoteEvent) {
-                    NoteEvent noteEvent = (NoteEvent) event;
-                    writer.write("note\n");
-                    writer.write(noteEvent.getName() + "\n");
-                    writer.write(noteEvent.getTime() + "\n");
-                    writer.write(noteEvent.getChannel() + "\n");
-                    writer.write(noteEvent.getPitch() + "\n");
-                    writer.write(noteEvent.getDuration() + "\n");
-                } else if (event instanceof ChangeEvent) {
-                    ChangeEvent changeEvent = (ChangeEvent) event;
-                    writer.write("change\n");
-                    writer.write(changeEvent.getName() + "\n");
-                    writer.write(changeEvent.getTime() + "\n");
-                    writer.write(changeEvent.getChannel() + "\n");
-                    writer.write(changeEvent.getValue() + "\n");
-                    writer.write(0 + "\n");
+        writer.flush();
+    }
+
+    /**
+     * Writes every event of a block as six lines: type, name, time, channel, value, duration.
+     * Fields that an event type does not have are written as 0.
+     *
+     * @param writer The writer to encode the events with.
+     * @param events The events to write.
+     * @throws IOException if the events cannot be written.
+     */
+    private static void writeEvents(SongWriter writer, EventTable events) throws IOException {
+        for (int i = 0; i < events.size(); i++) {
+            writer.writeLine(EventTable.typeName(events.getType(i)));
+            writer.writeLine(events.getName(i));
+            writer.writeLine(events.getTime(i));
+            writer.writeLine(events.getChannel(i));
+            writer.writeLine(events.getValue(i));
+            writer.writeLine(events.getDuration(i));
+        }
+    }
+
+    /**
+     * Creates an empty file next to a target to write its new contents into, for
+     * replaceAtomically. The file gets the permissions of the target, or the default ones
+     * of a new file if there is no target yet, so replacing a file keeps who can read it.
+     *
+     * @param target The file to replace.
+     * @return The new file.
+     * @throws IOException if the file cannot be created.
+     */
+    static Path createTempFile(Path target) throws IOException {
+        Path directory = target.getParent();
+        while (true) {
+            Path temp = directory.resolve(target.getFileName() + "."
+                    + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp");
+            try {
+                Files.createFile(temp); // Not Files.createTempFile, which makes the file owner-only
+            } catch (FileAlreadyExistsException e) {
+                continue; // Taken; try another name
+            }
+            try {
+                if (Files.exists(target)
+                        && Files.getFileStore(temp).supportsFileAttributeView(PosixFileAttributeView.class)) {
+                    Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
                 }
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
             }
+            return temp;
+        }
+    }
+
+    /**
+     * Moves a fully written temporary file over the target. The rename is atomic where the
+     * file system supports it, so readers see either the old song or the new one.
+     *
+     * @param temp   The temporary file holding the new contents.
+     * @param target The file to replace.
+     * @throws IOException if the file cannot be moved.
+     */
+    static void replaceAtomically(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        // Persist the rename itself; not every platform allows syncing a directory
+        try (FileChannel directory = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
         } catch (IOException e) {
-            System.out.println("Error writing file: " + e.getMessage());
+            // The rename has happened; only its durability on a crash is uncertain here
         }
     }
 
     /**
-     * Reads the song data, including tempo, tracks, and events, from the specified file.
+     * Reads a song from the specified file for interactive use. A binary file is read into
+     * memory in one piece, but only its header, track table and song block are decoded;
+     * each track decodes its chunk the first time its events are asked for.
      *
-     * @param file        The file to read the song data from.
-     * @param synthesizer The synthesizer to link audio events to.
-     * @param tracks      The BetterDynamicArray to store the tracks read from the file.
-     * @param song        The SongPanel to store the main song data and events.
-     * @param width       The width of the TrackPanel.
-     * @param height      The height of the TrackPanel.
-     * @return The tempo of the song.
+     * @param file The file to read.
+     * @return The song.
+     * @throws IOException if the file cannot be read or is not a valid song.
      */
-    public static int readFile(File file, SimpleSynthesizer synthesizer, BetterDynamicArray<TrackPanel> tracks,
-                               SongPanel song, int width, int height) {
-        int tempo = 0;
-        try (Scanner scanner = new Scanner(file)) {
-            // Read tempo
-            tempo = scanner.nextInt();
+    public static SongData openSong(File file) throws IOException {
+        return openSong(file, SongProgress.NONE);
+    }
 
-            // Read number of tracks
-            int trackCount = scanner.nextInt();
+    /**
+     * Reads a song from the specified file for interactive use, reporting progress as it
+     * goes. Nothing outside the returned song is changed, so this can run on any thread.
+     *
+     * @param file     The file to read.
+     * @param progress Told how much has been read; may cancel the read.
+     * @return The song.
+     * @throws IOException if the file cannot be read, is not a valid song, or the read was cancelled.
+     */
+    public static SongData openSong(File file, SongProgress progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (SongCompression.isCompressed(readStart(channel))) {
+                return readCompressed(file, true, progress);
+            }
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Song file is too large: " + size + " bytes");
+            }
+            ByteBuffer contents = ByteBuffer.allocate((int) size);
+            while (contents.hasRemaining()) {
+                // Read in steps, so a large file can report progress and be cancelled
+                contents.limit(Math.min(contents.capacity(), contents.position() + READ_STEP));
+                if (channel.read(contents) < 0) {
+                    break;
+                }
+                progress.update(0.5 * contents.position() / Math.max(1, size));
+                contents.limit(contents.capacity());
+            }
+            contents.flip();
+            SongData song;
+            if (BinarySongFormat.isBinary(contents)) {
+                song = BinarySongFormat.read(contents, true); // Only the headers are decoded here
+            } else {
+                song = readText(new SongTokenizer(contents), progress.part(0.5, 1));
+            }
+            progress.update(1);
+            return song;
+        }
+    }
+
+    /**
+     * Reads a song from the specified file. The format is recognized from the first bytes.
+     *
+     * @param file The file to read.
+     * @return The song.
+     * @throws IOException if the file cannot be read or is not a valid song.
+     */
+    public static SongData readSong(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer start = readStart(channel);
+            if (SongCompression.isCompressed(start)) {
+                return readCompressed(file, false, SongProgress.NONE);
+            }
+            if (BinarySongFormat.isBinary(start)) {
+                return BinarySongFormat.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+            return readText(SongTokenizer.map(channel));
+        }
+    }
+
+    /**
+     * Reads a gzip compressed song. Another thread inflates the file while this one parses
+     * it; a text song is tokenized straight from the pipe between them.
+     *
+     * @param file     The compressed file.
+     * @param lazy     true to leave binary track chunks to be decoded on demand.
+     * @param progress Told how many blocks are done; may cancel the read.
+     * @return The song.
+     * @throws IOException if the file cannot be read or is not a valid song.
+     */
+    private static SongData readCompressed(File file, boolean lazy, SongProgress progress) throws IOException {
+        try (ReadableByteChannel inflated = SongCompression.decompress(file.toPath())) {
+            ByteBuffer start = ByteBuffer.allocate(8);
+            while (start.hasRemaining() && inflated.read(start) >= 0) {
+                // Keep reading until the format can be recognized
+            }
+            start.flip();
+            if (!BinarySongFormat.isBinary(start)) {
+                return readText(new SongTokenizer(start, inflated), progress);
+            }
+            ByteBuffer rest = SongCompression.readAll(inflated);
+            ByteBuffer contents = ByteBuffer.allocate(start.remaining() + rest.remaining());
+            contents.put(start).put(rest).flip();
+            SongData song = BinarySongFormat.read(contents, lazy);
+            progress.update(1);
+            return song;
+        }
+    }
+
+    /**
+     * Recognizes the format of an existing song file from its first bytes.
+     *
+     * @param file The file to look at.
+     * @return The format the file is written in.
+     * @throws IOException if the file cannot be read.
+     */
+    public static SongFormat detectFormat(File file) throws IOException {
+        ByteBuffer start;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            start = readStart(channel);
+        }
+        if (SongCompression.isCompressed(start)) {
+            // The encoding is recognized from the first inflated bytes
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+                return SongFormat.of(BinarySongFormat.isBinary(ByteBuffer.wrap(in.readNBytes(8))), true);
+            }
+        }
+        return SongFormat.of(BinarySongFormat.isBinary(start), false);
+    }
+
+    // Reads the first bytes of an open song file without moving its position
+    private static ByteBuffer readStart(FileChannel channel) throws IOException {
+        ByteBuffer start = ByteBuffer.allocate(8);
+        channel.read(start, 0);
+        return start.flip();
+    }
 
-            // Clear existing data
-            tracks.clear();
-            song.clear();
+    /**
+     * Reads a song in the text format.
+     *
+     * @param tokens The tokenizer positioned at the start of the song.
+     * @return The song.
+     * @throws IOException if the song cannot be read.
+     */
+    public static SongData readText(SongTokenizer tokens) throws IOException {
+        return readText(tokens, SongProgress.NONE);
+    }
+
+    /**
+     * Reads a song in the text format, reporting progress after each block.
+     *
+     * @param tokens   The tokenizer positioned at the start of the song.
+     * @param progress Told how many blocks are done; may cancel the read.
+     * @return The song.
+     * @throws IOException if the song cannot be read, or the read was cancelled.
+     */
+    public static SongData readText(SongTokenizer tokens, SongProgress progress) throws IOException {
+        // Read tempo
+        int tempo = tokens.nextInt();
+
+        // Read number of tracks
+        int trackCount = tokens.nextInt();
 
-            // Read each track block
+        // Read each track block. With the whole file in memory, the first pass only finds where
+        // each block's events end, and the blocks are parsed at the same time on the fork-join pool.
+        BetterDynamicArray<TrackData> tracks = new BetterDynamicArray<>(trackCount);
+        boolean parallel = trackCount > 1 && tokens.isInMemory() && ForkJoinPool.getCommonPoolParallelism() > 1;
+        int[][] headers = new int[trackCount][];
+        ArrayList<ForkJoinTask<EventTable>> blocks = new ArrayList<>(trackCount);
+        try {
             for (int i = 0; i < trackCount; i++) {
-                String trackLabel = scanner.next(); // "trackX"
-                int trackNumber = scanner.nextInt();
-                int instrument = scanner.nextInt();
-                int volume = scanner.nextInt();
-                int length = scanner.nextInt();
-                int numEvents = scanner.nextInt();
-
-                TrackPanel track = new TrackPanel(width, height, trackNumber, synthesizer);
-                track.setInstrument(instrument);
-                track.setVolume(volume);
-                track.setLength(length);
-                BetterDynamicArray<AudioEvent> events = new BetterDynamicArray<>();
+                tokens.skip(1); // "trackX"
+                int trackNumber = tokens.nextInt();
+                int instrument = tokens.nextInt();
+                int volume = tokens.nextInt();
+                int length = tokens.nextInt();
+                int numEvents = tokens.nextInt();
 
                 // Read audio events for the track
-                for (int j = 0; j < numEvents; j++) {
-                    String type = scanner.next();
-                    String name = scanner.next();
-                    int time = scanner.nextInt();
-                    int channel = scanner.nextInt();
-                    int value = scanner.nextInt();
-                    int duration = scanner.nextInt();
-                    AudioEvent event;
-
-                    if (type.equals("change")) {
-                        event = new ChangeEvent(time, name, channel, value, synthesizer);
-                    } else if (type.equals("note")) {
-                        event = new NoteEvent(time, name, channel, duration, value, synthesizer);
-                    } else if (type.equals("track")) {
-                        event = new TrackEvent(time, name, channel, duration, tracks.get(channel).getSequencer());
-                    } else {
-                        throw new IllegalArgumentException("Unknown event type: " + type);
-                    }
-
-                    events.add(event);
-                }
-                track.setEvents(events);
-                tracks.add(track);
-            }
-
-            // Read song block
-            String songHeader = scanner.next(); // "song"
-            int songLength = scanner.nextInt();
-            song.setLength(songLength);
-            int numSongEvents = scanner.nextInt();
-            BetterDynamicArray<AudioEvent> songEvents = new BetterDynamicArray<>();
-            for (int j = 0; j < numSongEvents; j++) {
-                String type = scanner.next();
-                String name = scanner.next();
-                int time = scanner.nextInt();
-                int channel = scanner.nextInt();
-                int value = scanner.nextInt();
-                int duration = scanner.nextInt();
-                AudioEvent event;
-
-                if (type.equals("change")) {
-                    event = new ChangeEvent(time, name, channel, value, synthesizer);
-                } else if (type.equals("note")) {
-                    event = new NoteEvent(time, name, channel, duration, value, synthesizer);
-                } else if (type.equals("track")) {
-                    event = new TrackEvent(time, name, channel, duration, tracks.get(channel).getSequencer());
+                if (parallel) {
+                    headers[i] = new int[] { trackNumber, instrument, volume, length };
+                    int start = tokens.position();
+                    tokens.skip(numEvents * 6);
+                    SongTokenizer block = tokens.slice(start, tokens.position());
+                    blocks.add(ForkJoinPool.commonPool().submit(() -> readEvents(block, numEvents)));
                 } else {
-                    throw new IllegalArgumentException("Unknown event type: " + type);
+                    tracks.add(new TrackData(trackNumber, instrument, volume, length, readEvents(tokens, numEvents)));
+                    progress.update((i + 1.0) / (trackCount + 1));
                 }
-
-                songEvents.add(event);
             }
+            if (parallel) {
+                for (int i = 0; i < trackCount; i++) {
+                    int[] header = headers[i];
+                    tracks.add(new TrackData(header[0], header[1], header[2], header[3], joinBlock(blocks.get(i))));
+                    progress.update((i + 1.0) / (trackCount + 1));
+                }
+            }
+        } finally {
+            // After an error or a cancel, blocks that have not started are dropped
+            for (ForkJoinTask<EventTable> block : blocks) {
+                block.cancel(false);
+            }
+        }
 
-            song.setEvents(songEvents);
+        // Read song block
+        tokens.skip(1); // "song"
+        int songLength = tokens.nextInt();
+        int numSongEvents = tokens.nextInt();
+        return new SongData(tempo, tracks, songLength, readEvents(tokens, numSongEvents));
+    }
 
-        } catch (FileNotFoundException e) {
-            System.out.println("File not found: " + file.getAbsolutePath());
-        } catch (Exception e) {
-            System.out.println("Error reading file: " + file.getAbsolutePath());
-            e.printStackTrace();
+    /**
+     * Waits for a block that is parsed on the fork-join pool and returns its result.
+     *
+     * @param block The task parsing the block.
+     * @return The parsed block.
+     * @throws IOException if the block could not be parsed.
+     */
+    static <T> T joinBlock(ForkJoinTask<T> block) throws IOException {
+        try {
+            return block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading a song");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(cause);
         }
-        song.setTempo(tempo);
+    }
 
-        return tempo;
+    /**
+     * Reads a block of events, each made of six tokens: type, name, time, channel, value, duration.
+     *
+     * @param tokens The tokenizer positioned at the first event.
+     * @param count  The number of events in the block.
+     * @return The events, in one table sized for the block.
+     * @throws IOException if the file cannot be read.
+     */
+    private static EventTable readEvents(SongTokenizer tokens, int count) throws IOException {
+        EventTable events = new EventTable(count);
+        for (int j = 0; j < count; j++) {
+            byte type = EventTable.typeOf(tokens.next());
+            String name = tokens.next();
+            int time = tokens.nextInt();
+            int channel = tokens.nextInt();
+            int value = tokens.nextInt();
+            int duration = tokens.nextInt();
+            events.add(type, name, time, channel, value, duration);
+        }
+        return events;
     }
 }
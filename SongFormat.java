@@ -0,0 +1,83 @@
+package assign11;
+
+import java.io.File;
+
+/**
+ * The formats that SongFiles can write a song in. Reading does not need a format,
+ * since every format is recognized from the first bytes of the file. The compressed
+ * formats are the plain ones run through gzip, see SongCompression.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public enum SongFormat {
+    TEXT("song", false),               // One token per line, readable and editable by hand
+    BINARY("songb", false),            // Varint encoded chunks, see BinarySongFormat
+    COMPRESSED_TEXT("song.gz", true),  // The text format, gzip compressed
+    COMPRESSED_BINARY("songb.gz", true); // The binary format, gzip compressed
+
+    private final String extension;  // File name extension, without the dot
+    private final boolean compressed; // Whether the file is gzip compressed
+
+    SongFormat(String extension, boolean compressed) {
+        this.extension = extension;
+        this.compressed = compressed;
+    }
+
+    /**
+     * Gets the file name extension used for this format.
+     *
+     * @return The extension, without the dot.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Checks whether this format is gzip compressed.
+     *
+     * @return true for the compressed formats.
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Checks whether the song inside this format is binary.
+     *
+     * @return true for BINARY and COMPRESSED_BINARY.
+     */
+    public boolean isBinary() {
+        return this == BINARY || this == COMPRESSED_BINARY;
+    }
+
+    /**
+     * Gets the format with the given encoding and compression.
+     *
+     * @param binary     true for the binary encoding, false for text.
+     * @param compressed true for gzip compression.
+     * @return The format.
+     */
+    public static SongFormat of(boolean binary, boolean compressed) {
+        if (compressed) {
+            return binary ? COMPRESSED_BINARY : COMPRESSED_TEXT;
+        }
+        return binary ? BINARY : TEXT;
+    }
+
+    /**
+     * Chooses a format from the extension of a file name. Unknown extensions use TEXT.
+     *
+     * @param file The file to be written.
+     * @return The format matching the file name.
+     */
+    public static SongFormat forFile(File file) {
+        String name = file.getName().toLowerCase();
+        for (SongFormat format : values()) {
+            if (name.endsWith("." + format.extension)) {
+                return format;
+            }
+        }
+        return TEXT;
+    }
+}
@@ -0,0 +1,222 @@
+package assign11;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * The SongGenerator class makes random songs of any size for testing, without anyone
+ * drawing them. The same seed and settings always give the same song.
+ *
+ * A song has a number of tracks with a given density of notes per beat. With nesting, the
+ * tracks are split into levels: the song block plays the tracks of the first level, and
+ * each track plays tracks of the next level inside it through track events, at half its
+ * length. Tracks only play tracks of a deeper level, so a song never plays itself.
+ *
+ * Usage: java -cp classes assign11.SongGenerator [-t tracks] [-d notes per beat] [-n nesting]
+ * [-l song length] [-k track length] [-s seed] file
+ * writes a song file in the format its extension names.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class SongGenerator {
+    private static final String USAGE = "Usage: SongGenerator [-t tracks] [-d notes per beat] [-n nesting]"
+            + " [-l song length] [-k track length] [-s seed] file";
+    private static final int MIN_LENGTH = 4;      // Shortest track, as in a new track
+    private static final int LOWEST_PITCH = 36;   // Notes are between these pitches, C2 to C7
+    private static final int HIGHEST_PITCH = 96;
+    private static final int LONGEST_NOTE = 4;    // Longest note in beats
+    private static final double PLACEMENT_CHANCE = 0.75; // Chance that a track plays in each slot it may fill
+
+    private final long seed;
+    private int trackCount = 8;
+    private double density = 2;
+    private int nesting = 0;
+    private int length = 64;
+    private int trackLength = 16;
+    private int tempo = SongModel.DEFAULT_TEMPO;
+
+    /**
+     * Generates a song file from the command line.
+     *
+     * @param args Options and the file, see the class description.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println(USAGE);
+            System.exit(2);
+        }
+        try {
+            long seed = 0;
+            for (int i = 0; i < args.length - 1; i += 2) {
+                if (args[i].equals("-s")) {
+                    seed = Long.parseLong(args[i + 1]);
+                }
+            }
+            SongGenerator generator = new SongGenerator(seed);
+            for (int i = 0; i < args.length - 1; i += 2) {
+                switch (args[i]) {
+                    case "-t" -> generator.setTrackCount(Integer.parseInt(args[i + 1]));
+                    case "-d" -> generator.setDensity(Double.parseDouble(args[i + 1]));
+                    case "-n" -> generator.setNesting(Integer.parseInt(args[i + 1]));
+                    case "-l" -> generator.setLength(Integer.parseInt(args[i + 1]));
+                    case "-k" -> generator.setTrackLength(Integer.parseInt(args[i + 1]));
+                    case "-s" -> { }
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            File file = new File(args[args.length - 1]);
+            SongData song = generator.generate();
+            SongFiles.writeSong(file, SongFormat.forFile(file), song);
+            System.out.println("Wrote " + song.getEventCount() + " events to " + file);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println(USAGE);
+            System.exit(2);
+        } catch (IOException e) {
+            System.out.println("Error writing the song: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates a generator with the default settings: 8 tracks of 16 beats with 2 notes per
+     * beat, no nesting, and a song of 64 beats.
+     *
+     * @param seed The seed of the random numbers.
+     */
+    public SongGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the number of tracks.
+     *
+     * @param trackCount The number of tracks, at least 1.
+     */
+    public void setTrackCount(int trackCount) {
+        if (trackCount < 1) {
+            throw new IllegalArgumentException("A song needs at least one track");
+        }
+        this.trackCount = trackCount;
+    }
+
+    /**
+     * Sets how many notes each track has for each beat of its length.
+     *
+     * @param density Notes per beat, at least 0.
+     */
+    public void setDensity(double density) {
+        if (density < 0) {
+            throw new IllegalArgumentException("The density cannot be negative");
+        }
+        this.density = density;
+    }
+
+    /**
+     * Sets how many levels of tracks are played by other tracks rather than by the song
+     * block. There are never more levels than tracks.
+     *
+     * @param nesting The number of nested levels, at least 0.
+     */
+    public void setNesting(int nesting) {
+        if (nesting < 0) {
+            throw new IllegalArgumentException("The nesting cannot be negative");
+        }
+        this.nesting = nesting;
+    }
+
+    /**
+     * Sets the length of the song block.
+     *
+     * @param length The length in beats, at least 4.
+     */
+    public void setLength(int length) {
+        if (length < MIN_LENGTH) {
+            throw new IllegalArgumentException("The song length must be at least " + MIN_LENGTH);
+        }
+        this.length = length;
+    }
+
+    /**
+     * Sets the length of the tracks that the song block plays. Nested tracks are half as
+     * long as the tracks that play them, but never shorter than 4 beats.
+     *
+     * @param trackLength The length in beats, at least 4.
+     */
+    public void setTrackLength(int trackLength) {
+        if (trackLength < MIN_LENGTH) {
+            throw new IllegalArgumentException("The track length must be at least " + MIN_LENGTH);
+        }
+        this.trackLength = trackLength;
+    }
+
+    /**
+     * Sets the tempo of the song.
+     *
+     * @param tempo The tempo in beats per minute, at least 1.
+     */
+    public void setTempo(int tempo) {
+        if (tempo < 1) {
+            throw new IllegalArgumentException("The tempo must be at least 1");
+        }
+        this.tempo = tempo;
+    }
+
+    /**
+     * Generates a song with the current settings. Calling this again gives an equal song.
+     *
+     * @return The new song.
+     */
+    public SongData generate() {
+        Random random = new Random(seed);
+        int levels = Math.min(nesting + 1, trackCount);
+        int[] firstOfLevel = new int[levels + 1]; // Track number where each level starts
+        for (int level = 0; level <= levels; level++) {
+            firstOfLevel[level] = (level * trackCount + levels - 1) / levels;
+        }
+
+        BetterDynamicArray<TrackData> tracks = new BetterDynamicArray<>(trackCount);
+        for (int level = 0; level < levels; level++) {
+            int levelLength = Math.max(MIN_LENGTH, trackLength >> level);
+            for (int number = firstOfLevel[level]; number < firstOfLevel[level + 1]; number++) {
+                EventTable events = new EventTable((int) (density * levelLength) + 1);
+                addNotes(events, random, number, levelLength);
+                if (level + 1 < levels) {
+                    addPlacements(events, random, levelLength, firstOfLevel[level + 1], firstOfLevel[level + 2],
+                            Math.max(MIN_LENGTH, levelLength / 2));
+                }
+                tracks.add(new TrackData(number, random.nextInt(128), TrackModel.DEFAULT_VOLUME, levelLength,
+                        events));
+            }
+        }
+
+        EventTable arrangement = new EventTable();
+        addPlacements(arrangement, random, length, firstOfLevel[0], firstOfLevel[1], trackLength);
+        return new SongData(tempo, tracks, length, arrangement);
+    }
+
+    // Adds the notes of one track, spread evenly at random over its length
+    private void addNotes(EventTable events, Random random, int channel, int trackLength) {
+        int notes = (int) Math.round(density * trackLength);
+        for (int i = 0; i < notes; i++) {
+            int time = random.nextInt(trackLength);
+            int duration = 1 + random.nextInt(Math.min(LONGEST_NOTE, trackLength - time));
+            int pitch = LOWEST_PITCH + random.nextInt(HIGHEST_PITCH - LOWEST_PITCH);
+            events.add(EventTable.NOTE, "note", time, channel, pitch, duration);
+        }
+    }
+
+    // Adds track events that play tracks first to last - 1 in slots of the given length
+    private static void addPlacements(EventTable events, Random random, int length, int first, int last,
+            int slotLength) {
+        for (int time = 0; time + slotLength <= length; time += slotLength) {
+            for (int track = first; track < last; track++) {
+                if (random.nextDouble() < PLACEMENT_CHANCE) {
+                    events.add(EventTable.TRACK, "TrackEvent", time, track, 0, slotLength);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package assign11;
+
+/**
+ * The SongModel class is the live state of a whole song without any Swing component: the
+ * tempo, the track models, and the sequencer of the song block whose track events play the
+ * tracks. The SongPanel, the track panels and the frame are views over a song model, so a
+ * song can be loaded from a file, played and saved in a headless JVM.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class SongModel {
+    public static final int DEFAULT_TEMPO = 50; // Tempo of a new song in beats per minute
+
+    private final SimpleSynthesizer synth;              // Plays every track
+    private final SimpleSequencer sequencer;            // The events of the song block
+    private final BetterDynamicArray<TrackModel> tracks; // Tracks in track number order
+    private int tempo;                                  // Beats per minute
+    private SequencerClock clock;                       // Clock that the song block and every track play on
+
+    /**
+     * Creates a song with no tracks and an empty song block.
+     *
+     * @param synth The synthesizer that the tracks play on.
+     */
+    public SongModel(SimpleSynthesizer synth) {
+        this.synth = synth;
+        sequencer = new SimpleSequencer(TrackModel.DEFAULT_LENGTH);
+        tracks = new BetterDynamicArray<>();
+        clock = SequencerClock.SYSTEM;
+        setTempo(DEFAULT_TEMPO);
+    }
+
+    /**
+     * Gets the synthesizer that the tracks play on.
+     *
+     * @return The synthesizer.
+     */
+    public SimpleSynthesizer getSynthesizer() {
+        return synth;
+    }
+
+    /**
+     * Gets the sequencer that holds the events of the song block.
+     *
+     * @return The sequencer.
+     */
+    public SimpleSequencer getSequencer() {
+        return sequencer;
+    }
+
+    /**
+     * Gets the number of tracks.
+     *
+     * @return The number of tracks.
+     */
+    public int getTrackCount() {
+        return tracks.size();
+    }
+
+    /**
+     * Gets a track.
+     *
+     * @param number The track number.
+     * @return The track.
+     */
+    public TrackModel getTrack(int number) {
+        return tracks.get(number);
+    }
+
+    /**
+     * Adds an empty track with the next track number, playing at the song's tempo.
+     *
+     * @return The new track.
+     */
+    public TrackModel addTrack() {
+        TrackModel track = new TrackModel(tracks.size(), synth);
+        track.getSequencer().setSpeedFactor(tempo / 60000.0);
+        track.getSequencer().setClock(clock);
+        tracks.add(track);
+        return track;
+    }
+
+    /**
+     * Gets the tempo.
+     *
+     * @return The tempo in beats per minute.
+     */
+    public int getTempo() {
+        return tempo;
+    }
+
+    /**
+     * Sets the tempo of the song block and every track.
+     *
+     * @param tempo The tempo in beats per minute.
+     */
+    public void setTempo(int tempo) {
+        this.tempo = tempo;
+        sequencer.setSpeedFactor(tempo / 60000.0);
+        for (int i = 0; i < tracks.size(); i++) {
+            tracks.get(i).getSequencer().setSpeedFactor(tempo / 60000.0);
+        }
+    }
+
+    /**
+     * Gets the clock that the song plays on.
+     *
+     * @return The clock.
+     */
+    public SequencerClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Sets the clock that the song block and every track play on, such as a VirtualClock
+     * to play the song in simulated time. This stops the song if it is playing.
+     *
+     * @param clock The clock.
+     */
+    public void setClock(SequencerClock clock) {
+        this.clock = clock;
+        sequencer.setClock(clock);
+        for (int i = 0; i < tracks.size(); i++) {
+            tracks.get(i).getSequencer().setClock(clock);
+        }
+    }
+
+    /**
+     * Gets the length of the song block.
+     *
+     * @return The length in beats.
+     */
+    public int getLength() {
+        return sequencer.getLength();
+    }
+
+    /**
+     * Sets the length of the song block. This stops the song if it is playing.
+     *
+     * @param length The length in beats.
+     */
+    public void setLength(int length) {
+        sequencer.setLength(length);
+    }
+
+    /**
+     * Stops the song block and replaces its events.
+     *
+     * @param events The new events.
+     */
+    public void setEvents(BetterDynamicArray<AudioEvent> events) {
+        sequencer.stop();
+        sequencer.updateSequence(events); // The sequencer tells its views about the new events
+    }
+
+    /**
+     * Stops the song block and removes its events, as an edit that can be undone.
+     */
+    public void clear() {
+        sequencer.stop();
+        sequencer.clear();
+    }
+
+    /**
+     * Creates the events of every track that still has them waiting in saved form.
+     */
+    public void ensureLoaded() {
+        for (int i = 0; i < tracks.size(); i++) {
+            tracks.get(i).ensureLoaded();
+        }
+    }
+
+    /**
+     * Replaces the whole song with one that was read from a file. The song block gets its
+     * events right away, while each track only gets its settings; its events are created
+     * (and, for a binary file, decoded) when the track is first shown, played or edited.
+     * Views must be given the new tracks afterwards.
+     *
+     * @param data The song to load.
+     */
+    public void load(SongData data) {
+        sequencer.stop();
+        for (int i = 0; i < tracks.size(); i++) {
+            tracks.get(i).getSequencer().stop();
+        }
+        tracks.clear();
+
+        // Create every track first, so track events can refer to any of them
+        BetterDynamicArray<TrackData> trackData = data.getTracks();
+        for (int i = 0; i < trackData.size(); i++) {
+            TrackData saved = trackData.get(i);
+            TrackModel track = new TrackModel(saved.getNumber(), synth);
+            track.setInstrument(saved.getInstrument());
+            track.setVolume(saved.getVolume());
+            track.setLength(saved.getLength());
+            track.getSequencer().setClock(clock);
+            tracks.add(track);
+        }
+        for (int i = 0; i < trackData.size(); i++) {
+            TrackData saved = trackData.get(i);
+            tracks.get(i).setEventsLater(saved, () -> {
+                EventTable events = saved.getEvents();
+                // A track event plays another track, which then needs its events too
+                for (int j = 0; j < events.size(); j++) {
+                    if (events.getType(j) == EventTable.TRACK) {
+                        tracks.get(events.getChannel(j)).ensureLoaded();
+                    }
+                }
+                return events.toEvents(synth, channel -> tracks.get(channel).getSequencer());
+            });
+        }
+
+        setLength(data.getLength());
+        setEvents(data.getEvents().toEvents(synth, channel -> tracks.get(channel).getSequencer()));
+        setTempo(data.getTempo());
+    }
+
+    /**
+     * Copies the current state of the song. Tracks are numbered by their position.
+     *
+     * @return The data of the song.
+     */
+    public SongData capture() {
+        BetterDynamicArray<TrackData> trackData = new BetterDynamicArray<>(tracks.size());
+        for (int i = 0; i < tracks.size(); i++) {
+            trackData.add(tracks.get(i).capture(i));
+        }
+        return new SongData(tempo, trackData, getLength(), EventTable.capture(sequencer));
+    }
+}
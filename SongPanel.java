@@ -33,17 +33,23 @@ public class SongPanel extends SketchingPanel implements ActionListener, ChangeL
     private JToggleButton playStopButton; // Button to play or stop the song
     private JToggleButton loopButton; // Button to toggle loop state of the song
     private JSpinner lengthSpinner; // Spinner to select the song length
+    private SongModel model; // The song this panel is a view of
+    private EditListener editListener; // Told about every edit the user makes, or null
+    private PlaybackBackend playback; // Plays the song's sequence
 
     /**
-     * Constructs a SongPanel with the specified dimensions.
+     * Constructs a SongPanel with the specified dimensions as a view of a song.
      *
      * @param width  the width of the SongPanel
      * @param height the height of the SongPanel
+     * @param model  the song to show and edit
      */
-    public SongPanel(int width, int height) {
+    public SongPanel(int width, int height, SongModel model) {
 
         // Initialize the SongEditor
-        songEditor = new SongEditor(width, height);
+        this.model = model;
+        songEditor = new SongEditor(width, height, model);
+        playback = PlaybackBackend.TIMER;
 
         // Initialize play/stop button
         playStopButton = new JToggleButton("Play");
@@ -56,6 +62,7 @@ public class SongPanel extends SketchingPanel implements ActionListener, ChangeL
         // Initialize song length spinner
         JLabel lengthLabel = new JLabel("Song Length:");
         lengthSpinner = new JSpinner(new SpinnerListModel(new Integer[] { 4, 8, 16, 32, 64, 128, 256, 512 }));
+        setLength(model.getLength()); // Show the model's length before listening for changes
         lengthSpinner.addChangeListener(this);
 
         // Initialize control panel
@@ -122,12 +129,74 @@ public class SongPanel extends SketchingPanel implements ActionListener, ChangeL
     }
 
     /**
-     * Sets the list of tracks in the song.
+     * Returns the song this panel is a view of.
      *
-     * @param trackList the list of tracks to set
+     * @return the song model
      */
-    public void setTrackList(BetterDynamicArray<TrackPanel> trackList) {
-        songEditor.setTrackList(trackList);
+    public SongModel getModel() {
+        return model;
+    }
+
+    /**
+     * Sets the listener that is told about every edit the user makes to the song block.
+     *
+     * @param editListener the listener, or null for none
+     */
+    public void setEditListener(EditListener editListener) {
+        this.editListener = editListener;
+        songEditor.setEditListener(editListener);
+    }
+
+    /**
+     * Makes sure every track has its events, then begins playing the song.
+     */
+    @Override
+    public void play() {
+        model.ensureLoaded();
+        playback.play(getSequencer());
+    }
+
+    /**
+     * Stops playing the song.
+     */
+    @Override
+    public void stop() {
+        playback.stop(getSequencer());
+    }
+
+    /**
+     * Sets whether to loop the song, also while it plays.
+     *
+     * @param doLoop true if looping is desired
+     */
+    @Override
+    public void setLoop(boolean doLoop) {
+        super.setLoop(doLoop);
+        playback.settingsChanged(getSequencer());
+    }
+
+    /**
+     * Sets the playback speed of the song, also while it plays.
+     *
+     * @param tempo in beats per minute
+     */
+    @Override
+    public void setTempo(int tempo) {
+        super.setTempo(tempo);
+        playback.settingsChanged(getSequencer());
+    }
+
+    /**
+     * Stops the song, then plays it with a different backend from now on.
+     *
+     * @param playback the backend that plays the song
+     */
+    public void setPlayback(PlaybackBackend playback) {
+        stop();
+        playStopButton.setSelected(false);
+        playStopButton.setText("Play");
+        this.playback = playback;
+        songEditor.setPlayback(playback);
     }
 
     /**
@@ -163,6 +232,9 @@ public class SongPanel extends SketchingPanel implements ActionListener, ChangeL
         if (event.getSource() == lengthSpinner) {
             int newLength = (int) lengthSpinner.getValue();
             setLength(newLength);
+            if (editListener != null) {
+                editListener.songLengthChanged(newLength);
+            }
         }
     }
 }
@@ -0,0 +1,36 @@
+package assign11;
+
+import java.io.InterruptedIOException;
+
+/**
+ * A SongProgress is told how far a long song file operation has come, and can cancel it
+ * by throwing from update. Reading and writing call it between blocks, never in the middle
+ * of one.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+@FunctionalInterface
+public interface SongProgress {
+    /** Progress that is not reported anywhere. */
+    SongProgress NONE = fraction -> { };
+
+    /**
+     * Reports progress.
+     *
+     * @param fraction The part of the work that is done, from 0 to 1.
+     * @throws InterruptedIOException to cancel the operation.
+     */
+    void update(double fraction) throws InterruptedIOException;
+
+    /**
+     * Gets progress for one step of a larger operation, so the step can report from 0 to 1.
+     *
+     * @param start The fraction of the whole operation done when the step begins.
+     * @param end   The fraction of the whole operation done when the step ends.
+     * @return Progress that maps the step's fractions onto this one.
+     */
+    default SongProgress part(double start, double end) {
+        return fraction -> update(start + (end - start) * fraction);
+    }
+}
@@ -0,0 +1,279 @@
+package assign11;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The SongRegression class is the performance regression check of the program. It
+ * generates songs of several sizes with SongGenerator, and for each one saves it, loads it
+ * into a SongModel, plays it through in simulated time, and renders the song editor and
+ * every track editor into offscreen images. The time and the bytes allocated by each step
+ * are compared with a budget, and the check fails if any step goes over.
+ *
+ * Playing on a VirtualClock runs every note on and off that a real playback would, in the
+ * same order, but without waiting for the time in between, so a song of many minutes plays
+ * in a moment. Bytes are counted on the thread that runs the check.
+ *
+ * One more check plays touching blocks of a track on the system clock, where the end of
+ * each block and the start of the next are due at the same millisecond and the timer may
+ * run them in either order; every block must still play its note.
+ *
+ * Usage: java -cp classes assign11.SongRegression [-b budget factor] [filter]
+ * checks every song whose name contains the filter, with every budget multiplied by the
+ * factor, and exits with status 1 if a budget was exceeded or a block did not play.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class SongRegression {
+    private static final int EDITOR_SIZE = 650; // Width and height of rendered editors, as in the frame
+    private static final long MB = 1 << 20;
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationCounter(); // Or null
+
+    private static final String[] STEPS = { "generate", "save", "load", "play", "render" };
+    private static final int TOUCHING_BLOCKS = 40;  // Blocks of the touching check
+    private static final int TOUCHING_LENGTH = 50;  // Length of each of them in milliseconds
+
+    // Songs to check: name, tracks, notes per beat, nesting, song length, track length,
+    // then the budget of each step in milliseconds and in megabytes allocated
+    private static final Scenario[] SCENARIOS = {
+        new Scenario("small", 4, 2, 0, 64, 16,
+                new long[] { 50, 100, 200, 100, 500 }, new long[] { 8, 8, 16, 16, 64 }),
+        new Scenario("dense", 16, 16, 0, 256, 64,
+                new long[] { 200, 500, 1000, 500, 2000 }, new long[] { 64, 64, 128, 64, 128 }),
+        new Scenario("nested", 16, 4, 3, 512, 128,
+                new long[] { 200, 500, 1000, 1000, 2000 }, new long[] { 64, 64, 128, 128, 128 }),
+        new Scenario("huge", 16, 64, 0, 512, 512,
+                new long[] { 1000, 3000, 5000, 3000, 5000 }, new long[] { 512, 512, 1024, 512, 512 }),
+    };
+
+    /**
+     * A song to check and the budgets of its steps.
+     */
+    private static class Scenario {
+        private final String name;
+        private final int tracks;
+        private final double density;
+        private final int nesting;
+        private final int length;
+        private final int trackLength;
+        private final long[] millis; // Time budget of each step
+        private final long[] mb;     // Allocation budget of each step
+
+        Scenario(String name, int tracks, double density, int nesting, int length, int trackLength,
+                long[] millis, long[] mb) {
+            this.name = name;
+            this.tracks = tracks;
+            this.density = density;
+            this.nesting = nesting;
+            this.length = length;
+            this.trackLength = trackLength;
+            this.millis = millis;
+            this.mb = mb;
+        }
+    }
+
+    private final double budgetFactor; // Multiplies every budget, for slower or faster machines
+    private int exceeded;              // Steps that went over budget so far
+
+    /**
+     * Runs the check and exits with status 1 if a budget was exceeded or a block did not play.
+     *
+     * @param args Options and a filter, see the class description.
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        double factor = 1;
+        String filter = "";
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-b") && i + 1 < args.length) {
+                factor = Double.parseDouble(args[++i]);
+            } else {
+                filter = args[i];
+            }
+        }
+
+        SongRegression regression = new SongRegression(factor);
+        try {
+            for (Scenario scenario : SCENARIOS) {
+                if (scenario.name.contains(filter)) {
+                    regression.check(scenario);
+                }
+            }
+            if ("touching".contains(filter)) {
+                regression.checkTouching();
+            }
+        } catch (Exception e) {
+            System.out.println("Error checking songs: " + e);
+            System.exit(1);
+        }
+        System.out.println(regression.exceeded == 0 ? "All steps within budget"
+                : regression.exceeded + " steps over budget");
+        System.exit(regression.exceeded > 0 ? 1 : 0); // Sequencer timers are not daemon threads
+    }
+
+    /**
+     * Creates a check whose budgets are multiplied by a factor.
+     *
+     * @param budgetFactor The factor, 1 for the budgets as written.
+     */
+    public SongRegression(double budgetFactor) {
+        this.budgetFactor = budgetFactor;
+    }
+
+    // Runs every step of one song and prints a line per step
+    private void check(Scenario scenario) throws Exception {
+        SongGenerator generator = new SongGenerator(scenario.name.hashCode());
+        generator.setTrackCount(scenario.tracks);
+        generator.setDensity(scenario.density);
+        generator.setNesting(scenario.nesting);
+        generator.setLength(scenario.length);
+        generator.setTrackLength(scenario.trackLength);
+
+        File file = File.createTempFile("regression", "." + SongFormat.TEXT.getExtension());
+        SimpleSynthesizer synth = new SimpleSynthesizer();
+        SongModel model = new SongModel(synth);
+        try {
+            SongData song = step(scenario, 0, generator::generate);
+            System.out.println(scenario.name + ": " + song.getEventCount() + " events in " + song.getTracks().size()
+                    + " tracks");
+            step(scenario, 1, () -> {
+                SongFiles.writeSong(file, SongFormat.TEXT, song);
+                return file;
+            });
+            step(scenario, 2, () -> {
+                model.load(SongFiles.readSong(file));
+                model.ensureLoaded();
+                return model;
+            });
+            long played = step(scenario, 3, () -> play(model));
+            System.out.println(scenario.name + ": played " + played + " event starts and completions");
+            step(scenario, 4, () -> render(model));
+        } finally {
+            file.delete();
+        }
+    }
+
+    // Plays touching blocks of one track in real time and counts it if a block lost its note
+    private void checkTouching() throws InterruptedException {
+        SimpleSynthesizer synth = new SimpleSynthesizer();
+        SimpleSequencer track = new SimpleSequencer(TOUCHING_LENGTH);
+        track.add(new NoteEvent(0, "note", 0, TOUCHING_LENGTH / 5, 60, synth));
+        SimpleSequencer song = new SimpleSequencer(TOUCHING_BLOCKS * TOUCHING_LENGTH);
+        for (int i = 0; i < TOUCHING_BLOCKS; i++) {
+            song.add(new TrackEvent(i * TOUCHING_LENGTH, "track", 0, TOUCHING_LENGTH, track));
+        }
+
+        AtomicInteger notes = new AtomicInteger();
+        SequencerClock counting = new SequencerClock() {
+            @Override
+            public long currentTimeMillis() {
+                return SYSTEM.currentTimeMillis();
+            }
+
+            @Override
+            public Schedule newSchedule() {
+                return SYSTEM.newSchedule();
+            }
+
+            @Override
+            public void dispatched(AudioEvent event, boolean starting) {
+                if (starting && event instanceof NoteEvent) {
+                    notes.incrementAndGet();
+                }
+            }
+        };
+        track.setClock(counting);
+        song.setClock(counting);
+        song.start();
+        Thread.sleep(TOUCHING_BLOCKS * TOUCHING_LENGTH + 500L);
+        song.stop();
+
+        boolean lost = notes.get() != TOUCHING_BLOCKS;
+        if (lost) {
+            exceeded++;
+        }
+        System.out.println("touching: played " + notes.get() + " of " + TOUCHING_BLOCKS + " blocks"
+                + (lost ? "  BLOCKS LOST" : ""));
+    }
+
+    // Runs one step, prints its time and allocation, and counts it if it went over budget
+    private <T> T step(Scenario scenario, int step, Callable<T> work) throws Exception {
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        T result = work.call();
+        double millis = (System.nanoTime() - start) / 1e6;
+        double mb = (double) (allocatedBytes() - bytesBefore) / MB;
+
+        double millisBudget = scenario.millis[step] * budgetFactor;
+        double mbBudget = scenario.mb[step] * budgetFactor;
+        boolean over = millis > millisBudget || bytesBefore >= 0 && mb > mbBudget;
+        if (over) {
+            exceeded++;
+        }
+        System.out.printf("  %-8s %-9s %9.1f ms of %7.0f %9.1f MB of %6.0f%s%n", scenario.name, STEPS[step], millis,
+                millisBudget, bytesBefore < 0 ? Double.NaN : mb, mbBudget, over ? "  OVER BUDGET" : "");
+        return result;
+    }
+
+    /**
+     * Plays a song through once on a VirtualClock, which starts and completes every event
+     * just as real playback would, but without waiting for the time in between. The song
+     * is put back on the system clock afterwards.
+     *
+     * @param model The song to play.
+     * @return The number of events that were started or completed.
+     */
+    static long play(SongModel model) {
+        VirtualClock clock = new VirtualClock(false);
+        model.setClock(clock);
+        try {
+            model.getSequencer().start();
+            clock.runUntilIdle();
+            return clock.getDispatchCount();
+        } finally {
+            model.setClock(SequencerClock.SYSTEM);
+        }
+    }
+
+    // Builds and paints the song editor and every track editor, returning the last image
+    private static BufferedImage render(SongModel model) {
+        BufferedImage image = new BufferedImage(EDITOR_SIZE, EDITOR_SIZE, BufferedImage.TYPE_INT_RGB);
+        paint(new SongEditor(EDITOR_SIZE, EDITOR_SIZE, model), image);
+        for (int i = 0; i < model.getTrackCount(); i++) {
+            paint(new TrackEditor(EDITOR_SIZE, EDITOR_SIZE, model.getTrack(i)), image);
+        }
+        return image;
+    }
+
+    private static void paint(GridCanvas<?> editor, BufferedImage image) {
+        editor.setSize(EDITOR_SIZE, EDITOR_SIZE);
+        Graphics2D g = image.createGraphics();
+        try {
+            editor.paintComponent(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    // Gets the bytes the current thread has allocated so far, or -1 if the JVM cannot count them
+    private static long allocatedBytes() {
+        return ALLOCATIONS == null ? -1 : ALLOCATIONS.getCurrentThreadAllocatedBytes();
+    }
+
+    // Gets the thread bean with allocation counting turned on, or null if the JVM has none
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean counting
+                && counting.isThreadAllocatedMemorySupported()) {
+            counting.setThreadAllocatedMemoryEnabled(true);
+            return counting;
+        }
+        return null;
+    }
+}
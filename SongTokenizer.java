@@ -0,0 +1,329 @@
+package assign11;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * The SongTokenizer class splits the contents of a song file into whitespace separated
+ * tokens without using regular expressions. Integers are parsed in place from the bytes
+ * of the buffer, and repeated words such as event types and names are turned into
+ * strings only once.
+ *
+ * The bytes either come from one buffer holding the whole file (for example a memory-mapped
+ * file) or are streamed from a channel into a reusable buffer.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class SongTokenizer {
+    private static final int BUFFER_SIZE = 1 << 16; // 64 KiB per read when streaming
+    private static final int CACHE_SIZE = 64;       // Number of remembered words, a power of two
+
+    private ByteBuffer buffer;                  // Bytes not yet consumed are between position and limit
+    private final ReadableByteChannel channel;  // Source of more bytes, or null if the buffer holds everything
+    private boolean endOfInput;                 // True once the channel has no more bytes
+
+    // A small hash cache from word bytes to the string created for them
+    private final byte[][] cachedBytes;
+    private final String[] cachedWords;
+
+    /**
+     * Creates a tokenizer over bytes that are already in memory, such as a mapped file.
+     *
+     * @param contents The complete contents to tokenize, from position to limit.
+     */
+    public SongTokenizer(ByteBuffer contents) {
+        this.buffer = contents;
+        this.channel = null;
+        this.endOfInput = true;
+        this.cachedBytes = new byte[CACHE_SIZE][];
+        this.cachedWords = new String[CACHE_SIZE];
+    }
+
+    /**
+     * Creates a tokenizer that streams bytes from a channel through a reusable buffer.
+     *
+     * @param channel The channel to read the contents from.
+     */
+    public SongTokenizer(ReadableByteChannel channel) {
+        this(ByteBuffer.allocate(0), channel);
+    }
+
+    /**
+     * Creates a tokenizer that streams bytes from a channel, after some bytes that were
+     * already read from it, such as the first bytes used to recognize the format.
+     *
+     * @param start   The bytes read before, from position to limit.
+     * @param channel The channel to read the rest of the contents from.
+     */
+    public SongTokenizer(ByteBuffer start, ReadableByteChannel channel) {
+        this.buffer = ByteBuffer.allocate(Math.max(BUFFER_SIZE, start.remaining()));
+        this.buffer.put(start);
+        this.buffer.flip(); // Start out holding only the bytes read before
+        this.channel = channel;
+        this.endOfInput = false;
+        this.cachedBytes = new byte[CACHE_SIZE][];
+        this.cachedWords = new String[CACHE_SIZE];
+    }
+
+    /**
+     * Creates a tokenizer for a file channel. The file is memory-mapped so that the
+     * operating system pages it in directly, without copying it through a read buffer.
+     *
+     * @param file The open file to tokenize.
+     * @return A tokenizer over the whole file.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static SongTokenizer map(FileChannel file) throws IOException {
+        long size = file.size();
+        if (size > Integer.MAX_VALUE) {
+            return new SongTokenizer(file); // Too large for one mapping, so stream it instead
+        }
+        return new SongTokenizer(file.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    }
+
+    /**
+     * Reads the next token as an integer.
+     *
+     * @return The parsed value.
+     * @throws IOException            if more input cannot be read.
+     * @throws NoSuchElementException if there are no more tokens.
+     * @throws InputMismatchException if the token is not an integer.
+     */
+    public int nextInt() throws IOException {
+        int start = startToken();
+        int index = start;
+        boolean negative = false;
+        if (buffer.get(index) == '-') {
+            negative = true;
+            index++;
+        }
+        long value = 0;
+        int digitCount = 0;
+        while (true) {
+            if (index == buffer.limit()) {
+                // The number may continue after the end of the buffer
+                int consumed = index - start;
+                buffer.position(start);
+                if (!refill()) {
+                    index = buffer.position() + consumed;
+                    break;
+                }
+                start = buffer.position();
+                index = start + consumed;
+                continue;
+            }
+            byte b = buffer.get(index);
+            if (isWhitespace(b)) {
+                break;
+            }
+            if (b < '0' || b > '9' || digitCount == 10) {
+                throw new InputMismatchException("Expected an integer at \"" + word(start, index + 1) + "\"");
+            }
+            value = value * 10 + (b - '0');
+            digitCount++;
+            index++;
+        }
+        if (digitCount == 0) {
+            throw new InputMismatchException("Expected an integer at \"" + word(start, index) + "\"");
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new InputMismatchException("Integer out of range: " + value);
+        }
+        buffer.position(index);
+        return (int) value;
+    }
+
+    /**
+     * Reads the next token as a string. Words that were seen recently are returned
+     * as the same string object instead of being decoded again.
+     *
+     * @return The next token.
+     * @throws IOException            if more input cannot be read.
+     * @throws NoSuchElementException if there are no more tokens.
+     */
+    public String next() throws IOException {
+        int start = startToken();
+        int end = findTokenEnd(start);
+        start = buffer.position(); // The token may have moved while refilling
+        String word = word(start, end);
+        buffer.position(end);
+        return word;
+    }
+
+    /**
+     * Skips over a number of tokens without decoding them.
+     *
+     * @param count The number of tokens to skip.
+     * @throws IOException            if more input cannot be read.
+     * @throws NoSuchElementException if the input ends first.
+     */
+    public void skip(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            startToken();
+            buffer.position(findTokenEnd(buffer.position()));
+        }
+    }
+
+    /**
+     * Checks whether the whole input is in memory, so parts of it can be tokenized separately.
+     *
+     * @return true if the tokenizer was created over a buffer rather than a channel.
+     */
+    public boolean isInMemory() {
+        return channel == null;
+    }
+
+    /**
+     * Gets the index in the input just past the last token read or skipped.
+     *
+     * @return The index.
+     * @throws IllegalStateException if the input is streamed from a channel.
+     */
+    public int position() {
+        if (channel != null) {
+            throw new IllegalStateException("A streamed input has no fixed positions");
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Creates a separate tokenizer over part of the input, for example a block whose end was
+     * found with skip. The new tokenizer can be used on another thread.
+     *
+     * @param start The index of the first byte, as returned by position.
+     * @param end   The index just past the last byte, as returned by position.
+     * @return A tokenizer over the bytes from start to end.
+     * @throws IllegalStateException if the input is streamed from a channel.
+     */
+    public SongTokenizer slice(int start, int end) {
+        if (channel != null) {
+            throw new IllegalStateException("A streamed input cannot be sliced");
+        }
+        return new SongTokenizer(buffer.slice(start, end - start));
+    }
+
+    /**
+     * Checks whether there is another token.
+     *
+     * @return true if another token can be read.
+     * @throws IOException if more input cannot be read.
+     */
+    public boolean hasNext() throws IOException {
+        return skipWhitespace();
+    }
+
+    // Moves past whitespace to the first byte of the next token and returns its index
+    private int startToken() throws IOException {
+        if (!skipWhitespace()) {
+            throw new NoSuchElementException("Unexpected end of song file");
+        }
+        return buffer.position();
+    }
+
+    // Returns the index just past the token starting at start, refilling as needed.
+    // Afterwards the buffer position is the start of the token.
+    private int findTokenEnd(int start) throws IOException {
+        int index = start;
+        while (true) {
+            if (index == buffer.limit()) {
+                int consumed = index - start;
+                buffer.position(start);
+                if (!refill()) {
+                    return buffer.position() + consumed;
+                }
+                start = buffer.position();
+                index = start + consumed;
+                continue;
+            }
+            if (isWhitespace(buffer.get(index))) {
+                buffer.position(start);
+                return index;
+            }
+            index++;
+        }
+    }
+
+    // Consumes whitespace; returns false if the input ends first
+    private boolean skipWhitespace() throws IOException {
+        while (true) {
+            int index = buffer.position();
+            int limit = buffer.limit();
+            while (index < limit && isWhitespace(buffer.get(index))) {
+                index++;
+            }
+            buffer.position(index);
+            if (index < limit) {
+                return true;
+            }
+            if (!refill()) {
+                return false;
+            }
+        }
+    }
+
+    // Keeps the unread bytes, moves them to the front, and reads more behind them.
+    // Returns false if no more bytes could be read.
+    private boolean refill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        if (buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
+            // One token fills the whole buffer, so make room for it to grow
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            larger.put(buffer);
+            larger.flip();
+            buffer = larger;
+        }
+        buffer.compact();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0 && buffer.hasRemaining());
+        buffer.flip();
+        if (read < 0) {
+            endOfInput = true;
+            return false;
+        }
+        return true;
+    }
+
+    // Returns the string for the bytes from start to end, using the cache when possible
+    private String word(int start, int end) {
+        int length = end - start;
+        int hash = length;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        byte[] known = cachedBytes[slot];
+        if (known != null && known.length == length) {
+            int i = 0;
+            while (i < length && known[i] == buffer.get(start + i)) {
+                i++;
+            }
+            if (i == length) {
+                return cachedWords[slot];
+            }
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        String word = new String(bytes, StandardCharsets.UTF_8);
+        cachedBytes[slot] = bytes;
+        cachedWords[slot] = word;
+        return word;
+    }
+
+    // Same separators that Scanner's default delimiter accepts for ASCII input
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+}
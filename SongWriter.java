@@ -0,0 +1,130 @@
+package assign11;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+/**
+ * The SongWriter class encodes the tokens of a song file into a reusable byte buffer
+ * and hands the buffer to a channel only when it is full. Integers are written as
+ * ASCII digits directly into the buffer, so no intermediate strings are created per field.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class SongWriter {
+    private static final int BUFFER_SIZE = 1 << 16; // 64 KiB between channel writes
+    private static final int MAX_INT_DIGITS = 11;   // "-2147483648"
+
+    private final WritableByteChannel channel; // Destination of the encoded bytes
+    private final ByteBuffer buffer;           // Reusable encoding buffer
+    private final byte[] digits;               // Scratch space for integer conversion
+    private final HashMap<String, byte[]> encodedNames; // Names repeat a lot, so encode them once
+
+    /**
+     * Creates a writer that encodes into a fresh buffer and writes to the given channel.
+     *
+     * @param channel The channel that receives the encoded bytes.
+     */
+    public SongWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.digits = new byte[MAX_INT_DIGITS];
+        this.encodedNames = new HashMap<>();
+    }
+
+    /**
+     * Writes an integer followed by a newline.
+     *
+     * @param value The value to write.
+     * @throws IOException if the channel cannot be written.
+     */
+    public void writeLine(int value) throws IOException {
+        ensureRemaining(MAX_INT_DIGITS + 1);
+        writeInt(value);
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Writes a string followed by a newline. The encoded bytes of each distinct string
+     * are cached, since event names and type labels are repeated for every event.
+     *
+     * @param value The string to write.
+     * @throws IOException if the channel cannot be written.
+     */
+    public void writeLine(String value) throws IOException {
+        byte[] bytes = encodedNames.get(value);
+        if (bytes == null) {
+            bytes = value.getBytes(StandardCharsets.UTF_8);
+            encodedNames.put(value, bytes);
+        }
+        writeBytes(bytes);
+        ensureRemaining(1);
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Writes a string followed by an integer on the same line, such as the "track3" label.
+     *
+     * @param prefix The string to write first.
+     * @param value  The integer to append.
+     * @throws IOException if the channel cannot be written.
+     */
+    public void writeLine(String prefix, int value) throws IOException {
+        writeBytes(prefix.getBytes(StandardCharsets.UTF_8));
+        writeLine(value);
+    }
+
+    /**
+     * Writes everything still held in the buffer to the channel.
+     *
+     * @throws IOException if the channel cannot be written.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Copies raw bytes into the buffer, flushing as often as needed for long values
+    private void writeBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int count = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, count);
+            offset += count;
+        }
+    }
+
+    // Writes the ASCII digits of a value; the caller guarantees enough room in the buffer
+    private void writeInt(int value) {
+        if (value == Integer.MIN_VALUE) {
+            buffer.put("-2147483648".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        buffer.put(digits, position, digits.length - position);
+    }
+
+    // Flushes the buffer if fewer than the requested number of bytes are free
+    private void ensureRemaining(int count) throws IOException {
+        if (buffer.remaining() < count) {
+            flush();
+        }
+    }
+}
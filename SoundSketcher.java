@@ -1,5 +1,6 @@
 package assign11;
 
+import java.util.Arrays;
 
 
 
@@ -13,6 +14,11 @@ package assign11;
 public class SoundSketcher {
 
 	public static void main(String[] args) {
+		// Convert a folder of songs without a window, for example in a nightly job
+		if (args.length > 0 && args[0].equals("--batch")) {
+			SongBatch.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 		SoundSketcherFrame frame = new SoundSketcherFrame();
 		frame.setVisible(true);
 
@@ -11,7 +11,12 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 
@@ -22,8 +27,9 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 
 public class SoundSketcherFrame extends JFrame implements ActionListener, ChangeListener {
 	// Instance variables for managing components in the SoundSketcherFrame
+	private SongModel songModel; // The song that every panel is a view of
 	private SongPanel songPanel; // Panel for displaying the song's waveform
-	private BetterDynamicArray<TrackPanel> trackPanelList; // List holding track panels
+	private BetterDynamicArray<TrackTab> trackTabList; // List holding track tabs, which build their panels when shown
 	private final int maxTracksCount = 16; // Maximum number of tracks
 	private boolean isAddingTrack; // Flag to prevent adding tracks during updates
 	private JPanel controlPanel; // Control panel containing playback and tempo controls
@@ -36,13 +42,28 @@ public class SoundSketcherFrame extends JFrame implements ActionListener, Change
 
 	private JMenuItem saveMenuItem; // Menu item for saving the song
 	private JMenuItem loadMenuItem; // Menu item for loading a song
+	private JMenuItem importMenuItem; // Menu item for importing a MIDI file
+	private JMenuItem exportMenuItem; // Menu item for exporting a MIDI file
+	private JMenuItem undoMenuItem; // Menu item for undoing the last edit
+	private JMenuItem redoMenuItem; // Menu item for redoing the last undone edit
+	private JRadioButtonMenuItem timerMenuItem; // Menu item for playing with the Timer engine
+	private JRadioButtonMenuItem midiMenuItem; // Menu item for playing with the MIDI sequencer
+	private PlaybackBackend playback; // Plays the song and the tracks
+	private EditJournal journal; // Records every edit to the current song file, or null
+	private EditHistory history; // Undoes and redoes the edits to the song's events
+
+	// Song file that holds the song until it is saved somewhere else
+	private static final File AUTOSAVE_FILE = new File(System.getProperty("user.home"),
+			".soundsketcher" + File.separator + "autosave." + SongFormat.COMPRESSED_BINARY.getExtension());
 
 	// Constructor to initialize the SoundSketcherFrame
 	public SoundSketcherFrame() {
 		// Initialize components
 		synthesizer = new SimpleSynthesizer(); // Initialize synthesizer for sound generation
-		songPanel = new SongPanel(700, 700); // Initialize the SongPanel with a specified size
-		trackPanelList = new BetterDynamicArray<>(); // Initialize the track panel list
+		playback = PlaybackBackend.TIMER; // Play with the Timer engine until the MIDI sequencer is chosen
+		songModel = new SongModel(synthesizer); // Initialize the song, which starts at 50 BPM
+		songPanel = new SongPanel(700, 700, songModel); // Initialize the SongPanel with a specified size
+		trackTabList = new BetterDynamicArray<>(); // Initialize the track tab list
 		isAddingTrack = false; // Initially not adding any tracks
 		trackTabPane = new JTabbedPane(); // Initialize the tabbed pane for track management
 
@@ -66,16 +87,15 @@ public class SoundSketcherFrame extends JFrame implements ActionListener, Change
 		controlPanel.add(tempoSlider); // Add tempo slider to control panel
 
 		// Track initialization
-		TrackPanel firstTrackPanel = new TrackPanel(650, 650, 0, synthesizer); // Initialize the first track panel
-		firstTrackPanel.setLength(4); // Set the track length to 4
-		firstTrackPanel.setTempo(50); // Set the track tempo to 50 BPM
-		trackPanelList.add(firstTrackPanel); // Add the first track panel to the list
-		songPanel.setTrackList(trackPanelList); // Set the track list for the song panel
+		TrackTab firstTrackTab = new TrackTab(650, 650, songModel.addTrack()); // Initialize the first track tab
+		trackTabList.add(firstTrackTab); // Add the first track tab to the list
 		trackTabPane.addTab("Song", songPanel); // Add the song tab
-		trackTabPane.addTab("Track 0", firstTrackPanel); // Add the first track tab
+		trackTabPane.addTab("Track 0", firstTrackTab); // Add the first track tab
 		trackTabPane.addTab("Add Track", new JPanel()); // Add a tab to add new tracks
 		trackTabPane.setSelectedIndex(1); // Set the initial selected tab to Track 0
+		firstTrackTab.showPanel(); // Build the panel of the tab in front
 		trackTabPane.addChangeListener(this); // Add change listener to the tab pane
+		history = new EditHistory(songModel, this::updateEditMenu); // Keep the edits of the song to undo
 
 		// Main panel setup with layout
 		JPanel mainPanel = new JPanel(new BorderLayout()); // Create a panel with BorderLayout
@@ -89,9 +109,39 @@ public class SoundSketcherFrame extends JFrame implements ActionListener, Change
 		loadMenuItem = new JMenuItem("Load"); // Create load menu item
 		saveMenuItem.addActionListener(this); // Add action listener to save menu item
 		loadMenuItem.addActionListener(this); // Add action listener to load menu item
+		importMenuItem = new JMenuItem("Import MIDI"); // Create import menu item
+		exportMenuItem = new JMenuItem("Export MIDI"); // Create export menu item
+		importMenuItem.addActionListener(this); // Add action listener to import menu item
+		exportMenuItem.addActionListener(this); // Add action listener to export menu item
 		fileMenu.add(saveMenuItem); // Add save item to the file menu
 		fileMenu.add(loadMenuItem); // Add load item to the file menu
+		fileMenu.addSeparator();
+		fileMenu.add(importMenuItem); // Add import item to the file menu
+		fileMenu.add(exportMenuItem); // Add export item to the file menu
 		menuBar.add(fileMenu); // Add file menu to the menu bar
+		JMenu editMenu = new JMenu("Edit"); // Create a menu for undoing edits
+		undoMenuItem = new JMenuItem("Undo"); // Create undo menu item
+		redoMenuItem = new JMenuItem("Redo"); // Create redo menu item
+		undoMenuItem.setAccelerator(KeyStroke.getKeyStroke("ctrl Z"));
+		redoMenuItem.setAccelerator(KeyStroke.getKeyStroke("ctrl Y"));
+		undoMenuItem.addActionListener(this); // Add action listener to undo menu item
+		redoMenuItem.addActionListener(this); // Add action listener to redo menu item
+		editMenu.add(undoMenuItem); // Add undo item to the edit menu
+		editMenu.add(redoMenuItem); // Add redo item to the edit menu
+		menuBar.add(editMenu); // Add edit menu to the menu bar
+		updateEditMenu(); // Nothing to undo yet
+		JMenu playbackMenu = new JMenu("Playback"); // Create a menu for choosing the playback engine
+		timerMenuItem = new JRadioButtonMenuItem("Timer engine", true); // Create timer engine item
+		midiMenuItem = new JRadioButtonMenuItem("MIDI sequencer"); // Create MIDI sequencer item
+		midiMenuItem.setToolTipText("<html>" + MidiPlayback.LIMITATIONS.replace(". ", ".<br>") + "</html>"); // What it does not play like the timer
+		timerMenuItem.addActionListener(this); // Add action listener to timer engine item
+		midiMenuItem.addActionListener(this); // Add action listener to MIDI sequencer item
+		ButtonGroup playbackGroup = new ButtonGroup(); // Only one engine plays at a time
+		playbackGroup.add(timerMenuItem);
+		playbackGroup.add(midiMenuItem);
+		playbackMenu.add(timerMenuItem); // Add timer engine item to the playback menu
+		playbackMenu.add(midiMenuItem); // Add MIDI sequencer item to the playback menu
+		menuBar.add(playbackMenu); // Add playback menu to the menu bar
 		setJMenuBar(menuBar); // Set the menu bar for the frame
 
 		// Frame setup
@@ -100,6 +150,18 @@ public class SoundSketcherFrame extends JFrame implements ActionListener, Change
 		this.setDefaultCloseOperation(EXIT_ON_CLOSE); // Close the application when the window is closed
 		setContentPane(mainPanel); // Set the main panel as the content pane
 		this.pack(); // Pack the components within the frame
+
+		// Autosave: recover the last session if it ended with unsaved edits, then journal every edit
+		startAutosave();
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				stopJournal(false); // Keep the journal, so unsaved edits come back next time
+				if (playback instanceof MidiPlayback midiPlayback) {
+					midiPlayback.close(); // Release the MIDI sequencers
+				}
+			}
+		});
 	}
 
 	// ActionPerformed method to handle actions for play, loop, save, and load buttons
@@ -108,12 +170,12 @@ public class SoundSketcherFrame extends JFrame implements ActionListener, Change
 		// If the source of the action is the play button
 		if (event.getSource() == playButton) {
 			boolean play = playButton.isSelected(); // Check if the play button is selected
-			for (int i = 0; i < trackPanelList.size(); i++) {
+			for (int i = 0; i < trackTabList.size(); i++) {
 				if (play) {
-					trackPanelList.get(i).play(); // Start playing all tracks
+					trackTabList.get(i).play(); // Start playing all tracks
 					playButton.setText("Stop"); // Change button text to "Stop"
 				} else {
-					trackPanelList.get(i).stop(); // Stop playing all tracks
+					trackTabList.get(i).stop(); // Stop playing all tracks
 					playButton.setText("Play"); // Change button text to "Play"
 				}
 			}
@@ -121,8 +183,8 @@ public class SoundSketcherFrame extends JFrame implements ActionListener, Change
 		// If the source of the action is the loop button
 		else if (event.getSource() == loopButton) {
 			boolean loop = loopButton.isSelected(); // Check if the loop button is selected
-			for (int i = 0; i < trackPanelList.size(); i++) {
-				trackPanelList.get(i).setLoop(loop); // Set the loop property for all tracks
+			for (int i = 0; i < trackTabList.size(); i++) {
+				trackTabList.get(i).setLoop(loop); // Set the loop property for all tracks
 			}
 		}
 		// If the source of the action is the save menu item
@@ -133,6 +195,92 @@ public class SoundSketcherFrame extends JFrame implements ActionListener, Change
 		else if (event.getSource() == loadMenuItem) {
 			loadFromFile(); // Call the load method
 		}
+		// If the source of the action is the import menu item
+		else if (event.getSource() == importMenuItem) {
+			importMidi(); // Call the import method
+		}
+		// If the source of the action is the export menu item
+		else if (event.getSource() == exportMenuItem) {
+			exportMidi(); // Call the export method
+		}
+		// If the source of the action is the undo or redo menu item
+		else if (event.getSource() == undoMenuItem) {
+			history.undo(); // Put the song back as it was before the last edit
+		}
+		else if (event.getSource() == redoMenuItem) {
+			history.redo(); // Make the last undone edit again
+		}
+		// If the source of the action is one of the playback menu items
+		else if (event.getSource() == timerMenuItem && playback != PlaybackBackend.TIMER) {
+			changePlayback(PlaybackBackend.TIMER); // Play with the Timer engine
+		}
+		else if (event.getSource() == midiMenuItem && !(playback instanceof MidiPlayback)) {
+			changePlayback(new MidiPlayback(synthesizer)); // Play with the MIDI sequencer
+		}
+	}
+
+	// Stops everything that plays, then plays with a different backend from now on
+	private void changePlayback(PlaybackBackend newPlayback) {
+		setPlayback(newPlayback);
+		if (playback instanceof MidiPlayback midiPlayback) {
+			midiPlayback.close(); // Release the MIDI sequencers of the old backend
+		}
+		playback = newPlayback;
+		playButton.setSelected(false);
+		playButton.setText("Play");
+	}
+
+	// Gives every panel the backend that plays it
+	private void setPlayback(PlaybackBackend backend) {
+		songPanel.setPlayback(backend);
+		for (int i = 0; i < trackTabList.size(); i++) {
+			trackTabList.get(i).setPlayback(backend);
+		}
+	}
+
+	// Method to replace the current song with one converted from a MIDI file
+	private void importMidi() {
+		JFileChooser chooser = new JFileChooser();
+		chooser.setFileFilter(new FileNameExtensionFilter("MIDI files", MidiFiles.EXTENSION, "midi"));
+		if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+			File file = chooser.getSelectedFile();
+			// The journal of the current song must not fold into the autosave file while it is replaced
+			EditJournal replaced = journal != null && journal.getSnapshot().equals(AUTOSAVE_FILE) ? journal : null;
+			if (replaced != null) {
+				replaced.beginSave();
+			}
+
+			// Convert and autosave in the background; the imported song is kept in the autosave file until saved
+			AtomicBoolean autosaved = new AtomicBoolean();
+			runFileTask(new SongFileTask("Importing " + file.getName(), progress -> {
+				SongData song = MidiFiles.read(file, progress);
+				autosaved.set(writeAutosave(song));
+				return song;
+			}, song -> showSong(autosaved.get() ? AUTOSAVE_FILE : null, song), () -> {
+				if (replaced != null && replaced == journal) {
+					if (autosaved.get()) {
+						stopJournal(false); // The autosave file holds the import now, so the journal no longer fits it
+						System.out.println("Autosave is off until the song is saved");
+					} else {
+						replaced.cancelSave();
+					}
+				}
+			}));
+		}
+	}
+
+	// Method to write the current song to a MIDI file
+	private void exportMidi() {
+		JFileChooser chooser = new JFileChooser();
+		chooser.setFileFilter(new FileNameExtensionFilter("MIDI files", MidiFiles.EXTENSION, "midi"));
+		if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+			File file = chooser.getSelectedFile();
+			SongData song = songModel.capture();
+			runFileTask(new SongFileTask("Exporting " + file.getName(), progress -> {
+				MidiFiles.write(song, file, progress);
+				return song;
+			}, exported -> { }));
+		}
 	}
 
 
@@ -141,8 +289,15 @@ public class SoundSketcherFrame extends JFrame implements ActionListener, Change
 		// Create a new file chooser for selecting where to save the file
 		JFileChooser chooser = new JFileChooser();
 
-		// Set the file filter so only files with the extension ".song" are shown
-		chooser.setFileFilter(new FileNameExtensionFilter("Song files", "song"));
+		// Offer the text format, the compact binary format and gzip compression, text being the default
+		FileNameExtensionFilter textFilter = new FileNameExtensionFilter("Song files", SongFormat.TEXT.getExtension());
+		FileNameExtensionFilter binaryFilter = new FileNameExtensionFilter("Binary song files",
+				SongFormat.BINARY.getExtension());
+		FileNameExtensionFilter compressedFilter = new FileNameExtensionFilter("Compressed song files", "gz");
+		chooser.addChoosableFileFilter(textFilter);
+		chooser.addChoosableFileFilter(binaryFilter);
+		chooser.addChoosableFileFilter(compressedFilter);
+		chooser.setFileFilter(textFilter);
 
 		// Show the save dialog and get the result
 		int result = chooser.showSaveDialog(this);
@@ -152,8 +307,34 @@ public class SoundSketcherFrame extends JFrame implements ActionListener, Change
 			// Get the selected file
 			File file = chooser.getSelectedFile();
 
-			// Call a method to write the song data to the file
-			writeFile(file);
+			// Use the format of the chosen filter if it names one, otherwise go by the file name
+			SongFormat format = SongFormat.forFile(file);
+			if (chooser.getFileFilter() == binaryFilter) {
+				format = SongFormat.BINARY;
+			} else if (chooser.getFileFilter() == compressedFilter && !format.isCompressed()) {
+				format = SongFormat.of(format.isBinary(), true);
+			}
+
+			// Capture the song here, then encode and write it in the background; the journal
+			// keeps the edits made meanwhile, and does not fold into a file the save may be writing
+			SongData song = songModel.capture();
+			EditJournal savingJournal = journal;
+			if (savingJournal != null) {
+				savingJournal.beginSave();
+			}
+			runFileTask(SongFileTask.save(file, format, song, saved -> {
+				// The saved file holds every edit up to the capture, so the journal follows it with the later ones
+				if (savingJournal != null && journal == savingJournal) {
+					followSave(file);
+				} else {
+					stopJournal(true);
+					startJournal(file);
+				}
+			}, () -> {
+				if (savingJournal != null) {
+					savingJournal.cancelSave(); // The journal still applies to its own file
+				}
+			}));
 		}
 	}
 
@@ -162,8 +343,9 @@ public class SoundSketcherFrame extends JFrame implements ActionListener, Change
 		// Create a new file chooser for selecting the file to load
 		JFileChooser chooser = new JFileChooser();
 
-		// Set the file filter to show only ".song" files
-		chooser.setFileFilter(new FileNameExtensionFilter("Song files", "song"));
+		// Set the file filter to show only song files, in either format
+		chooser.setFileFilter(new FileNameExtensionFilter("Song files", SongFormat.TEXT.getExtension(),
+				SongFormat.BINARY.getExtension(), "gz"));
 
 		// Show the open dialog and get the result
 		int result = chooser.showOpenDialog(this);
@@ -173,29 +355,170 @@ public class SoundSketcherFrame extends JFrame implements ActionListener, Change
 			// Get the selected file
 			File file = chooser.getSelectedFile();
 
-			// Read the file and get the tempo value
-			int tempo = readFile(file);
+			// Reloading the journaled file folds its journal, so stop writing to it first
+			if (journal != null && journal.getSnapshot().equals(file)) {
+				stopJournal(false);
+			}
+			boolean recover = askToRecover(file);
+
+			// Read and parse the file in the background; the panels only change once it is done
+			runFileTask(new SongFileTask("Loading " + file.getName(), progress -> {
+				resolveJournal(file, recover);
+				return SongFiles.openSong(file, progress);
+			}, song -> showSong(file, song)));
+		}
+	}
+
+	// Runs a load or save in the background with a progress dialog that can cancel it
+	private void runFileTask(SongFileTask task) {
+		setFileMenuEnabled(false); // One file task at a time
+		ProgressMonitor monitor = new ProgressMonitor(this, task.getDescription(), null, 0, 100);
+		monitor.setMillisToDecideToPopup(200);
+		task.addPropertyChangeListener(change -> {
+			if ("progress".equals(change.getPropertyName())) {
+				monitor.setProgress(task.getProgress());
+				if (monitor.isCanceled()) {
+					task.cancel(false); // The task stops at its next progress report
+				}
+			} else if (task.isDone()) {
+				monitor.close();
+				setFileMenuEnabled(true);
+			}
+		});
+		task.execute();
+	}
+
+	private void setFileMenuEnabled(boolean enabled) {
+		saveMenuItem.setEnabled(enabled);
+		loadMenuItem.setEnabled(enabled);
+		importMenuItem.setEnabled(enabled);
+		exportMenuItem.setEnabled(enabled);
+	}
+
+	// Asks whether to recover edits a crash left in the journal of a song file
+	private boolean askToRecover(File file) {
+		return EditJournal.hasRecoverableEdits(file) && JOptionPane.showConfirmDialog(this,
+				"The song has edits that were not saved. Recover them?", "Recover edits",
+				JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
+	}
+
+	// Folds the journal of a song file into it, or drops the journal
+	private static void resolveJournal(File file, boolean recover) throws IOException {
+		if (recover) {
+			EditJournal.recover(file);
+		} else {
+			Files.deleteIfExists(EditJournal.journalFile(file).toPath());
+		}
+	}
+
+	// Replaces the current song with one read from a file, in one update, then journals it
+	// to that file; with no file, edits are not journaled until the song is saved
+	private void showSong(File file, SongData song) {
+		stopJournal(false);
+		if (playback instanceof MidiPlayback midiPlayback) {
+			midiPlayback.close(); // Stops the old tracks and forgets what was compiled for them
+		}
+
+		// Swap in the tracks and events, then give each new track a tab, which builds its panel when shown
+		songModel.load(song);
+		history.reset(); // Edits of the old song cannot be undone in the new one
+		songPanel.setLength(songModel.getLength());
+		trackTabList.clear();
+		for (int i = 0; i < songModel.getTrackCount(); i++) {
+			trackTabList.add(new TrackTab(650, 650, songModel.getTrack(i)));
+		}
+		setPlayback(playback); // The new tracks play with the chosen backend
+
+		// Set the tempo slider value to the tempo read from the file, widening its range if needed
+		setTempoSlider(songModel.getTempo());
+
+		// Update the tabs to reflect the loaded song data
+		updateTabs();
+
+		if (file != null) {
+			startJournal(file);
+		}
+	}
 
-			// Set the tempo slider value to the tempo read from the file
-			tempoSlider.setValue(tempo);
+	// Opens the autosave file if it has unsaved edits, otherwise starts it from the new song
+	private void startAutosave() {
+		try {
+			Files.createDirectories(AUTOSAVE_FILE.getParentFile().toPath());
+			if (AUTOSAVE_FILE.exists()) {
+				if (askToRecover(AUTOSAVE_FILE)) {
+					// Fold the edits in and read the song in the background, as a load does; journaling starts once it shows
+					runFileTask(new SongFileTask("Recovering " + AUTOSAVE_FILE.getName(), progress -> {
+						resolveJournal(AUTOSAVE_FILE, true);
+						return SongFiles.openSong(AUTOSAVE_FILE, progress);
+					}, song -> showSong(AUTOSAVE_FILE, song),
+							() -> System.out.println("Autosave is off: the last session could not be recovered")));
+					return;
+				}
+				resolveJournal(AUTOSAVE_FILE, false);
+			}
+			if (writeAutosave(songModel.capture())) {
+				startJournal(AUTOSAVE_FILE);
+			}
+		} catch (IOException e) {
+			System.out.println("Autosave is off: " + e.getMessage());
+		}
+	}
 
-			// Update the tabs to reflect the loaded song data
-			updateTabs();
+	// Makes a song the snapshot in the autosave file; returns false if it cannot be written.
+	// It touches no panel, so it runs in background tasks too
+	private static boolean writeAutosave(SongData song) {
+		try {
+			SongFiles.writeSong(AUTOSAVE_FILE, SongFormat.COMPRESSED_BINARY, song);
+			return true;
+		} catch (IOException e) {
+			System.out.println("Autosave is off: " + e.getMessage());
+			return false;
 		}
 	}
 
-	private void writeFile(File file) {
-		SongFiles.writeFile(file,tempoSlider.getValue(),trackPanelList,songPanel);
-		// Implementation for reading file
-		// Restore the state and return the tempo value
+	// Starts journaling edits to a song file that holds the current song
+	private void startJournal(File file) {
+		try {
+			journal = EditJournal.open(file);
+			setEditListener(journal);
+		} catch (IOException e) {
+			journal = null;
+			System.out.println("Error starting journal: " + e.getMessage());
+		}
 	}
 
-	private int readFile(File file) {
-		return SongFiles.readFile(file,synthesizer, trackPanelList,songPanel,700,700 );
+	// Moves journaling to a file the song was just saved to, keeping the edits made during the save
+	private void followSave(File file) {
+		setEditListener(null);
+		try {
+			journal = journal.finishSave(file);
+			setEditListener(journal);
+		} catch (IOException e) {
+			journal = null; // The old journal is kept, with every edit, for its own file
+			System.out.println("Error starting journal: " + e.getMessage());
+		}
+	}
 
-		// Implementation for reading file
-		// Restore the state and return the tempo value
+	// Stops journaling; a discarded journal is deleted since its edits were saved another way
+	private void stopJournal(boolean discard) {
+		if (journal != null) {
+			setEditListener(null);
+			if (discard) {
+				journal.discard();
+			} else {
+				journal.close();
+			}
+			journal = null;
+		}
+	}
 
+	// Gives every panel the listener that is told about the user's edits, and about undone edits
+	private void setEditListener(EditListener listener) {
+		history.setEditListener(listener);
+		songPanel.setEditListener(listener);
+		for (int i = 0; i < trackTabList.size(); i++) {
+			trackTabList.get(i).setEditListener(listener);
+		}
 	}
 
 	// Method to update the track tabs, ensuring that they reflect the current track list
@@ -207,34 +530,44 @@ public class SoundSketcherFrame extends JFrame implements ActionListener, Change
 			trackTabPane.remove(1); // Remove the tab at index 1 (index 0 is for the song panel)
 		}
 
-		// Add a tab for each track currently in the trackPanelList
+		// Add a tab for each track currently in the trackTabList
 		int trackNumber = 0;
-		while (trackNumber < trackPanelList.size()) {
+		while (trackNumber < trackTabList.size()) {
 			// Insert a new tab for each track, with a label like "Track 0", "Track 1", etc.
-			trackTabPane.insertTab("Track " + trackNumber, null, trackPanelList.get(trackNumber), null, trackNumber + 1);
+			trackTabPane.insertTab("Track " + trackNumber, null, trackTabList.get(trackNumber), null, trackNumber + 1);
 			trackNumber++; // Move to the next track
 		}
 
-		// Select the first track tab (default after updating)
+		// Select the first track tab (default after updating), and build its panel even if the selected index did not change
 		trackTabPane.setSelectedIndex(1);
+		if (trackTabPane.getSelectedComponent() instanceof TrackTab track) {
+			track.showPanel();
+		}
 		isAddingTrack = false; // Allow further updates after track tab modification
 	}
 
-	// Method to add a new track to the trackPanelList and update the tabs
+	// Method to add a new track to the trackTabList and update the tabs
 	public void addTrack() {
 		isAddingTrack = true; // Prevents changes while adding a new track
 
 		// Check if the number of tracks is less than the maximum allowed
-		if (trackPanelList.size() < maxTracksCount) {
-			// Create a new track panel with size and synthesizer settings
-			TrackPanel newTrackPanel = new TrackPanel(650, 650, trackPanelList.size(), synthesizer);
-			newTrackPanel.setTempo(tempoSlider.getValue()); // Set the tempo for the new track
-			newTrackPanel.setLoop(loopButton.isSelected()); // Set whether the track should loop
-			trackPanelList.add(newTrackPanel); // Add the new track panel to the list
-			newTrackPanel.setLength(4); // Set the length of the track
+		if (trackTabList.size() < maxTracksCount) {
+			// Create a new track tab with size and synthesizer settings; its panel is built once it is selected
+			TrackTab newTrackTab = new TrackTab(650, 650, songModel.addTrack()); // A view of a new track in the song
+			history.followTracks(); // Edits of the new track can be undone
+			newTrackTab.setTempo(tempoSlider.getValue()); // Set the tempo for the new track
+			newTrackTab.setLoop(loopButton.isSelected()); // Set whether the track should loop
+			newTrackTab.setPlayback(playback); // Play the new track with the chosen backend
+			trackTabList.add(newTrackTab); // Add the new track tab to the list
+			if (journal != null) {
+				TrackModel track = newTrackTab.getModel();
+				journal.trackChanged(trackTabList.size() - 1, track.getInstrument(), track.getVolume(),
+						track.getLength()); // Record the new track
+				newTrackTab.setEditListener(journal);
+			}
 
 			// Insert the new track tab at the second to last position
-			trackTabPane.insertTab("Track " + (trackPanelList.size() - 1), null, trackPanelList.get(trackPanelList.size() - 1),
+			trackTabPane.insertTab("Track " + (trackTabList.size() - 1), null, trackTabList.get(trackTabList.size() - 1),
 					null, trackTabPane.getTabCount() - 1);
 		}
 
@@ -245,6 +578,10 @@ public class SoundSketcherFrame extends JFrame implements ActionListener, Change
 
 	// Method to handle state changes in components (like tab changes or tempo changes)
 	public void stateChanged(ChangeEvent event) {
+		// Tracks only get a panel, and tracks from a file only create their events, once their tab is shown
+		if (event.getSource() == trackTabPane && trackTabPane.getSelectedComponent() instanceof TrackTab track) {
+			track.showPanel();
+		}
 		// Check if the event source is the track tab pane and if it's the "Add Track" tab
 		if (event.getSource() == trackTabPane && trackTabPane.getSelectedIndex() == trackTabPane.getTabCount() - 1
 				&& !isAddingTrack) {
@@ -254,16 +591,26 @@ public class SoundSketcherFrame extends JFrame implements ActionListener, Change
 		else if (event.getSource() == tempoSlider) {
 			int newTempo = tempoSlider.getValue(); // Get the new tempo value from the slider
 			tempoLabel.setText("Tempo: " + newTempo + " BPM"); // Update the tempo label with the new value
+			songModel.setTempo(newTempo); // Update the tempo of the song and its tracks
 			songPanel.setTempo(newTempo); // Update the tempo of the song panel
-			// Update the tempo for each track in the track panel list
-			for (int i = 0; i < trackPanelList.size(); i++) {
-				trackPanelList.get(i).setTempo(newTempo);
+			if (journal != null) {
+				journal.tempoChanged(newTempo); // Record the edit
+			}
+			// Update the tempo for each track in the track tab list
+			for (int i = 0; i < trackTabList.size(); i++) {
+				trackTabList.get(i).setTempo(newTempo);
 			}
 		}
 	}
 
 
 
+	// Enables the undo and redo menu items when there is an edit to undo or redo
+	private void updateEditMenu() {
+		undoMenuItem.setEnabled(history.canUndo());
+		redoMenuItem.setEnabled(history.canRedo());
+	}
+
 	// Method to set the tempo of the tempo slider and adjust its range if necessary
 	private void setTempoSlider(int newTempo) {
 		// If the new tempo is less than the current minimum value, update the minimum
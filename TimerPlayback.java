@@ -0,0 +1,37 @@
+package assign11;
+
+/**
+ * The TimerPlayback class plays sequences with the Timer engine built into SimpleSequencer,
+ * which schedules every event on a java.util.Timer. It reads the tempo and loop setting
+ * whenever it schedules, so it has nothing to update when they change.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class TimerPlayback implements PlaybackBackend {
+
+    @Override
+    public void play(SimpleSequencer sequencer) {
+        sequencer.start();
+    }
+
+    @Override
+    public void stop(SimpleSequencer sequencer) {
+        sequencer.stop();
+    }
+
+    @Override
+    public void settingsChanged(SimpleSequencer sequencer) {
+        // The next start or loop schedules with the new settings
+    }
+
+    @Override
+    public boolean isPlaying(SimpleSequencer sequencer) {
+        return sequencer.isRunning(); // A song starts its tracks' own sequencers
+    }
+
+    @Override
+    public double getElapsedTime(SimpleSequencer sequencer) {
+        return sequencer.getElapsedTime();
+    }
+}
@@ -0,0 +1,186 @@
+package assign11;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The TrackData class holds what a song file stores about one track: its number,
+ * instrument, volume, length, and events. It has no sequencer or Swing component,
+ * so it can be read, written and converted anywhere.
+ *
+ * Track data read from a binary song can keep its events as the encoded chunk from the
+ * file and decode them only when they are first asked for. Until then the chunk can be
+ * written to a new binary song as it is, without decoding and encoding it again.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class TrackData {
+    private int number;       // The track number, which is also its synthesizer channel
+    private int instrument;   // Index into the synthesizer's instrument list
+    private int volume;       // Channel volume between 0 and 127
+    private int length;       // Length of the track in beats
+    private EventTable events; // The events of the track, or null until the chunk is decoded
+    private int eventCount;    // The number of events, known before decoding
+    private ByteBuffer chunk;  // The encoded events as read from a binary song, or null
+
+    /**
+     * Creates the data for one track.
+     *
+     * @param number     The track number.
+     * @param instrument The instrument index.
+     * @param volume     The volume.
+     * @param length     The length in beats.
+     * @param events     The events of the track.
+     */
+    public TrackData(int number, int instrument, int volume, int length, EventTable events) {
+        this.number = number;
+        this.instrument = instrument;
+        this.volume = volume;
+        this.length = length;
+        this.events = events;
+        this.eventCount = events.size();
+        this.chunk = null;
+    }
+
+    /**
+     * Creates the data for one track whose events are decoded from a binary song chunk
+     * the first time they are needed.
+     *
+     * @param number     The track number.
+     * @param instrument The instrument index.
+     * @param volume     The volume.
+     * @param length     The length in beats.
+     * @param eventCount The number of events in the chunk.
+     * @param chunk      The encoded events, from position to limit.
+     */
+    public TrackData(int number, int instrument, int volume, int length, int eventCount, ByteBuffer chunk) {
+        this.number = number;
+        this.instrument = instrument;
+        this.volume = volume;
+        this.length = length;
+        this.events = null;
+        this.eventCount = eventCount;
+        this.chunk = chunk;
+    }
+
+    /**
+     * Gets the track number.
+     *
+     * @return The track number.
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Gets the instrument index.
+     *
+     * @return The instrument index.
+     */
+    public int getInstrument() {
+        return instrument;
+    }
+
+    /**
+     * Gets the volume.
+     *
+     * @return The volume.
+     */
+    public int getVolume() {
+        return volume;
+    }
+
+    /**
+     * Gets the length in beats.
+     *
+     * @return The length.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the events of the track, decoding them first if they are still encoded.
+     *
+     * @return The events.
+     * @throws IllegalStateException if the encoded events are not valid.
+     */
+    public synchronized EventTable getEvents() {
+        if (events == null) {
+            try {
+                events = BinarySongFormat.decodeChunk(chunk.duplicate(), eventCount);
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalStateException("Corrupt events in track " + number, e);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Gets the events of the track for changing them. The encoded chunk is dropped,
+     * since it no longer matches the events.
+     *
+     * @return The events.
+     */
+    public synchronized EventTable editEvents() {
+        EventTable table = getEvents();
+        chunk = null;
+        return table;
+    }
+
+    /**
+     * Changes the settings of the track.
+     *
+     * @param instrument The instrument index.
+     * @param volume     The volume.
+     * @param length     The length in beats.
+     */
+    public void setSettings(int instrument, int volume, int length) {
+        this.instrument = instrument;
+        this.volume = volume;
+        this.length = length;
+    }
+
+    /**
+     * Gets the number of events without decoding them.
+     *
+     * @return The number of events.
+     */
+    public synchronized int getEventCount() {
+        return events != null ? events.size() : eventCount;
+    }
+
+    /**
+     * Checks whether the events have been decoded.
+     *
+     * @return true if getEvents will not need to decode.
+     */
+    public synchronized boolean isLoaded() {
+        return events != null;
+    }
+
+    /**
+     * Gets the encoded events as read from a binary song, if this track came from one.
+     *
+     * @return A view of the encoded chunk, or null if there is none.
+     */
+    public ByteBuffer getChunk() {
+        return chunk == null ? null : chunk.duplicate();
+    }
+
+    /**
+     * Creates a copy with different settings that shares these events, encoded or not.
+     *
+     * @param number     The track number.
+     * @param instrument The instrument index.
+     * @param volume     The volume.
+     * @param length     The length in beats.
+     * @return The new track data.
+     */
+    public synchronized TrackData withSettings(int number, int instrument, int volume, int length) {
+        TrackData copy = new TrackData(number, instrument, volume, length, eventCount, chunk);
+        copy.events = events;
+        return copy;
+    }
+}
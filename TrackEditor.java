@@ -6,33 +6,44 @@ package assign11;
 
 
 
-import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.event.ActionEvent;
 import java.util.ArrayList;
 import java.util.Vector;
+import java.util.function.Function;
+import javax.swing.AbstractAction;
+import javax.swing.KeyStroke;
 
-public class TrackEditor extends GridCanvas {
-    // Declare instance variables for sequencer, synthesizer, track number, dimensions, and current pitch
+public class TrackEditor extends GridCanvas<NoteEvent> implements SequenceListener {
+    // Declare instance variables for the model, sequencer, synthesizer, track number, dimensions, and current pitch
+    private TrackModel model; // The track this editor shows and edits
     private SimpleSequencer simpleSequencer;
     private SimpleSynthesizer simpleSynthesizer;
     private int trackNumber;
     private int width;
     private int height;
     private int currentPitch;
+    private EditListener editListener; // Told about every note the user adds or removes, or null
+    private PlayheadAnimator.Playhead playhead; // Shows the elapsed time of the sequencer
+    private int shownModificationCount; // Modification count of the sequencer when the grid last matched it
+    private static final int PITCHES = 120; // Rows of the grid, one per pitch
 
-    // Constructor: Initializes the TrackEditor with given dimensions and synthesizer, and sets up the sequencer
-    public TrackEditor(int width, int height, int trackNumber, SimpleSynthesizer simpleSynthesizer) {
-        super(width, height, 120, 4, 10, 4); // Set the grid: 120 rows (pitches), 4 columns (default track length)
+    // Constructor: Initializes the TrackEditor with given dimensions as a view of a track model
+    public TrackEditor(int width, int height, TrackModel model) {
+        super(width, height, PITCHES, model.getLength(), 10, 4); // Set the grid: 120 rows (pitches), a column per beat
         this.width = width;
         this.height = height;
-        this.trackNumber = trackNumber;
-        this.simpleSynthesizer = simpleSynthesizer;
+        this.model = model;
+        this.trackNumber = model.getNumber();
+        this.simpleSynthesizer = model.getSynthesizer();
+        this.simpleSequencer = model.getSequencer();
+        this.playhead = new PlayheadAnimator.Playhead(this, simpleSequencer);
 
         setPreferredSize(new Dimension(width, height)); // Set the preferred size of the panel
 
-        // Create a new SimpleSequencer with a default length of 16 columns
-        this.simpleSequencer = new SimpleSequencer(1);
+        // Show the sequencer's notes now; they follow its changes while the editor is displayable
+        showEvents();
         setRestrictions(1, -1); // Set restrictions for the grid (e.g., row and column limitations)
 
         // Add mouse listeners for interacting with the grid
@@ -41,11 +52,123 @@ public class TrackEditor extends GridCanvas {
 
         // Initialize the pitch range with Middle C (C4) set to 60
         this.currentPitch = 60; // Middle C
+
+        // Keys that edit the notes selected with a shift-drag, each as one change to the sequencer
+        bindKey("DELETE", "delete", () -> editSelection(note -> null, false));
+        bindKey("BACK_SPACE", "delete", null);
+        bindKey("LEFT", "moveLeft", () -> moveSelection(-1));
+        bindKey("RIGHT", "moveRight", () -> moveSelection(1));
+        bindKey("UP", "transposeUp", () -> transposeSelection(1));
+        bindKey("DOWN", "transposeDown", () -> transposeSelection(-1));
+        bindKey("shift UP", "octaveUp", () -> transposeSelection(12));
+        bindKey("shift DOWN", "octaveDown", () -> transposeSelection(-12));
+        bindKey("CLOSE_BRACKET", "lengthen", () -> changeSelectionDuration(1));
+        bindKey("OPEN_BRACKET", "shorten", () -> changeSelectionDuration(-1));
+        bindKey("ctrl D", "duplicate", this::duplicateSelection);
+        bindKey("ctrl A", "selectAll", this::selectAll);
+        bindKey("ESCAPE", "selectNone", () -> setSelection(new BetterDynamicArray<>()));
+    }
+
+    // Run an action when a key is typed while the editor has the focus (a null action reuses the named one)
+    private void bindKey(String key, String name, Runnable action) {
+        getInputMap().put(KeyStroke.getKeyStroke(key), name);
+        if (action != null) {
+            getActionMap().put(name, new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    // Move the selected notes by some beats, no further than keeps them all inside the track
+    private void moveSelection(int beats) {
+        BetterDynamicArray<NoteEvent> selected = getSelection();
+        for (int i = 0; i < selected.size(); i++) {
+            int time = selected.get(i).getTime();
+            beats = Math.max(beats, -time);
+            beats = Math.min(beats, getLength() - 1 - time);
+        }
+        int offset = beats;
+        if (offset != 0) {
+            editSelection(note -> new NoteEvent(note.getTime() + offset, note.getName(), note.getChannel(),
+                    note.getDuration(), note.getPitch(), simpleSynthesizer), false);
+        }
+    }
+
+    // Raise or lower the selected notes by some pitches, no further than keeps them all on the grid
+    private void transposeSelection(int pitches) {
+        BetterDynamicArray<NoteEvent> selected = getSelection();
+        for (int i = 0; i < selected.size(); i++) {
+            int pitch = selected.get(i).getPitch();
+            pitches = Math.max(pitches, -pitch);
+            pitches = Math.min(pitches, PITCHES - 1 - pitch);
+        }
+        int offset = pitches;
+        if (offset != 0) {
+            editSelection(note -> new NoteEvent(note.getTime(), note.getName(), note.getChannel(),
+                    note.getDuration(), note.getPitch() + offset, simpleSynthesizer), false);
+        }
+    }
+
+    // Lengthen or shorten the selected notes by some beats, keeping each at least a beat long
+    private void changeSelectionDuration(int beats) {
+        editSelection(note -> new NoteEvent(note.getTime(), note.getName(), note.getChannel(),
+                Math.max(1, note.getDuration() + beats), note.getPitch(), simpleSynthesizer), false);
+    }
+
+    // Copy the selected notes to just after the span they cover, dropping copies past the end of the track
+    private void duplicateSelection() {
+        BetterDynamicArray<NoteEvent> selected = getSelection();
+        int start = Integer.MAX_VALUE;
+        int end = 0;
+        for (int i = 0; i < selected.size(); i++) {
+            start = Math.min(start, selected.get(i).getTime());
+            end = Math.max(end, selected.get(i).getTime() + selected.get(i).getDuration());
+        }
+        int span = end - start;
+        editSelection(note -> note.getTime() + span >= getLength() ? null
+                : new NoteEvent(note.getTime() + span, note.getName(), note.getChannel(),
+                        note.getDuration(), note.getPitch(), simpleSynthesizer), true);
+    }
+
+    // Replace each selected note by what the edit makes of it (null for nothing) as one change to the
+    // sequencer, so the notes are sorted in once and the grid repaints once; then select the new notes
+    private void editSelection(Function<NoteEvent, NoteEvent> edit, boolean keepSelected) {
+        BetterDynamicArray<NoteEvent> selected = getSelection();
+        if (selected.size() == 0) {
+            return;
+        }
+        BetterDynamicArray<AudioEvent> removed = new BetterDynamicArray<>(selected.size());
+        BetterDynamicArray<AudioEvent> added = new BetterDynamicArray<>(selected.size());
+        BetterDynamicArray<NoteEvent> edited = new BetterDynamicArray<>(selected.size());
+        for (int i = 0; i < selected.size(); i++) {
+            NoteEvent note = edit.apply(selected.get(i));
+            if (!keepSelected) {
+                removed.add(selected.get(i));
+            }
+            if (note != null) {
+                added.add(note);
+                edited.add(note);
+            }
+        }
+        simpleSequencer.replace(removed, added); // Also updates the grid, see eventsReplaced
+        setSelection(edited);
+
+        if (editListener != null) {
+            for (int i = 0; i < removed.size(); i++) {
+                editListener.eventRemoved(trackNumber, removed.get(i)); // Record the edit
+            }
+            for (int i = 0; i < added.size(); i++) {
+                editListener.eventAdded(trackNumber, added.get(i));
+            }
+        }
     }
 
     // Set the length of the track (number of columns in the grid)
     public void setLength(int length) {
-        simpleSequencer.setLength(length); // Update sequencer length
+        model.setLength(length); // Update sequencer length
         setColumns(length); // Adjust grid columns to match the track length
     }
 
@@ -56,22 +179,22 @@ public class TrackEditor extends GridCanvas {
 
     // Set the volume for the track
     public void setVolume(int volume) {
-        simpleSynthesizer.setVolume(this.trackNumber, volume); // Update volume in the synthesizer
+        model.setVolume(volume); // Update volume in the model and the synthesizer
     }
 
     // Get the current volume for the track
     public int getVolume() {
-        return simpleSynthesizer.getVolume(this.trackNumber); // Return the track's volume
+        return model.getVolume(); // Return the track's volume
     }
 
     // Set whether the track is muted
     public void setMute(boolean mute) {
-        simpleSynthesizer.setMute(this.trackNumber, mute); // Mute or unmute the track in the synthesizer
+        model.setMute(mute); // Mute or unmute the track in the model and the synthesizer
     }
 
     // Set the instrument for the track
     public void setInstrument(int instrument) {
-        simpleSynthesizer.setInstrument(this.trackNumber, instrument); // Set the instrument in the synthesizer
+        model.setInstrument(instrument); // Set the instrument in the model and the synthesizer
     }
 
     // Get a list of available instrument names
@@ -79,30 +202,108 @@ public class TrackEditor extends GridCanvas {
         return new Vector<>(simpleSynthesizer.getInstrumentNames()); // Return available instrument names
     }
 
+    // Get the number of the track this editor belongs to
+    public int getTrackNumber() {
+        return trackNumber;
+    }
+
+    // Set the listener that is told about every note the user adds or removes (null for none)
+    public void setEditListener(EditListener editListener) {
+        this.editListener = editListener;
+    }
+
     // Get the sequencer associated with this track editor
     public SimpleSequencer getSequencer() {
         return simpleSequencer;
     }
 
-    // Clear the grid and stop the sequencer
+    // Get the model this editor is a view of
+    public TrackModel getModel() {
+        return model;
+    }
+
+    // Clear the model, which also clears the grid
     @Override
     public void clear() {
-        super.clear(); // Clear the grid canvas
-        simpleSequencer.stop(); // Stop the sequencer
-        simpleSequencer.clear(); // Clear events from the sequencer
+        model.clear(); // Stops the sequencer and clears its events, then the grid follows
     }
 
-    // Set new events in the sequencer and update the grid
+    // Set new events in the model, which also updates the grid
     public void setEvents(BetterDynamicArray<AudioEvent> newEvents) {
-        clear(); // Clear existing events and grid cells
+        model.setEvents(newEvents);
+    }
+
+    // Rebuild the grid from the events in the model
+    private void showEvents() {
+        super.clear(); // Clear existing grid cells
+        setColumns(simpleSequencer.getLength()); // Match the grid to the track length
 
         // Loop through each event and add it to the grid if it's a NoteEvent
-        for (int i = 0; i < newEvents.size(); i++) {
-            if (newEvents.get(i) instanceof NoteEvent noteEvent) {
-                addCell(noteEvent.getPitch(), noteEvent.getTime(), 1, noteEvent.getDuration()); // Add note to the grid
+        for (AudioEvent event : simpleSequencer) {
+            if (event instanceof NoteEvent noteEvent) {
+                addCell(noteEvent); // Add note to the grid
             }
         }
-        simpleSequencer.updateSequence(newEvents); // Update the sequencer with the new events
+        shownModificationCount = simpleSequencer.getModificationCount();
+    }
+
+    // A note is shown at its pitch (row) and start time (column)
+    @Override
+    protected int getCellRow(NoteEvent note) {
+        return note.getPitch();
+    }
+
+    @Override
+    protected int getCellColumn(NoteEvent note) {
+        return note.getTime();
+    }
+
+    // A note covers a column per beat of its duration
+    @Override
+    protected int getCellWidth(NoteEvent note) {
+        return note.getDuration();
+    }
+
+    // Show a note added to the sequencer
+    @Override
+    public void eventAdded(AudioEvent event) {
+        if (event instanceof NoteEvent noteEvent) {
+            addCell(noteEvent);
+        }
+        shownModificationCount = simpleSequencer.getModificationCount();
+    }
+
+    // Stop showing a note removed from the sequencer
+    @Override
+    public void eventRemoved(AudioEvent event) {
+        if (event instanceof NoteEvent noteEvent) {
+            removeCell(noteEvent);
+        }
+        shownModificationCount = simpleSequencer.getModificationCount();
+    }
+
+    // Show the notes of an edit of many at once, changing only the columns they are in
+    @Override
+    public void eventsReplaced(BetterDynamicArray<AudioEvent> removed, BetterDynamicArray<AudioEvent> added) {
+        BetterDynamicArray<NoteEvent> notes = new BetterDynamicArray<>(Math.max(1, removed.size()));
+        for (int i = 0; i < removed.size(); i++) {
+            if (removed.get(i) instanceof NoteEvent noteEvent) {
+                notes.add(noteEvent);
+            }
+        }
+        removeCells(notes);
+        for (int i = 0; i < added.size(); i++) {
+            if (added.get(i) instanceof NoteEvent noteEvent) {
+                addCell(noteEvent);
+            }
+        }
+        shownModificationCount = simpleSequencer.getModificationCount();
+    }
+
+    // Show the sequencer's notes again after they were replaced or added as a batch
+    @Override
+    public void sequenceChanged() {
+        showEvents();
     }
 
     // Paint method for the component; updates the visual representation of the track
@@ -111,14 +312,35 @@ public class TrackEditor extends GridCanvas {
         width = getWidth(); // Get the current width of the panel
         height = getHeight(); // Get the current height of the panel
         super.paintComponent(g); // Call the superclass method to handle the default painting
+        playhead.paint(g); // Draw the time indicator where the animator last moved it
+    }
 
-        // Draw the time indicator for the current position in the sequence
-        int elapsedTime = (int) simpleSequencer.getElapsedTime(); // Get the elapsed time from the sequencer
-        int xPosition = elapsedTime * width / simpleSequencer.getLength(); // Calculate the x-position of the indicator
-        g.setColor(Color.RED); // Set the color for the time indicator (red)
-        g.fillRect(xPosition, 0, 5, height); // Draw the indicator as a vertical line
+    // Follow the sequencer and animate the time indicator while the editor can be shown
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (shownModificationCount != simpleSequencer.getModificationCount()) {
+            showEvents(); // Changed while the editor was not listening
+        }
+        simpleSequencer.addSequenceListener(this);
+        PlayheadAnimator.getShared().add(playhead);
+    }
 
-        repaint(); // Trigger continuous repainting for real-time updates
+    // Stop following once the editor can no longer be shown, so the sequencer does not keep it
+    @Override
+    public void removeNotify() {
+        PlayheadAnimator.getShared().remove(playhead);
+        simpleSequencer.removeSequenceListener(this);
+        super.removeNotify();
+    }
+
+    /**
+     * Moves the time indicator with the sequencer as played by a backend from now on.
+     *
+     * @param playback The backend that plays the sequencer.
+     */
+    public void setPlayback(PlaybackBackend playback) {
+        playhead.setPlayback(playback);
     }
 
     // Handle mouse press events on the grid (start a note)
@@ -144,19 +366,24 @@ public class TrackEditor extends GridCanvas {
         if (colSpan > 0) { // Ensure the note is valid (colSpan > 0)
             // Create a new NoteEvent with the current details and add it to the sequencer
             NoteEvent noteEvent = new NoteEvent(col, "note", trackNumber, colSpan, row, simpleSynthesizer);
-            simpleSequencer.add(noteEvent); // Add the note to the sequencer
+            simpleSequencer.add(noteEvent); // Add the note to the sequencer, which shows it
             simpleSynthesizer.noteOff(trackNumber, row); // Turn off the note after it has been added
+            if (editListener != null) {
+                editListener.eventAdded(trackNumber, noteEvent); // Record the edit
+            }
         }
     }
 
-    // Handle the removal of a cell (event) from the grid and sequencer
+    // Handle the removal of the cells (events) at a position from the sequencer and grid
     @Override
     public void onCellRemoved(int row, int col) {
-        for (AudioEvent event : simpleSequencer) {
-            // Check if the event is a NoteEvent and matches the row and column of the removed cell
-            if (event instanceof NoteEvent noteEvent && noteEvent.getPitch() == row && noteEvent.getTime() == col) {
-                simpleSequencer.remove(event); // Remove the event from the sequencer
-                break;
+        // Look up the notes of the cells by their pitch and time
+        BetterDynamicArray<NoteEvent> notes = getCellsAt(row, col);
+        for (int i = 0; i < notes.size(); i++) {
+            NoteEvent noteEvent = notes.get(i);
+            simpleSequencer.remove(noteEvent); // Remove the event from the sequencer, which hides it
+            if (editListener != null) {
+                editListener.eventRemoved(trackNumber, noteEvent); // Record the edit
             }
         }
     }
@@ -1,6 +1,6 @@
 package assign11;
 
-
+import java.util.WeakHashMap;
 
 
 /**
@@ -18,6 +18,12 @@ public class TrackEvent extends AudioEvent {
     // The sequence of AudioEvents associated with the track.
     private SimpleSequencer sequence;
 
+    // Starts of this block whose completion has not run yet.
+    private int playing;
+
+    // The block that last started each track, so an earlier block that ends does not stop it.
+    private static final WeakHashMap<SimpleSequencer, TrackEvent> STARTED = new WeakHashMap<>();
+
     /**
      * Constructor for creating a TrackEvent object.
      *
@@ -76,24 +82,43 @@ public class TrackEvent extends AudioEvent {
      */
     @Override
     public void execute() {
-        sequence.start();
+        synchronized (STARTED) {
+            playing++;
+            STARTED.put(sequence, this);
+            sequence.start();
+        }
     }
 
     /**
-     * Completes the event (currently not implemented).
+     * Completes the event by stopping the track at the end of its block, so a looping track
+     * repeats only within the block and a longer track is cut off there. The track is left
+     * playing if another block, or this block again, has started it since: a block that
+     * touches the next one ends at the same millisecond the next one starts, and the timer
+     * may run the two in either order.
      */
     @Override
     public void complete() {
-        // Future implementation can be added here.
+        synchronized (STARTED) {
+            playing = Math.max(0, playing - 1);
+            if (playing == 0 && STARTED.get(sequence) == this) {
+                STARTED.remove(sequence);
+                sequence.stop();
+            }
+        }
     }
 
     /**
-     * Cancels the event (currently not implemented).
+     * Cancels the event by stopping the track.
      */
     @Override
     public void cancel() {
-        sequence.stop();
-        // Future implementation can be added here.
+        synchronized (STARTED) {
+            playing = 0;
+            if (STARTED.get(sequence) == this) {
+                STARTED.remove(sequence);
+            }
+            sequence.stop();
+        }
     }
 
     /**
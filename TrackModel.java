@@ -0,0 +1,226 @@
+package assign11;
+
+import java.util.function.Supplier;
+
+/**
+ * The TrackModel class is the live state of one track without any Swing component: its
+ * sequencer of events, and the instrument, volume and mute setting it plays with on its
+ * synthesizer channel. A TrackPanel and its TrackEditor are views over a track model, so a
+ * song can be loaded, played, converted and saved in a headless JVM.
+ *
+ * Events from a file can be given to the model without creating them yet; they are created
+ * the first time the track is shown, played or edited, see setEventsLater.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class TrackModel {
+    public static final int DEFAULT_LENGTH = 4;   // Length of a new track in beats
+    public static final int DEFAULT_VOLUME = 100; // Volume of a new track, the synthesizer's own default
+
+    private final int number;                // The track number, which is also its synthesizer channel
+    private final SimpleSynthesizer synth;   // Plays the track's notes
+    private final SimpleSequencer sequencer; // The events of the track
+    private int instrument;                  // Index into the synthesizer's instrument list
+    private int volume;                      // Channel volume between 0 and 127
+    private boolean mute;                    // Whether the channel is muted
+    private TrackData source;                // Saved data the events came from, or null
+    private Supplier<BetterDynamicArray<AudioEvent>> pendingEvents; // Creates the events when first needed
+    private int sourceModificationCount;     // Sequencer modification count right after the source was loaded
+
+    /**
+     * Creates an empty track with the default length and volume and the first instrument.
+     *
+     * @param number The track number, which is also the synthesizer channel it plays on.
+     * @param synth  The synthesizer the track plays on.
+     */
+    public TrackModel(int number, SimpleSynthesizer synth) {
+        this.number = number;
+        this.synth = synth;
+        sequencer = new SimpleSequencer(DEFAULT_LENGTH);
+        instrument = 0;
+        volume = DEFAULT_VOLUME;
+        synth.setVolume(number, volume);
+    }
+
+    /**
+     * Gets the track number.
+     *
+     * @return The track number, which is also the synthesizer channel.
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Gets the synthesizer the track plays on.
+     *
+     * @return The synthesizer.
+     */
+    public SimpleSynthesizer getSynthesizer() {
+        return synth;
+    }
+
+    /**
+     * Gets the sequencer that holds the events of the track.
+     *
+     * @return The sequencer.
+     */
+    public SimpleSequencer getSequencer() {
+        return sequencer;
+    }
+
+    /**
+     * Gets the length of the track.
+     *
+     * @return The length in beats.
+     */
+    public int getLength() {
+        return sequencer.getLength();
+    }
+
+    /**
+     * Sets the length of the track. This stops the track if it is playing.
+     *
+     * @param length The length in beats.
+     */
+    public void setLength(int length) {
+        sequencer.setLength(length);
+    }
+
+    /**
+     * Gets the instrument of the track.
+     *
+     * @return The index into the synthesizer's instrument list.
+     */
+    public int getInstrument() {
+        return instrument;
+    }
+
+    /**
+     * Sets the instrument of the track and plays the channel with it.
+     *
+     * @param instrument The index into the synthesizer's instrument list.
+     */
+    public void setInstrument(int instrument) {
+        this.instrument = instrument;
+        synth.setInstrument(number, instrument);
+    }
+
+    /**
+     * Gets the volume of the track.
+     *
+     * @return The volume between 0 and 127.
+     */
+    public int getVolume() {
+        return volume;
+    }
+
+    /**
+     * Sets the volume of the track and of its channel.
+     *
+     * @param volume The volume, limited to 0 to 127.
+     */
+    public void setVolume(int volume) {
+        this.volume = Math.max(0, Math.min(127, volume));
+        synth.setVolume(number, this.volume);
+    }
+
+    /**
+     * Gets whether the track is muted.
+     *
+     * @return true if the channel is muted.
+     */
+    public boolean isMute() {
+        return mute;
+    }
+
+    /**
+     * Mutes or unmutes the channel of the track.
+     *
+     * @param mute true to mute.
+     */
+    public void setMute(boolean mute) {
+        this.mute = mute;
+        synth.setMute(number, mute);
+    }
+
+    /**
+     * Replaces the events of the track.
+     *
+     * @param events The new events.
+     */
+    public void setEvents(BetterDynamicArray<AudioEvent> events) {
+        source = null;
+        pendingEvents = null;
+        replaceEvents(events);
+    }
+
+    /**
+     * Sets the saved data of the track without creating its events yet. The events are
+     * created by the given supplier when ensureLoaded is first called.
+     *
+     * @param source The saved data of the track.
+     * @param events Creates the audio events of the track.
+     */
+    public void setEventsLater(TrackData source, Supplier<BetterDynamicArray<AudioEvent>> events) {
+        this.source = source;
+        this.pendingEvents = events;
+    }
+
+    /**
+     * Creates the events of the track now if they were set to be created later.
+     */
+    public void ensureLoaded() {
+        if (pendingEvents != null) {
+            Supplier<BetterDynamicArray<AudioEvent>> events = pendingEvents;
+            pendingEvents = null; // Cleared first, since nested tracks may lead back here
+            replaceEvents(events.get());
+            sourceModificationCount = sequencer.getModificationCount();
+        }
+    }
+
+    /**
+     * Gets the saved data the events were loaded from, if the events have not changed since.
+     *
+     * @return The saved data, or null if there is none or the events were changed.
+     */
+    public TrackData getUnmodifiedSource() {
+        if (source != null && (pendingEvents != null
+                || sequencer.getModificationCount() == sourceModificationCount)) {
+            return source;
+        }
+        return null;
+    }
+
+    /**
+     * Stops the track and removes all of its events, as an edit that can be undone.
+     */
+    public void clear() {
+        source = null;
+        pendingEvents = null;
+        sequencer.stop();
+        sequencer.clear();
+    }
+
+    /**
+     * Copies the current state of the track. Events that are unchanged since they were
+     * loaded are kept in their saved form.
+     *
+     * @param number The number to store for the track.
+     * @return The data of the track.
+     */
+    public TrackData capture(int number) {
+        TrackData saved = getUnmodifiedSource();
+        if (saved != null) {
+            return saved.withSettings(number, instrument, volume, getLength());
+        }
+        return new TrackData(number, instrument, volume, getLength(), EventTable.capture(sequencer));
+    }
+
+    // Stops the track and puts in new events, which the sequencer tells its views about
+    private void replaceEvents(BetterDynamicArray<AudioEvent> events) {
+        sequencer.stop();
+        sequencer.updateSequence(events);
+    }
+}
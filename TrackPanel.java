@@ -34,33 +34,68 @@ public class TrackPanel extends SketchingPanel implements ActionListener, Change
 	private JSpinner lengthSpinner; // Spinner to select the track length
 	private JSlider volumeControl; // Slider to control the volume
 	private JComboBox<String> instrument; // Dropdown menu to select the instrument
+	private JComboBox<String> zoom; // Dropdown menu to fit or zoom the grid
 	private JLabel instrumentLabel; // Label for the instrument dropdown
 	private JLabel lengthLabel; // Label for the track length spinner
 	private JLabel volumeLabel; // Label displaying the current volume
 	private boolean isMute; // Boolean flag indicating whether the track is muted
-	private SimpleSynthesizer simpleSynthesizer;
+	private TrackModel model; // The track this panel is a view of
+	private EditListener editListener; // Told about every edit the user makes, or null
+	private PlaybackBackend playback; // Plays the track's sequence
+
+	// Zoom choices and the pixels per column of each; 0 fits the grid to the panel
+	private static final String[] ZOOM_NAMES = { "Fit", "8 px/beat", "16 px/beat", "32 px/beat", "64 px/beat" };
+	private static final int[] ZOOM_WIDTHS = { 0, 8, 16, 32, 64 };
+	private static final int ZOOM_ROW_HEIGHT = 8; // Pixels per pitch when zoomed
 	/**
-	 * Constructs a TrackPanel with the specified dimensions and track number.
+	 * Constructs a TrackPanel with the specified dimensions and track number, over a new empty track.
 	 *
 	 * @param width       the width of the TrackPanel
 	 * @param height      the height of the TrackPanel
 	 * @param trackNumber the track number to be managed by this panel
 	 */
 	public TrackPanel(int width, int height, int trackNumber, SimpleSynthesizer simpleSynthesizer) {
+		this(width, height, new TrackModel(trackNumber, simpleSynthesizer));
+	}
+
+	/**
+	 * Constructs a TrackPanel with the specified dimensions as a view of a track.
+	 *
+	 * @param width  the width of the TrackPanel
+	 * @param height the height of the TrackPanel
+	 * @param model  the track to show and edit
+	 */
+	public TrackPanel(int width, int height, TrackModel model) {
+		this(width, height, model, PlaybackBackend.TIMER);
+	}
+
+	/**
+	 * Constructs a TrackPanel with the specified dimensions as a view of a track that a
+	 * backend plays.
+	 *
+	 * @param width    the width of the TrackPanel
+	 * @param height   the height of the TrackPanel
+	 * @param model    the track to show and edit
+	 * @param playback the backend that plays the track
+	 */
+	public TrackPanel(int width, int height, TrackModel model, PlaybackBackend playback) {
 		// Initialize the TrackEditor
-		this.simpleSynthesizer = simpleSynthesizer;
-		trackEditor = new TrackEditor(width, height, trackNumber, this.simpleSynthesizer);
-		isMute = false;
+		this.model = model;
+		trackEditor = new TrackEditor(width, height, model);
+		trackEditor.setPlayback(playback);
+		isMute = model.isMute();
+		this.playback = playback;
 
 		JComponent box= (JComponent) Box.createRigidArea(new Dimension(200, 800));
 
 		// Initialize mute button
-		muteButton = new JToggleButton("Mute");
+		muteButton = new JToggleButton(isMute ? "Unmute" : "Mute", isMute);
 		muteButton.addActionListener(this);
 
 		// Initialize track length spinner
 		lengthLabel = new JLabel("Track Length:");
 		lengthSpinner = new JSpinner(new SpinnerListModel(new Integer[] { 4, 8, 16, 32, 64, 128, 256, 512 }));
+		setLength(model.getLength()); // Show the model's length before listening for changes
 		lengthSpinner.addChangeListener(this);
 
 		// Initialize volume control slider
@@ -76,6 +111,14 @@ public class TrackPanel extends SketchingPanel implements ActionListener, Change
 		// Initialize instrument selector
 		instrumentLabel = new JLabel("Instrument:");
 		instrument = new JComboBox<>(trackEditor.getInstrumentNames());
+		if (model.getInstrument() < instrument.getItemCount()) {
+			instrument.setSelectedIndex(model.getInstrument());
+		}
+		instrument.addActionListener(this);
+
+		// Initialize zoom selector
+		zoom = new JComboBox<>(ZOOM_NAMES);
+		zoom.addActionListener(this);
 
 		// Initialize control panel
 		controlPanel = new JPanel();
@@ -86,11 +129,17 @@ public class TrackPanel extends SketchingPanel implements ActionListener, Change
 		controlPanel.add(lengthSpinner);
 		controlPanel.add(instrumentLabel);
 		controlPanel.add(instrument);
+		controlPanel.add(new JLabel("Zoom:"));
+		controlPanel.add(zoom);
+
+		// Scroll the editor when zoomed; it fits the scroll pane otherwise
+		JScrollPane scrollPane = new JScrollPane(trackEditor);
+		scrollPane.setBorder(BorderFactory.createEmptyBorder());
 
 		// Set layout and add components
 		setLayout(new BorderLayout());
 		add(controlPanel, BorderLayout.NORTH);
-		add(trackEditor, BorderLayout.CENTER);
+		add(scrollPane, BorderLayout.CENTER);
 		add(box, BorderLayout.EAST);
 	}
 
@@ -136,6 +185,82 @@ public class TrackPanel extends SketchingPanel implements ActionListener, Change
 		trackEditor.setEvents(events);
 	}
 
+	/**
+	 * Returns the track this panel is a view of.
+	 *
+	 * @return the track model
+	 */
+	public TrackModel getModel() {
+		return model;
+	}
+
+	/**
+	 * Creates the events of the track now if they were set to be created later.
+	 */
+	public void ensureLoaded() {
+		model.ensureLoaded();
+	}
+
+	/**
+	 * Sets the listener that is told about every edit the user makes to this track.
+	 *
+	 * @param editListener the listener, or null for none
+	 */
+	public void setEditListener(EditListener editListener) {
+		this.editListener = editListener;
+		trackEditor.setEditListener(editListener);
+	}
+
+	/**
+	 * Stops the track, then plays it with a different backend from now on.
+	 *
+	 * @param playback the backend that plays the track
+	 */
+	public void setPlayback(PlaybackBackend playback) {
+		stop();
+		this.playback = playback;
+		trackEditor.setPlayback(playback);
+	}
+
+	/**
+	 * Creates the events if needed, then begins playing the track.
+	 */
+	@Override
+	public void play() {
+		ensureLoaded();
+		playback.play(getSequencer());
+	}
+
+	/**
+	 * Stops playing the track.
+	 */
+	@Override
+	public void stop() {
+		playback.stop(getSequencer());
+	}
+
+	/**
+	 * Sets whether to loop the track, also while it plays.
+	 *
+	 * @param doLoop true if looping is desired
+	 */
+	@Override
+	public void setLoop(boolean doLoop) {
+		super.setLoop(doLoop);
+		playback.settingsChanged(getSequencer());
+	}
+
+	/**
+	 * Sets the playback speed of the track, also while it plays.
+	 *
+	 * @param tempo in beats per minute
+	 */
+	@Override
+	public void setTempo(int tempo) {
+		super.setTempo(tempo);
+		playback.settingsChanged(getSequencer());
+	}
+
 	/**
 	 * Clears the track editor.
 	 */
@@ -168,7 +293,7 @@ public class TrackPanel extends SketchingPanel implements ActionListener, Change
 	 * @return the index of the selected instrument
 	 */
 	public int getInstrument() {
-		return this.instrument.getSelectedIndex();
+		return model.getInstrument();
 	}
 
 	/**
@@ -177,8 +302,10 @@ public class TrackPanel extends SketchingPanel implements ActionListener, Change
 	 * @param instrument the index of the instrument to set
 	 */
 	public void setInstrument(int instrument) {
-		this.instrument.setSelectedIndex(instrument);
 		trackEditor.setInstrument(instrument);
+		if (this.instrument.getSelectedIndex() != instrument) {
+			this.instrument.setSelectedIndex(instrument); // Fires actionPerformed, which then finds nothing to change
+		}
 	}
 
 	/**
@@ -203,11 +330,18 @@ public class TrackPanel extends SketchingPanel implements ActionListener, Change
 			}
 		}
 
-		if (event.getSource() == instrument) {
+		if (event.getSource() == instrument && instrument.getSelectedIndex() != model.getInstrument()) {
 			int selectedInstrument = instrument.getSelectedIndex();
 			setInstrument(selectedInstrument);
+			settingsChanged();
 			requestFocus(); // Return focus to the panel
 		}
+
+		if (event.getSource() == zoom) {
+			int width = ZOOM_WIDTHS[zoom.getSelectedIndex()];
+			trackEditor.setZoom(width, width > 0 ? ZOOM_ROW_HEIGHT : 0);
+			requestFocus();
+		}
 	}
 
 	/**
@@ -220,6 +354,7 @@ public class TrackPanel extends SketchingPanel implements ActionListener, Change
 		if (event.getSource() == lengthSpinner) {
 			int newLength = (int) lengthSpinner.getValue();
 			setLength(newLength);
+			settingsChanged();
 		} else if (event.getSource() == volumeControl) {
 			int newVolume = volumeControl.getValue();
 			setVolume(newVolume);
@@ -229,6 +364,14 @@ public class TrackPanel extends SketchingPanel implements ActionListener, Change
 				trackEditor.setMute(false);
 				muteButton.setText("Mute");
 			}
+			settingsChanged();
+		}
+	}
+
+	// Tells the edit listener about the current settings of the track
+	private void settingsChanged() {
+		if (editListener != null) {
+			editListener.trackChanged(trackEditor.getTrackNumber(), getInstrument(), getVolume(), getLength());
 		}
 	}
 }
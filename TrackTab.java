@@ -0,0 +1,136 @@
+package assign11;
+
+import java.awt.BorderLayout;
+import javax.swing.JPanel;
+
+/**
+ * The TrackTab class is the tab of one track in the frame. It plays the track and keeps
+ * its playback backend and edit listener, but builds the TrackPanel that edits the track,
+ * with its editor and controls, only when the tab is first shown. A song of many tracks
+ * opens with just the panel of the track in front, and the others stay plain models until
+ * the user looks at them.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class TrackTab extends JPanel {
+    private final int width;           // Size of the panel once it is built
+    private final int height;
+    private final TrackModel model;    // The track, which plays without a panel
+    private PlaybackBackend playback;  // Plays the track's sequence
+    private EditListener editListener; // Given to the panel once it is built, or null
+    private TrackPanel panel;          // Edits the track, or null until the tab is first shown
+
+    /**
+     * Creates the tab of a track without building its panel.
+     *
+     * @param width  The width of the panel.
+     * @param height The height of the panel.
+     * @param model  The track.
+     */
+    public TrackTab(int width, int height, TrackModel model) {
+        super(new BorderLayout());
+        this.width = width;
+        this.height = height;
+        this.model = model;
+        playback = PlaybackBackend.TIMER;
+    }
+
+    /**
+     * Gets the track of this tab.
+     *
+     * @return The track model.
+     */
+    public TrackModel getModel() {
+        return model;
+    }
+
+    /**
+     * Builds the panel of the track if it is not built yet, creating the track's events
+     * first if they were set to be created later. Call this when the tab is shown.
+     *
+     * @return The panel.
+     */
+    public TrackPanel showPanel() {
+        if (panel == null) {
+            model.ensureLoaded();
+            panel = new TrackPanel(width, height, model, playback);
+            panel.setEditListener(editListener);
+            add(panel, BorderLayout.CENTER);
+            revalidate();
+        }
+        return panel;
+    }
+
+    /**
+     * Gets whether the panel of the track was built.
+     *
+     * @return true once the tab was shown.
+     */
+    public boolean hasPanel() {
+        return panel != null;
+    }
+
+    /**
+     * Creates the events if needed, then begins playing the track.
+     */
+    public void play() {
+        model.ensureLoaded();
+        playback.play(model.getSequencer());
+    }
+
+    /**
+     * Stops playing the track.
+     */
+    public void stop() {
+        playback.stop(model.getSequencer());
+    }
+
+    /**
+     * Sets whether to loop the track, also while it plays.
+     *
+     * @param doLoop true if looping is desired.
+     */
+    public void setLoop(boolean doLoop) {
+        model.getSequencer().setLoop(doLoop);
+        playback.settingsChanged(model.getSequencer());
+    }
+
+    /**
+     * Sets the playback speed of the track, also while it plays.
+     *
+     * @param tempo The tempo in beats per minute.
+     */
+    public void setTempo(int tempo) {
+        model.getSequencer().setSpeedFactor(tempo / 60000.0);
+        playback.settingsChanged(model.getSequencer());
+    }
+
+    /**
+     * Stops the track, then plays it with a different backend from now on.
+     *
+     * @param playback The backend that plays the track.
+     */
+    public void setPlayback(PlaybackBackend playback) {
+        stop();
+        this.playback = playback;
+        if (panel != null) {
+            panel.setPlayback(playback);
+        }
+    }
+
+    /**
+     * Sets the listener that is told about every edit the user makes to this track.
+     *
+     * @param editListener The listener, or null for none.
+     */
+    public void setEditListener(EditListener editListener) {
+        this.editListener = editListener;
+        if (panel != null) {
+            panel.setEditListener(editListener);
+        }
+    }
+
+    // Required by a serializable class (ignore for now)
+    private static final long serialVersionUID = 1L;
+}
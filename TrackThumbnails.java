@@ -0,0 +1,168 @@
+package assign11;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import javax.swing.SwingUtilities;
+
+/**
+ * The TrackThumbnails class keeps a small piano roll image of the notes of each track, for
+ * the song editor to draw inside the blocks that play the track. An image is rendered once
+ * per version of its track on a background thread, and drawn as often as needed, so
+ * painting a dense arrangement costs one image draw per block.
+ *
+ * An image is out of date once its track's sequencer was changed or its length was set.
+ * The old image is drawn until the new one is ready, and then the listener given to the
+ * constructor is told, on the event dispatch thread, so the view can repaint.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class TrackThumbnails {
+    public static final int HEIGHT = 48;           // Height of every image in pixels
+    private static final int PIXELS_PER_BEAT = 4;  // Width of a beat in an image
+    private static final int MAX_WIDTH = 1024;     // Widest image, for long tracks
+    private static final Color NOTE_COLOR = new Color(255, 225, 225);
+
+    // Renders the images of every view, one at a time, on a thread that never keeps the program running
+    private static final ExecutorService RENDERER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "Track thumbnails");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private final WeakHashMap<TrackModel, Thumbnail> thumbnails = new WeakHashMap<>(); // Forgets removed tracks
+    private final Runnable rendered; // Told when a new image is ready
+
+    /**
+     * The image of one track and the version of the track it shows.
+     */
+    private static class Thumbnail {
+        private BufferedImage image;   // The last image rendered, or null
+        private int modificationCount; // Sequencer modification count the image or the render in progress is of
+        private int length;            // Track length the image or the render in progress is of
+        private boolean rendering;     // Whether a render is waiting or running
+    }
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param rendered Told on the event dispatch thread whenever a new image is ready.
+     */
+    public TrackThumbnails(Runnable rendered) {
+        this.rendered = rendered;
+    }
+
+    /**
+     * Gets the image of a track's notes, one pass of the track from left to right and the
+     * range of its pitches from bottom to top. If the track changed since the image was
+     * rendered, a new one is rendered in the background and the old one is returned.
+     *
+     * @param track The track.
+     * @return The image, or null if none was rendered yet.
+     */
+    public synchronized BufferedImage get(TrackModel track) {
+        Thumbnail thumbnail = thumbnails.computeIfAbsent(track, key -> new Thumbnail());
+        SimpleSequencer sequencer = track.getSequencer();
+        boolean current = thumbnail.modificationCount == sequencer.getModificationCount()
+                && thumbnail.length == track.getLength() && (thumbnail.image != null || thumbnail.rendering);
+        if (!current) {
+            thumbnail.modificationCount = sequencer.getModificationCount();
+            thumbnail.length = track.getLength();
+            render(thumbnail, track);
+        }
+        return thumbnail.image;
+    }
+
+    // Renders the current version of a track in the background, unless a render is already waiting for it
+    private void render(Thumbnail thumbnail, TrackModel track) {
+        if (thumbnail.rendering) {
+            return; // Once the render in progress is done, the next get renders the newer version
+        }
+        thumbnail.rendering = true;
+
+        // Events waiting in saved form are read from it without creating them; created events
+        // are copied here, since the sequencer can only be read on this thread
+        TrackData source = track.getUnmodifiedSource();
+        EventTable captured = source == null ? EventTable.capture(track.getSequencer()) : null;
+        Supplier<EventTable> events = source != null ? source::getEvents : () -> captured;
+        int length = track.getLength();
+        int modificationCount = track.getSequencer().getModificationCount();
+
+        RENDERER.execute(() -> {
+            BufferedImage image = draw(events.get(), length);
+            SwingUtilities.invokeLater(() -> {
+                synchronized (this) {
+                    thumbnail.rendering = false;
+                    thumbnail.image = image;
+                    if (thumbnail.modificationCount != modificationCount || thumbnail.length != length) {
+                        thumbnail.modificationCount = -1; // Changed again meanwhile: render on the next get
+                    }
+                }
+                rendered.run();
+            });
+        });
+    }
+
+    /**
+     * Draws the notes of a track into a new image.
+     *
+     * @param events The events of the track.
+     * @param length The length of the track in beats.
+     * @return The image, with a transparent background.
+     */
+    static BufferedImage draw(EventTable events, int length) {
+        int width = Math.max(1, Math.min(MAX_WIDTH, length * PIXELS_PER_BEAT));
+        BufferedImage image = new BufferedImage(width, HEIGHT, BufferedImage.TYPE_INT_ARGB_PRE);
+
+        // The range of pitches, so a track of a few notes still fills the image
+        int lowest = Integer.MAX_VALUE;
+        int highest = Integer.MIN_VALUE;
+        for (int i = 0; i < events.size(); i++) {
+            if (events.getType(i) == EventTable.NOTE) {
+                lowest = Math.min(lowest, events.getValue(i));
+                highest = Math.max(highest, events.getValue(i));
+            }
+        }
+        if (lowest > highest) {
+            return image; // No notes
+        }
+        int pitches = highest - lowest + 1;
+        int noteHeight = Math.max(1, HEIGHT / pitches);
+
+        Graphics2D g = image.createGraphics();
+        g.setColor(NOTE_COLOR);
+        for (int i = 0; i < events.size(); i++) {
+            if (events.getType(i) == EventTable.NOTE && events.getTime(i) < length) {
+                int x = (int) ((long) events.getTime(i) * width / Math.max(1, length));
+                int noteWidth = (int) Math.max(1, (long) events.getDuration(i) * width / Math.max(1, length));
+                int y = (highest - events.getValue(i)) * (HEIGHT - noteHeight) / Math.max(1, pitches - 1);
+                g.fillRect(x, y, noteWidth, noteHeight);
+            }
+        }
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Waits until every image requested so far is rendered and its listener was told.
+     * Call this from any thread but the event dispatch thread.
+     *
+     * @throws InterruptedException If the wait was interrupted.
+     */
+    static void awaitRendered() throws InterruptedException {
+        try {
+            RENDERER.submit(() -> { }).get();
+            SwingUtilities.invokeAndWait(() -> { });
+        } catch (ExecutionException | InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
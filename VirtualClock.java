@@ -0,0 +1,224 @@
+package assign11;
+
+import java.util.PriorityQueue;
+import java.util.TimerTask;
+
+/**
+ * The VirtualClock class is a SequencerClock in simulated time. Time only moves when the
+ * clock is advanced, and every task that falls due is run right away on the advancing
+ * thread, in order of time and then of scheduling. A song of ten minutes plays as fast as
+ * its events can run, and the same song always plays the same way.
+ *
+ * The clock can record every event that sequencers start or complete on it, with the time,
+ * so a test can compare the playback with what it expects.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class VirtualClock implements SequencerClock {
+
+    /**
+     * An event that a sequencer started or completed at a time of the clock.
+     */
+    public static class Dispatch {
+        private final long time;
+        private final AudioEvent event;
+        private final boolean starting;
+
+        Dispatch(long time, AudioEvent event, boolean starting) {
+            this.time = time;
+            this.event = event;
+            this.starting = starting;
+        }
+
+        /**
+         * Gets the time the event was dispatched.
+         *
+         * @return The time in milliseconds.
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * Gets the event.
+         *
+         * @return The event.
+         */
+        public AudioEvent getEvent() {
+            return event;
+        }
+
+        /**
+         * Gets whether the event started or completed.
+         *
+         * @return true if it started.
+         */
+        public boolean isStarting() {
+            return starting;
+        }
+
+        @Override
+        public String toString() {
+            return time + (starting ? " start " : " complete ") + event.getName() + "[" + event.getChannel() + ", "
+                    + event.getTime() + "]";
+        }
+    }
+
+    private final PriorityQueue<Pending> pending = new PriorityQueue<>(); // Tasks not run yet
+    private final BetterDynamicArray<Dispatch> tap;  // Recorded dispatches, or null if not recording
+    private long now;                                // Current time in milliseconds
+    private long scheduled;                          // Tasks scheduled so far, which orders equal times
+    private long dispatchCount;                      // Events dispatched so far
+
+    /**
+     * Creates a clock at time 0 that records every dispatched event.
+     */
+    public VirtualClock() {
+        this(true);
+    }
+
+    /**
+     * Creates a clock at time 0.
+     *
+     * @param recording true to record every dispatched event, false to only count them.
+     */
+    public VirtualClock(boolean recording) {
+        tap = recording ? new BetterDynamicArray<>() : null;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return now;
+    }
+
+    @Override
+    public Schedule newSchedule() {
+        return new VirtualSchedule();
+    }
+
+    @Override
+    public void dispatched(AudioEvent event, boolean starting) {
+        dispatchCount++;
+        if (tap != null) {
+            tap.add(new Dispatch(now, event, starting));
+        }
+    }
+
+    /**
+     * Moves the clock forward, running every task that falls due on the way at its own
+     * time. Tasks that those tasks schedule within the time are run too.
+     *
+     * @param millis The time to move forward in milliseconds, at least 0.
+     */
+    public void advance(long millis) {
+        long end = now + millis;
+        while (!pending.isEmpty() && pending.peek().due <= end) {
+            runNext();
+        }
+        now = end;
+    }
+
+    /**
+     * Runs tasks in order until none are left, moving the clock to the time of each. A
+     * looping sequencer never runs out of tasks, so play one with advance instead.
+     */
+    public void runUntilIdle() {
+        while (!pending.isEmpty()) {
+            runNext();
+        }
+    }
+
+    /**
+     * Gets whether any task is waiting to run.
+     *
+     * @return true if a task is scheduled and not cancelled.
+     */
+    public boolean isIdle() {
+        while (!pending.isEmpty() && pending.peek().schedule.cancelled) {
+            pending.poll();
+        }
+        return pending.isEmpty();
+    }
+
+    /**
+     * Gets the number of events dispatched so far, recorded or not.
+     *
+     * @return The number of starts and completions.
+     */
+    public long getDispatchCount() {
+        return dispatchCount;
+    }
+
+    /**
+     * Gets the recorded events, in the order they were dispatched.
+     *
+     * @return The dispatches; empty if the clock does not record.
+     */
+    public BetterDynamicArray<Dispatch> getDispatches() {
+        return tap == null ? new BetterDynamicArray<>() : tap;
+    }
+
+    /**
+     * Forgets the recorded events and the dispatch count. The time and the scheduled tasks
+     * stay as they are.
+     */
+    public void clearDispatches() {
+        dispatchCount = 0;
+        if (tap != null) {
+            tap.clear();
+        }
+    }
+
+    // Runs the earliest task unless its schedule was cancelled
+    private void runNext() {
+        Pending next = pending.poll();
+        if (!next.schedule.cancelled) {
+            now = Math.max(now, next.due);
+            next.task.run();
+        }
+    }
+
+    /**
+     * A task waiting for its time.
+     */
+    private static class Pending implements Comparable<Pending> {
+        private final long due;         // Time to run at
+        private final long order;       // Scheduling order, for tasks due at the same time
+        private final TimerTask task;
+        private final VirtualSchedule schedule;
+
+        Pending(long due, long order, TimerTask task, VirtualSchedule schedule) {
+            this.due = due;
+            this.order = order;
+            this.task = task;
+            this.schedule = schedule;
+        }
+
+        @Override
+        public int compareTo(Pending other) {
+            int byTime = Long.compare(due, other.due);
+            return byTime != 0 ? byTime : Long.compare(order, other.order);
+        }
+    }
+
+    /**
+     * The tasks of one sequencer run; cancelling it skips them when they fall due.
+     */
+    private class VirtualSchedule implements Schedule {
+        private boolean cancelled;
+
+        @Override
+        public void schedule(TimerTask task, long delayMillis) {
+            if (cancelled) {
+                throw new IllegalStateException("The schedule was cancelled");
+            }
+            pending.add(new Pending(now + Math.max(0, delayMillis), scheduled++, task, this));
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package assign11;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+/**
+ * The WavFiles class renders songs to WAV files without a sound device, so songs can be
+ * rendered on a machine without a display or audio hardware.
+ *
+ * A song is first converted to MIDI with MidiFiles, then its notes are mixed block by block
+ * into 16 bit mono samples while AudioSystem writes them, so only one block of audio is in
+ * memory at a time. Every note is an additive tone with a short fade in and out at the
+ * track's volume; the JDK does not let its software synthesizer render to a stream, so the
+ * instruments of the tracks are not heard.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+public class WavFiles {
+    public static final String EXTENSION = "wav";   // File name extension of WAV files
+    public static final float SAMPLE_RATE = 44100;  // Frames per second in rendered files
+
+    private static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+    private static final int BLOCK_FRAMES = 4096;   // Frames mixed at a time
+    private static final int FADE_FRAMES = 220;     // About 5 ms of fade at both ends of a note
+    private static final double NOTE_GAIN = 0.2;    // Peak of one note at full volume, leaving room for chords
+    private static final int TABLE_SIZE = 4096;     // Entries in one period of the waveform
+    private static final double[] WAVE = new double[TABLE_SIZE + 1]; // One period, plus the first entry again
+    private static final int DEFAULT_VOLUME = 100;  // Volume of a channel without a volume message
+    private static final int VOLUME_CONTROLLER = 7; // Controller that MidiFiles writes the volume to
+
+    static {
+        // A fundamental with two softer overtones sounds less thin than a pure sine
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            double x = 2 * Math.PI * i / TABLE_SIZE;
+            WAVE[i] = (Math.sin(x) + 0.3 * Math.sin(2 * x) + 0.1 * Math.sin(3 * x)) / 1.4;
+        }
+    }
+
+    /**
+     * Renders a song to a WAV file. The file is replaced atomically, as with SongFiles.writeSong.
+     *
+     * @param song     The song to render.
+     * @param file     The file to write.
+     * @param progress Told how much audio is rendered; may cancel the write.
+     * @throws IOException if the file cannot be written, or the write was cancelled.
+     */
+    public static void write(SongData song, File file, SongProgress progress) throws IOException {
+        Sequence sequence = MidiFiles.toSequence(song, progress.part(0, 0.1));
+        Mixer mixer = new Mixer(sequence, song.getTempo(), song.getLength(), progress.part(0.1, 0.95));
+        Path target = file.toPath().toAbsolutePath();
+        Path temp = SongFiles.createTempFile(target);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                    AudioInputStream audio = new AudioInputStream(mixer, FORMAT, mixer.frames)) {
+                AudioSystem.write(audio, AudioFileFormat.Type.WAVE, Channels.newOutputStream(channel));
+                channel.force(true);
+            }
+            progress.update(1); // Last chance to cancel
+            SongFiles.replaceAtomically(temp, target);
+            temp = null;
+        } finally {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    // Mixes the notes of a sequence into little endian 16 bit samples as they are read
+    private static class Mixer extends InputStream {
+        private final long frames;       // Frames in the whole song
+        private final SongProgress progress;
+        private long[] starts = new long[64]; // First frame of each note
+        private long[] ends = new long[64];   // Frame each note is released on
+        private double[] steps = new double[64]; // Table entries each note advances per frame
+        private double[] gains = new double[64]; // Peak of each note
+        private int count;               // Notes in the arrays
+        private long[] order;            // Start frame << 24 | note index, in start order
+        private int next;                // Position in order of the next note to start
+        private int[] active = new int[64]; // Notes that are sounding
+        private double[] phases = new double[64]; // Position in the table of each active note
+        private int activeCount;
+        private final double[] mix = new double[BLOCK_FRAMES];
+        private final byte[] block = new byte[BLOCK_FRAMES * 2];
+        private int blockPosition;       // Next byte of block to read
+        private int blockLength;         // Bytes in block
+        private long frame;              // First frame of the next block
+
+        Mixer(Sequence sequence, int tempo, int length, SongProgress progress) {
+            this.progress = progress;
+            double framesPerTick = SAMPLE_RATE * 60.0 / (Math.max(1, tempo) * (double) sequence.getResolution());
+            long songEnd = (long) (length * sequence.getResolution() * framesPerTick);
+            for (Track track : sequence.getTracks()) {
+                collect(track, framesPerTick);
+            }
+
+            // Sorting start frames packed with note indexes sorts the notes without boxing them
+            order = new long[count];
+            long last = songEnd;
+            for (int i = 0; i < count; i++) {
+                order[i] = starts[i] << 24 | i;
+                last = Math.max(last, ends[i] + FADE_FRAMES);
+            }
+            Arrays.sort(order);
+            frames = last;
+        }
+
+        // Adds the notes of one MIDI track, paired from their note on and note off messages
+        private void collect(Track track, double framesPerTick) {
+            int[] volumes = new int[16];
+            Arrays.fill(volumes, DEFAULT_VOLUME);
+            long[] noteStarts = new long[16 * 128]; // Frame each channel and key started on, or -1
+            Arrays.fill(noteStarts, -1);
+            for (int k = 0; k < track.size(); k++) {
+                MidiEvent event = track.get(k);
+                if (!(event.getMessage() instanceof ShortMessage message)) {
+                    continue;
+                }
+                int channel = message.getChannel();
+                int command = message.getCommand();
+                long at = (long) (event.getTick() * framesPerTick);
+                if (command == ShortMessage.CONTROL_CHANGE && message.getData1() == VOLUME_CONTROLLER) {
+                    volumes[channel] = message.getData2();
+                } else if (command == ShortMessage.NOTE_ON || command == ShortMessage.NOTE_OFF) {
+                    int key = channel * 128 + message.getData1();
+                    if (noteStarts[key] >= 0) {
+                        addNote(noteStarts[key], at, message.getData1(), volumes[channel]);
+                        noteStarts[key] = -1;
+                    }
+                    if (command == ShortMessage.NOTE_ON && message.getData2() > 0) {
+                        noteStarts[key] = at;
+                    }
+                }
+            }
+        }
+
+        private void addNote(long start, long end, int key, int volume) {
+            if (count == starts.length) {
+                int size = count * 2;
+                starts = Arrays.copyOf(starts, size);
+                ends = Arrays.copyOf(ends, size);
+                steps = Arrays.copyOf(steps, size);
+                gains = Arrays.copyOf(gains, size);
+            }
+            double frequency = 440 * Math.pow(2, (key - 69) / 12.0);
+            starts[count] = start;
+            ends[count] = Math.max(start + FADE_FRAMES, end);
+            steps[count] = frequency * TABLE_SIZE / SAMPLE_RATE;
+            gains[count] = NOTE_GAIN * volume / 127.0;
+            count++;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (blockPosition == blockLength) {
+                if (frame >= frames) {
+                    return -1;
+                }
+                render();
+                progress.update((double) frame / frames);
+            }
+            int read = Math.min(length, blockLength - blockPosition);
+            System.arraycopy(block, blockPosition, bytes, offset, read);
+            blockPosition += read;
+            return read;
+        }
+
+        // Mixes the next block of frames into the byte block
+        private void render() {
+            int size = (int) Math.min(BLOCK_FRAMES, frames - frame);
+            long blockEnd = frame + size;
+            Arrays.fill(mix, 0, size, 0);
+
+            // Notes that start in this block join the active ones
+            while (next < count && order[next] >>> 24 < blockEnd) {
+                if (activeCount == active.length) {
+                    active = Arrays.copyOf(active, activeCount * 2);
+                    phases = Arrays.copyOf(phases, activeCount * 2);
+                }
+                active[activeCount] = (int) (order[next] & 0xFFFFFF);
+                phases[activeCount] = 0;
+                activeCount++;
+                next++;
+            }
+
+            for (int a = 0; a < activeCount; a++) {
+                int note = active[a];
+                long start = starts[note];
+                long release = ends[note];
+                double phase = phases[a];
+                for (int i = (int) Math.max(0, start - frame); i < size; i++) {
+                    long at = frame + i;
+                    double gain = gains[note];
+                    if (at - start < FADE_FRAMES || at >= release) {
+                        double envelope = Math.min((at - start + 1) / (double) FADE_FRAMES,
+                                (release + FADE_FRAMES - at) / (double) FADE_FRAMES);
+                        if (envelope <= 0) {
+                            break;
+                        }
+                        gain *= Math.min(1, envelope);
+                    }
+                    mix[i] += WAVE[(int) phase] * gain;
+                    phase += steps[note];
+                    if (phase >= TABLE_SIZE) {
+                        phase -= TABLE_SIZE;
+                    }
+                }
+                phases[a] = phase;
+            }
+
+            // Notes that have faded out leave the active ones
+            int kept = 0;
+            for (int a = 0; a < activeCount; a++) {
+                if (ends[active[a]] + FADE_FRAMES > blockEnd) {
+                    active[kept] = active[a];
+                    phases[kept] = phases[a];
+                    kept++;
+                }
+            }
+            activeCount = kept;
+
+            for (int i = 0; i < size; i++) {
+                int sample = (int) Math.round(Math.max(-1, Math.min(1, mix[i])) * Short.MAX_VALUE);
+                block[2 * i] = (byte) sample;
+                block[2 * i + 1] = (byte) (sample >> 8);
+            }
+            blockPosition = 0;
+            blockLength = size * 2;
+            frame = blockEnd;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package assign11;
+
+import java.util.Random;
+
+/**
+ * The BenchmarkData class makes the inputs of the JMH benchmarks. Every input is generated
+ * from the same seed, so runs before and after a change measure the same work.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+final class BenchmarkData {
+    static final int TRACKS = 8;          // Tracks in a generated song
+    static final int TRACK_LENGTH = 512;  // Beats in a generated track, the longest the editor offers
+    static final int EDITOR_SIZE = 650;   // Width and height of a painted editor, as in the frame
+    static final long SEED = 42;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Makes the numbers 0 to n - 1 in a seeded random order.
+     *
+     * @param n The number of values.
+     * @return The values.
+     */
+    static Integer[] shuffled(int n) {
+        Integer[] values = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        Random random = new Random(SEED);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+        return values;
+    }
+
+    /**
+     * Makes a new array holding values in order.
+     *
+     * @param <T>    The type of the values.
+     * @param values The values.
+     * @return The array.
+     */
+    static <T> BetterDynamicArray<T> filled(T[] values) {
+        BetterDynamicArray<T> array = new BetterDynamicArray<>(values.length);
+        for (T value : values) {
+            array.add(value);
+        }
+        return array;
+    }
+
+    /**
+     * Makes seeded random notes on channel 0 within one track length.
+     *
+     * @param n     The number of notes.
+     * @param synth The synthesizer the notes play on.
+     * @return The notes, not sorted.
+     */
+    static AudioEvent[] notes(int n, SimpleSynthesizer synth) {
+        Random random = new Random(SEED);
+        AudioEvent[] events = new AudioEvent[n];
+        for (int i = 0; i < n; i++) {
+            events[i] = new NoteEvent(random.nextInt(TRACK_LENGTH), "note", 0, 1 + random.nextInt(4),
+                    random.nextInt(120), synth);
+        }
+        return events;
+    }
+
+    /**
+     * Makes a seeded random song with notes spread over its tracks, each track played once.
+     *
+     * @param n The number of notes.
+     * @return The song.
+     */
+    static SongData song(int n) {
+        Random random = new Random(SEED);
+        BetterDynamicArray<TrackData> tracks = new BetterDynamicArray<>(TRACKS);
+        EventTable arrangement = new EventTable(TRACKS);
+        for (int t = 0; t < TRACKS; t++) {
+            EventTable events = new EventTable(n / TRACKS);
+            for (int i = 0; i < n / TRACKS; i++) {
+                events.add(EventTable.NOTE, "note", random.nextInt(TRACK_LENGTH), t, random.nextInt(120),
+                        1 + random.nextInt(4));
+            }
+            tracks.add(new TrackData(t, 0, TrackModel.DEFAULT_VOLUME, TRACK_LENGTH, events));
+            arrangement.add(EventTable.TRACK, "TrackEvent", 0, t, 0, TRACK_LENGTH);
+        }
+        return new SongData(SongModel.DEFAULT_TEMPO, tracks, TRACK_LENGTH, arrangement);
+    }
+}
@@ -0,0 +1,135 @@
+package assign11;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The BetterDynamicArrayBenchmark class measures growing, sorting and shifting a
+ * BetterDynamicArray. Inserting and removing at the front take n squared steps, so they
+ * run at the smaller sizes only.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class BetterDynamicArrayBenchmark {
+
+    /**
+     * Values to add, in a random order.
+     */
+    @State(Scope.Thread)
+    public static class Values {
+        @Param({ "1000", "10000", "100000" })
+        public int n;
+        Integer[] values;
+
+        @Setup(Level.Trial)
+        public void makeValues() {
+            values = BenchmarkData.shuffled(n);
+        }
+    }
+
+    /**
+     * An unsorted array, filled again before each invocation.
+     */
+    @State(Scope.Thread)
+    public static class Unsorted {
+        @Param({ "1000", "10000", "100000" })
+        public int n;
+        Integer[] values;
+        BetterDynamicArray<Integer> array;
+
+        @Setup(Level.Trial)
+        public void makeValues() {
+            values = BenchmarkData.shuffled(n);
+        }
+
+        @Setup(Level.Invocation)
+        public void fill() {
+            array = BenchmarkData.filled(values);
+        }
+    }
+
+    /**
+     * Values to insert at the front, at the sizes where that stays quick enough to measure.
+     */
+    @State(Scope.Thread)
+    public static class FewValues {
+        @Param({ "1000", "10000" })
+        public int n;
+        Integer[] values;
+
+        @Setup(Level.Trial)
+        public void makeValues() {
+            values = BenchmarkData.shuffled(n);
+        }
+    }
+
+    /**
+     * An array to empty from the front, filled again before each invocation.
+     */
+    @State(Scope.Thread)
+    public static class FewFilled {
+        @Param({ "1000", "10000" })
+        public int n;
+        Integer[] values;
+        BetterDynamicArray<Integer> array;
+
+        @Setup(Level.Trial)
+        public void makeValues() {
+            values = BenchmarkData.shuffled(n);
+        }
+
+        @Setup(Level.Invocation)
+        public void fill() {
+            array = BenchmarkData.filled(values);
+        }
+    }
+
+    @Benchmark
+    public BetterDynamicArray<Integer> add(Values state) {
+        BetterDynamicArray<Integer> array = new BetterDynamicArray<>();
+        for (Integer value : state.values) {
+            array.add(value);
+        }
+        return array;
+    }
+
+    @Benchmark
+    public BetterDynamicArray<Integer> sort(Unsorted state) {
+        state.array.sort();
+        return state.array;
+    }
+
+    @Benchmark
+    public BetterDynamicArray<Integer> insertFront(FewValues state) {
+        BetterDynamicArray<Integer> array = new BetterDynamicArray<>();
+        for (Integer value : state.values) {
+            array.insert(0, value);
+        }
+        return array;
+    }
+
+    @Benchmark
+    public BetterDynamicArray<Integer> removeFront(FewFilled state) {
+        while (state.array.size() > 0) {
+            state.array.remove(0);
+        }
+        return state.array;
+    }
+}
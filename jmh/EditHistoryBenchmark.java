@@ -0,0 +1,69 @@
+package assign11;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The EditHistoryBenchmark class measures undoing and redoing a bulk edit: one step that
+ * transposes a tenth of the n notes of a track.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class EditHistoryBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int n;
+
+    private TrackModel track;
+    private EditHistory history;
+
+    @Setup(Level.Trial)
+    public void makeStep() throws InterruptedException, InvocationTargetException {
+        SimpleSynthesizer synth = new SimpleSynthesizer();
+        SongModel model = new SongModel(synth);
+        track = model.addTrack();
+        track.setLength(BenchmarkData.TRACK_LENGTH);
+        history = new EditHistory(model, () -> { });
+        SwingUtilities.invokeAndWait(() -> {
+            track.setEvents(BenchmarkData.filled(BenchmarkData.notes(n, synth)));
+            BetterDynamicArray<AudioEvent> removed = new BetterDynamicArray<>();
+            BetterDynamicArray<AudioEvent> added = new BetterDynamicArray<>();
+            int i = 0;
+            for (AudioEvent event : track.getSequencer()) {
+                if (i++ % 10 == 0 && event instanceof NoteEvent note) {
+                    removed.add(note);
+                    added.add(new NoteEvent(note.getTime(), "note", 0, note.getDuration(),
+                            (note.getPitch() + 1) % 120, synth));
+                }
+            }
+            track.getSequencer().replace(removed, added);
+        });
+        SwingUtilities.invokeAndWait(() -> { }); // Records the step
+    }
+
+    @Benchmark
+    public TrackModel undoAndRedo() {
+        history.undo(); // Undo and redo schedule nothing, so this thread may call them
+        history.redo();
+        return track;
+    }
+}
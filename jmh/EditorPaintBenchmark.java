@@ -0,0 +1,114 @@
+package assign11;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The EditorPaintBenchmark class measures painting the editors into an offscreen image the
+ * size of the frame's: a track editor of n notes, and a song editor whose blocks show
+ * thumbnails of their tracks' notes. The thumbnails are rendered before measuring, so the
+ * paints that draw them are measured rather than the first one that asks for them.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class EditorPaintBenchmark {
+
+    /**
+     * An image and a graphics on it, made again for each invocation.
+     */
+    @State(Scope.Thread)
+    public static class Canvas {
+        final BufferedImage image = new BufferedImage(BenchmarkData.EDITOR_SIZE, BenchmarkData.EDITOR_SIZE,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g;
+
+        @Setup(Level.Invocation)
+        public void createGraphics() {
+            g = image.createGraphics();
+        }
+
+        @TearDown(Level.Invocation)
+        public void dispose() {
+            g.dispose();
+        }
+    }
+
+    /**
+     * A track editor of n random notes.
+     */
+    @State(Scope.Thread)
+    public static class Track {
+        @Param({ "1000", "10000", "100000" })
+        public int n;
+        TrackEditor editor;
+
+        @Setup(Level.Trial)
+        public void makeEditor() {
+            SimpleSynthesizer synth = new SimpleSynthesizer();
+            TrackModel track = new TrackModel(0, synth);
+            track.setLength(BenchmarkData.TRACK_LENGTH);
+            track.setEvents(BenchmarkData.filled(BenchmarkData.notes(n, synth)));
+            editor = new TrackEditor(BenchmarkData.EDITOR_SIZE, BenchmarkData.EDITOR_SIZE, track);
+            editor.setSize(BenchmarkData.EDITOR_SIZE, BenchmarkData.EDITOR_SIZE);
+        }
+    }
+
+    /**
+     * A song editor of a generated song, with its thumbnails rendered.
+     */
+    @State(Scope.Thread)
+    public static class Song {
+        @Param({ "4", "16" })
+        public int tracks;
+        SongEditor editor;
+
+        @Setup(Level.Trial)
+        public void makeEditor() throws InterruptedException {
+            SongGenerator generator = new SongGenerator(BenchmarkData.SEED);
+            generator.setTrackCount(tracks);
+            generator.setDensity(4);
+            SongModel model = new SongModel(new SimpleSynthesizer());
+            model.load(generator.generate());
+            editor = new SongEditor(BenchmarkData.EDITOR_SIZE, BenchmarkData.EDITOR_SIZE, model);
+            editor.setSize(BenchmarkData.EDITOR_SIZE, BenchmarkData.EDITOR_SIZE);
+            BufferedImage image = new BufferedImage(BenchmarkData.EDITOR_SIZE, BenchmarkData.EDITOR_SIZE,
+                    BufferedImage.TYPE_INT_RGB);
+            Graphics2D first = image.createGraphics();
+            editor.paintComponent(first); // Asks for the thumbnails
+            first.dispose();
+            TrackThumbnails.awaitRendered();
+        }
+    }
+
+    @Benchmark
+    public BufferedImage trackEditor(Track track, Canvas canvas) {
+        track.editor.paintComponent(canvas.g);
+        return canvas.image;
+    }
+
+    @Benchmark
+    public BufferedImage songEditor(Song song, Canvas canvas) {
+        song.editor.paintComponent(canvas.g);
+        return canvas.image;
+    }
+}
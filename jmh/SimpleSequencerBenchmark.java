@@ -0,0 +1,78 @@
+package assign11;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The SimpleSequencerBenchmark class measures adding one event to a sequencer of n events,
+ * and starting a sequencer of n events, which schedules every one of them. The sequencer
+ * is slowed down so far that the scheduled events never run.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class SimpleSequencerBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int n;
+
+    private SimpleSynthesizer synth;
+    private AudioEvent[] events;
+    private SimpleSequencer sequencer;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void makeSequencer() {
+        synth = new SimpleSynthesizer();
+        events = BenchmarkData.notes(n, synth);
+        sequencer = new SimpleSequencer(BenchmarkData.TRACK_LENGTH);
+        sequencer.setSpeedFactor(1e-6); // Scheduled events are far enough ahead never to run
+        random = new Random(BenchmarkData.SEED);
+    }
+
+    // Puts back the n events an add grew past
+    @Setup(Level.Invocation)
+    public void refill() {
+        if (sequencer.getEventCount() != n) {
+            sequencer.updateSequence(BenchmarkData.filled(events));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() {
+        if (sequencer.isRunning()) {
+            sequencer.stop();
+        }
+    }
+
+    @Benchmark
+    public SimpleSequencer add() {
+        sequencer.add(new NoteEvent(random.nextInt(BenchmarkData.TRACK_LENGTH), "note", 0, 1, random.nextInt(120),
+                synth));
+        return sequencer;
+    }
+
+    @Benchmark
+    public SimpleSequencer start() {
+        sequencer.start();
+        return sequencer;
+    }
+}
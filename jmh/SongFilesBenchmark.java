@@ -0,0 +1,79 @@
+package assign11;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The SongFilesBenchmark class measures round trips of a song of n notes: through the text
+ * format and the binary format in memory, and through a binary song file on disk, which
+ * is replaced atomically on every write.
+ *
+ * @author Thanh Le
+ * @version 10/19/2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class SongFilesBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int n;
+
+    private SongData song;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void makeSong() throws IOException {
+        song = BenchmarkData.song(n);
+        file = File.createTempFile("benchmark", "." + SongFormat.BINARY.getExtension());
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Benchmark
+    public SongData text() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (WritableByteChannel channel = Channels.newChannel(bytes)) {
+            SongFiles.writeText(song, channel);
+        }
+        return SongFiles.readText(new SongTokenizer(ByteBuffer.wrap(bytes.toByteArray())));
+    }
+
+    @Benchmark
+    public SongData binary() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (WritableByteChannel channel = Channels.newChannel(bytes)) {
+            BinarySongFormat.write(song, channel);
+        }
+        return BinarySongFormat.read(ByteBuffer.wrap(bytes.toByteArray()), false);
+    }
+
+    @Benchmark
+    public SongData file() throws IOException {
+        SongFiles.writeSong(file, SongFormat.BINARY, song);
+        return SongFiles.readSong(file);
+    }
+}